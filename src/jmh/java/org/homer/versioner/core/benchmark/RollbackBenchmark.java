@@ -0,0 +1,98 @@
+package org.homer.versioner.core.benchmark;
+
+import org.homer.versioner.core.builders.RollbackBuilder;
+import org.homer.versioner.core.builders.UpdateBuilder;
+import org.homer.versioner.core.procedure.Rollback;
+import org.homer.versioner.core.procedure.Update;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.logging.NullLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RollbackBenchmark class, it measures the rollback of a rollback State, on Entities whose history is made of the
+ * given number of alternating update and rollback cycles, so that the ROLLBACK chain to resolve is as long as them.
+ * <p>
+ * A rollback can't be repeated on the same State, so each invocation works on its own Entity: they are all created at
+ * the beginning of the iteration, in a single transaction rolled back at its end, and each iteration runs a batch of
+ * {@value #BATCH} rollbacks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, batchSize = RollbackBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = RollbackBenchmark.BATCH)
+@Fork(1)
+public class RollbackBenchmark {
+
+    static final int BATCH = 20;
+    private static final LocalDateTime DATE = LocalDateTime.of(1988, 10, 27, 0, 0);
+
+    @Param({"100", "500"})
+    public int cycles;
+
+    private Path storeDir;
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService database;
+
+    private Transaction transaction;
+    private Node[] entities;
+    private int next;
+    private Rollback rollback;
+
+    @Setup(Level.Trial)
+    public void startDatabase() throws IOException {
+        storeDir = Files.createTempDirectory("versioner-benchmark");
+        managementService = new DatabaseManagementServiceBuilder(storeDir).build();
+        database = managementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+    }
+
+    @Setup(Level.Iteration)
+    public void createEntities() {
+        transaction = database.beginTx();
+        Update update = new UpdateBuilder().withTransaction(transaction).withLog(NullLog.getInstance()).build().orElseThrow();
+        rollback = new RollbackBuilder().withTransaction(transaction).withLog(NullLog.getInstance()).build().orElseThrow();
+
+        entities = new Node[BATCH];
+        next = 0;
+        for (int i = 0; i < BATCH; i++) {
+            entities[i] = transaction.createNode(Label.label("Entity"));
+            update.update(entities[i], Collections.singletonMap("cycle", -1), "", DATE);
+            update.update(entities[i], Collections.singletonMap("cycle", 0), "", DATE);
+            for (int cycle = 1; cycle <= cycles; cycle++) {
+                update.update(entities[i], Collections.singletonMap("cycle", cycle), "", DATE);
+                rollback.rollback(entities[i], DATE);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollbackTransaction() {
+        transaction.rollback();
+        transaction.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() throws IOException {
+        managementService.shutdown();
+        FileUtils.deleteDirectory(storeDir);
+    }
+
+    @Benchmark
+    public Object rollbackOfARollback() {
+        return rollback.rollback(entities[next++], DATE).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,107 @@
+package org.homer.versioner.core.benchmark;
+
+import org.homer.versioner.core.builders.RollbackBuilder;
+import org.homer.versioner.core.builders.UpdateBuilder;
+import org.homer.versioner.core.procedure.Rollback;
+import org.homer.versioner.core.procedure.Update;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.logging.NullLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WritePathBenchmark class, it measures the write procedures hot path, to be run with the gc profiler
+ * ({@code -prof gc}) in order to get the allocated bytes per operation.
+ * <p>
+ * The Entity and its first two States are committed once, then each invocation works on its own transaction, rolled
+ * back at its end, so that every operation sees the same history and transaction state. The bytes allocated to begin
+ * and roll back the transaction are part of the per operation figure, and they are the same for every benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritePathBenchmark {
+
+    private static final Map<String, Object> STATE_PROPS = Collections.singletonMap("key", "value");
+    private static final LocalDateTime DATE = LocalDateTime.of(1988, 10, 27, 0, 0);
+
+    private Path storeDir;
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService database;
+    private long entityId;
+
+    private Transaction transaction;
+    private Node entity;
+    private Update update;
+    private Rollback rollback;
+
+    @Setup(Level.Trial)
+    public void startDatabase() throws IOException {
+        storeDir = Files.createTempDirectory("versioner-benchmark");
+        managementService = new DatabaseManagementServiceBuilder(storeDir).build();
+        database = managementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+
+        update = new UpdateBuilder().withLog(NullLog.getInstance()).build().orElseThrow();
+        rollback = new RollbackBuilder().withLog(NullLog.getInstance()).build().orElseThrow();
+        try (Transaction setupTransaction = database.beginTx()) {
+            update.transaction = setupTransaction;
+            Node setupEntity = setupTransaction.createNode(Label.label("Entity"));
+            update.update(setupEntity, STATE_PROPS, "", DATE);
+            update.update(setupEntity, STATE_PROPS, "", DATE);
+            entityId = setupEntity.getId();
+            setupTransaction.commit();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void beginTransaction() {
+        transaction = database.beginTx();
+        update.transaction = transaction;
+        rollback.transaction = transaction;
+        entity = transaction.getNodeById(entityId);
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollbackTransaction() {
+        transaction.rollback();
+        transaction.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() throws IOException {
+        managementService.shutdown();
+        FileUtils.deleteDirectory(storeDir);
+    }
+
+    @Benchmark
+    public Object update() {
+        return update.update(entity, STATE_PROPS, "", DATE).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public Object patch() {
+        return update.patch(entity, STATE_PROPS, "", DATE).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public Object rollback() {
+        return rollback.rollback(entity, DATE).findFirst().orElseThrow();
+    }
+}
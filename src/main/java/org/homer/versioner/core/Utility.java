@@ -1,9 +1,15 @@
 package org.homer.versioner.core;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.homer.versioner.core.cache.CurrentStateCache;
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.diff.StateDiff;
 import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.feed.ChangeFeed;
+import org.homer.versioner.core.index.StateIndex;
 import org.homer.versioner.core.output.NodeOutput;
 import org.homer.versioner.core.output.RelationshipOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
 import org.neo4j.graphdb.*;
 
 import java.time.Instant;
@@ -25,17 +31,46 @@ public class Utility {
     public static final String HAS_STATE_TYPE = "HAS_STATE";
     public static final String PREVIOUS_TYPE = "PREVIOUS";
     public static final String ROLLBACK_TYPE = "ROLLBACK";
+    public static final String ROLLBACK_TARGET_TYPE = "ROLLBACK_TARGET";
     public static final String FOR_TYPE = "FOR";
+    public static final String R_LABEL = "R";
+    public static final String SKIP_TYPE = "SKIP";
+    public static final String SHARES_RELS_TYPE = "SHARES_RELS";
     public static final String DATE_PROP = "date";
     public static final String START_DATE_PROP = "startDate";
     public static final String END_DATE_PROP = "endDate";
+    public static final String ORDINAL_PROP = "ordinal";
+    public static final String DISTANCE_PROP = "distance";
+    public static final String DELTA_PROP = "delta";
+    public static final String ABSENT_KEYS_PROP = "absentKeys";
+    public static final String REMOVED_KEYS_PROP = "removedKeys";
+    public static final String UPDATED_KEYS_PROP = "updatedKeys";
+    public static final String ADDED_KEYS_PROP = "addedKeys";
+    public static final String OLD_VALUE_PREFIX = "old.";
+    public static final String NEW_VALUE_PREFIX = "new.";
     public static final String LOGGER_TAG = "[graph-versioner] - ";
     /*   DIFF OPERATIONS   */
     public static final String DIFF_OPERATION_REMOVE = "REMOVE";
     public static final String DIFF_OPERATION_ADD = "ADD";
     public static final String DIFF_OPERATION_UPDATE = "UPDATE";
     public static final List<String> DIFF_OPERATIONS_SORTING = Arrays.asList(DIFF_OPERATION_REMOVE, DIFF_OPERATION_UPDATE, DIFF_OPERATION_ADD);
-    public static final List<String> SYSTEM_RELS = Arrays.asList(CURRENT_TYPE, HAS_STATE_TYPE, PREVIOUS_TYPE, ROLLBACK_TYPE);
+    public static final String DIFF_OPERATION_INSERT = "INSERT";
+    public static final String DIFF_OPERATION_DELETE = "DELETE";
+    public static final String DIFF_OPERATION_REPLACE = "REPLACE";
+    public static final List<String> SYSTEM_RELS = Arrays.asList(CURRENT_TYPE, HAS_STATE_TYPE, PREVIOUS_TYPE, ROLLBACK_TYPE, ROLLBACK_TARGET_TYPE, SKIP_TYPE, SHARES_RELS_TYPE);
+    /*   RESOLVED LABELS AND TYPES, shared by the write path in order to avoid allocating them on each call   */
+    public static final Label STATE = Label.label(STATE_LABEL);
+    public static final Label R = Label.label(R_LABEL);
+    public static final RelationshipType CURRENT = RelationshipType.withName(CURRENT_TYPE);
+    public static final RelationshipType HAS_STATE = RelationshipType.withName(HAS_STATE_TYPE);
+    public static final RelationshipType PREVIOUS = RelationshipType.withName(PREVIOUS_TYPE);
+    public static final RelationshipType ROLLBACK = RelationshipType.withName(ROLLBACK_TYPE);
+    public static final RelationshipType ROLLBACK_TARGET = RelationshipType.withName(ROLLBACK_TARGET_TYPE);
+    public static final RelationshipType SKIP = RelationshipType.withName(SKIP_TYPE);
+    public static final RelationshipType SHARES_RELS = RelationshipType.withName(SHARES_RELS_TYPE);
+    public static final RelationshipType FOR = RelationshipType.withName(FOR_TYPE);
+
+    private static final Label[] STATE_LABELS = {STATE};
 
     /**
      * Sets a {@link Map} of properties to a {@link Node}
@@ -45,10 +80,27 @@ public class Utility {
      * @return a node with properties
      */
     public static Node setProperties(Node node, Map<String, Object> props) {
-        props.forEach(node::setProperty);
+        for (Map.Entry<String, Object> prop : props.entrySet()) {
+            node.setProperty(prop.getKey(), prop.getValue());
+        }
         return node;
     }
 
+    /**
+     * Copies all the properties of an {@link Entity} to another one, without collecting them into an intermediate {@link Map}
+     *
+     * @param source      the {@link Entity} to copy the properties from
+     * @param destination the {@link Entity} to copy the properties to
+     * @param <T>         the type of the destination
+     * @return the destination {@link Entity}
+     */
+    public static <T extends Entity> T copyProperties(Entity source, T destination) {
+        for (String key : source.getPropertyKeys()) {
+            destination.setProperty(key, source.getProperty(key));
+        }
+        return destination;
+    }
+
     /**
      * Sets a {@link List} of label names into a {@link Label[]}
      *
@@ -72,6 +124,16 @@ public class Utility {
         return asLabels(labelNames);
     }
 
+    /**
+     * Returns the labels of a new State, which are the State label and the given additional one, if not empty
+     *
+     * @param additionalLabel the name of the additional label, it can be null or empty
+     * @return {@link Label[]}
+     */
+    public static Label[] asStateLabels(String additionalLabel) {
+        return (additionalLabel == null || additionalLabel.isEmpty()) ? STATE_LABELS : new Label[]{STATE, Label.label(additionalLabel)};
+    }
+
     /**
      * Sets a {@link String} as a singleton Array {@link Label[]}
      *
@@ -90,10 +152,11 @@ public class Utility {
      * @return {@link Node}
      */
     public static Node cloneNode(Transaction transaction, Node node) {
-        List<String> labelNames = new ArrayList<>();
-        Spliterator<Label> labelsIterator = node.getLabels().spliterator();
-        StreamSupport.stream(labelsIterator, false).forEach(label -> labelNames.add(label.name()));
-        return setProperties(transaction.createNode(asLabels(labelNames)), node.getAllProperties());
+        Node clone = transaction.createNode();
+        for (Label label : node.getLabels()) {
+            clone.addLabel(label);
+        }
+        return copyProperties(node, clone);
     }
 
     /**
@@ -110,11 +173,15 @@ public class Utility {
      */
     public static Node currentStateUpdate(Node entity, LocalDateTime instantDate, Relationship currentRelationship, Node currentState, LocalDateTime currentDate, Node result) {
         // Creating PREVIOUS relationship between the current and the new State
-        result.createRelationshipTo(currentState, RelationshipType.withName(PREVIOUS_TYPE)).setProperty(DATE_PROP, currentDate);
+        Relationship previousRel = result.createRelationshipTo(currentState, PREVIOUS);
+        previousRel.setProperty(DATE_PROP, currentDate);
+        StateDiff.store(entity, previousRel);
+        StateDelta.encode(entity, previousRel);
 
         // Updating the HAS_STATE rel for the current node, adding endDate
-        currentState.getRelationships(Direction.INCOMING, RelationshipType.withName(HAS_STATE_TYPE))
-                .forEach(hasStatusRel -> hasStatusRel.setProperty(END_DATE_PROP, instantDate));
+        for (Relationship hasStatusRel : currentState.getRelationships(Direction.INCOMING, HAS_STATE)) {
+            hasStatusRel.setProperty(END_DATE_PROP, instantDate);
+        }
 
         // Refactoring current relationship and adding the new ones
         currentRelationship.delete();
@@ -126,15 +193,90 @@ public class Utility {
     }
 
     /**
-     * Connects a new State {@link Node} as the Current one, to the given Entity
+     * Updates an Entity node CURRENT State with the new current one, as {@link #currentStateUpdate(Node, LocalDateTime, Relationship, Node, LocalDateTime, Node)},
+     * also recording the new State in the change feed
+     *
+     * @param transaction         the current {@link Transaction}
+     * @param entity              a {@link Node} representing the Entity
+     * @param instantDate         the new current State date
+     * @param currentRelationship a {@link Relationship} representing the current CURRENT relationship
+     * @param currentState        a {@link Node} representing the current State
+     * @param currentDate         the current State date
+     * @param result              a {@link Node} representing the new current State
+     * @return {@link Node}
+     */
+    public static Node currentStateUpdate(Transaction transaction, Node entity, LocalDateTime instantDate, Relationship currentRelationship, Node currentState, LocalDateTime currentDate, Node result) {
+        currentStateUpdate(entity, instantDate, currentRelationship, currentState, currentDate, result);
+        ChangeFeed.record(transaction, result, instantDate);
+        return result;
+    }
+
+    /**
+     * Connects a new State {@link Node} as the Current one, to the given Entity, and indexes it
      *
      * @param state       a {@link Node} representing the new current State
      * @param entity      a {@link Node} representing the Entity
      * @param instantDate the new current State date
      */
     public static void addCurrentState(Node state, Node entity, LocalDateTime instantDate) {
-        entity.createRelationshipTo(state, RelationshipType.withName(CURRENT_TYPE)).setProperty(DATE_PROP, instantDate);
-        entity.createRelationshipTo(state, RelationshipType.withName(HAS_STATE_TYPE)).setProperty(START_DATE_PROP, instantDate);
+        Relationship currentRel = entity.createRelationshipTo(state, CURRENT);
+        currentRel.setProperty(DATE_PROP, instantDate);
+        Relationship hasState = entity.createRelationshipTo(state, HAS_STATE);
+        hasState.setProperty(START_DATE_PROP, instantDate);
+        StateIndex.indexState(state, hasState);
+    }
+
+    /**
+     * Connects a new State {@link Node} as the Current one, as {@link #addCurrentState(Node, Node, LocalDateTime)},
+     * also recording it in the change feed
+     *
+     * @param transaction the current {@link Transaction}
+     * @param state       a {@link Node} representing the new current State
+     * @param entity      a {@link Node} representing the Entity
+     * @param instantDate the new current State date
+     */
+    public static void addCurrentState(Transaction transaction, Node state, Node entity, LocalDateTime instantDate) {
+        addCurrentState(state, entity, instantDate);
+        ChangeFeed.record(transaction, state, instantDate);
+    }
+
+    /**
+     * Checks if a new State with the given labels and properties would be equal to the given one
+     *
+     * @param state   a {@link Node} representing the State to compare with
+     * @param labels  the labels of the new State
+     * @param props   the properties of the new State
+     * @param replace true if the properties replace the State ones, false if they are merged into them
+     * @return true if the new State would be equal to the given one
+     */
+    public static boolean isSameState(Node state, Label[] labels, Map<String, Object> props, boolean replace) {
+
+        int labelCount = 0;
+        for (Label ignored : state.getLabels()) {
+            labelCount++;
+        }
+        if (labelCount != labels.length) {
+            return false;
+        }
+        for (Label label : labels) {
+            if (!state.hasLabel(label)) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, Object> prop : props.entrySet()) {
+            if (!Objects.deepEquals(state.getProperty(prop.getKey(), null), prop.getValue())) {
+                return false;
+            }
+        }
+        if (replace) {
+            int propCount = 0;
+            for (String ignored : state.getPropertyKeys()) {
+                propCount++;
+            }
+            return propCount == props.size();
+        }
+        return true;
     }
 
     /**
@@ -221,6 +363,52 @@ public class Utility {
         return streamOfIterable(entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(CURRENT_TYPE))).map(relationship -> relationship.getEndNode()).findFirst();
     }
 
+    /**
+     * Returns the CURRENT relationship of the given Entity, going through the {@link CurrentStateCache}
+     *
+     * @param transaction the {@link Transaction} the Entity belongs to
+     * @param entity      a {@link Node} representing the Entity
+     * @return an {@link Optional} containing the CURRENT {@link Relationship}
+     */
+    public static Optional<Relationship> getCurrentRelationship(Transaction transaction, Node entity) {
+        return CurrentStateCache.getCurrentRelationship(transaction, entity);
+    }
+
+    /**
+     * Returns the CURRENT relationship of the given Entity, going through the {@link CurrentStateCache}, or null if
+     * there isn't any. It is meant for the write path, where the {@link Optional} wrapping is avoided.
+     *
+     * @param transaction the {@link Transaction} the Entity belongs to
+     * @param entity      a {@link Node} representing the Entity
+     * @return the CURRENT {@link Relationship}, or null
+     */
+    public static Relationship findCurrentRelationship(Transaction transaction, Node entity) {
+        return CurrentStateCache.findCurrentRelationship(transaction, entity);
+    }
+
+    /**
+     * Returns the current State of the given Entity, going through the {@link CurrentStateCache}
+     *
+     * @param transaction the {@link Transaction} the Entity belongs to
+     * @param entity      a {@link Node} representing the Entity
+     * @return an {@link Optional} containing the current State
+     */
+    public static Optional<Node> getCurrentState(Transaction transaction, Node entity) {
+        return CurrentStateCache.getCurrentState(transaction, entity);
+    }
+
+    /**
+     * Returns the versioned relationships of the given State, which are the ones pointing to R nodes,
+     * owned by the State itself or shared with a previous one
+     *
+     * @param state a {@link Node} representing the State
+     * @return a {@link Stream} of versioned {@link Relationship}
+     */
+    public static Stream<Relationship> streamOfVersionedRelationships(Node state) {
+        return streamOfIterable(RelationshipSet.getOwner(state).getRelationships(Direction.OUTGOING))
+                .filter(rel -> rel.getEndNode().hasLabel(R));
+    }
+
     public static LocalDateTime convertEpochToLocalDateTime(Long epochDateTime) {
         return Instant.ofEpochMilli(epochDateTime).atZone(ZoneId.systemDefault()).toLocalDateTime();
     }
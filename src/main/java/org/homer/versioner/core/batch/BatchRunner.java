@@ -0,0 +1,208 @@
+package org.homer.versioner.core.batch;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransientFailureException;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * BatchRunner class, it runs the batches of a job on a bounded pool of worker threads.
+ * <p>
+ * At most twice as many batches as workers are submitted and not completed at any time, so that the thread reading
+ * the input of the job never runs far ahead of the workers. The first failure of a batch is kept: no batch is
+ * submitted after it, and it is thrown by {@link #await()} once the running batches are done.
+ */
+public class BatchRunner {
+
+    private static final int RETRIES = 3;
+
+    private final Log log;
+    private final String name;
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private RuntimeException failure;
+
+    /**
+     * Constructor method
+     *
+     * @param log         the {@link Log} used to report the progress
+     * @param name        the name of the job, used in the log messages
+     * @param threadName  the prefix of the names of the worker threads
+     * @param concurrency the number of workers
+     */
+    public BatchRunner(Log log, String name, String threadName, int concurrency) {
+
+        AtomicInteger threads = new AtomicInteger();
+        this.log = log;
+        this.name = name;
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.slots = new Semaphore(concurrency * 2);
+    }
+
+    /**
+     * Splits the given ids into batches of consecutive ids and submits them, stopping at the first failure
+     *
+     * @param ids       an {@link Iterator} over the ids, consumed lazily
+     * @param batchSize the number of ids of each batch
+     * @param batchTask the task run for each batch, with the batch ids and the sequence number of the batch
+     * @return the number of submitted batches
+     */
+    public long submitBatches(Iterator<Long> ids, int batchSize, ObjLongConsumer<List<Long>> batchTask) {
+
+        long batches = 0;
+        try {
+            List<Long> batch = new ArrayList<>(batchSize);
+            while (ids.hasNext() && !isFailed()) {
+                batch.add(ids.next());
+                if (batch.size() == batchSize) {
+                    submit(batch, batches++, batchTask);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && !isFailed()) {
+                submit(batch, batches++, batchTask);
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+        return batches;
+    }
+
+    private void submit(List<Long> batch, long sequence, ObjLongConsumer<List<Long>> batchTask) {
+        submit(() -> batchTask.accept(batch, sequence));
+    }
+
+    /**
+     * Runs the given task on a worker, waiting for a free slot first; a failure of the task fails the job
+     *
+     * @param task the task to run
+     */
+    public void submit(Runnable task) {
+
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new VersionerCoreException(name + " has been interrupted."));
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    /**
+     * Runs the given batch, running it again if it fails with a {@link TransientFailureException}
+     *
+     * @param description the description of the batch, used in the log messages
+     * @param batch       the batch to run, in a transaction of its own
+     * @param <T>         the type of the result of the batch
+     * @return the result of the batch
+     */
+    public <T> T withRetries(String description, Supplier<T> batch) {
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return batch.get();
+            } catch (TransientFailureException e) {
+                // Entities of different batches can share R nodes, so concurrent batches can deadlock
+                if (attempt == RETRIES) {
+                    throw e;
+                }
+                log.warn(LOGGER_TAG + "{}, retrying the batch {}: {}", name, description, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fails the job with the given exception, unless it has already failed
+     *
+     * @param e the failure
+     */
+    public synchronized void fail(RuntimeException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Checks if the job has failed
+     *
+     * @return true if a batch has failed
+     */
+    public synchronized boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Waits for the submitted batches, after which no batch can be submitted anymore
+     *
+     * @throws RuntimeException the first failure of the job, if any
+     */
+    public void await() {
+
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info(LOGGER_TAG + "{}: waiting for the running batches", name);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            fail(new VersionerCoreException(name + " has been interrupted."));
+        }
+
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Looks up and write locks the Entities of a batch, skipping the ones deleted since their ids were read
+     *
+     * @param transaction the {@link Transaction} of the batch
+     * @param ids         the ids of the Entities
+     * @return the {@link List} of the locked Entities
+     */
+    public static List<Node> lockEntities(Transaction transaction, List<Long> ids) {
+
+        List<Node> entities = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            try {
+                Node entity = transaction.getNodeById(id);
+                transaction.acquireWriteLock(entity);
+                entities.add(entity);
+            } catch (NotFoundException e) {
+                // The Entity has been deleted
+            }
+        }
+        return entities;
+    }
+}
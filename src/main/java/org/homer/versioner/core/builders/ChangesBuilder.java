@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.Changes;
+
+import java.util.Optional;
+
+/**
+ * ChangesBuilder class, used to create a new instance of the current procedure
+ */
+public class ChangesBuilder extends CoreProcedureBuilder<Changes> {
+
+    /**
+     * Constructor method
+     */
+    public ChangesBuilder() {
+        super(Changes.class);
+    }
+
+    @Override
+    public Optional<Changes> build(){
+        return super.instantiate();
+    }
+}
@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.Compact;
+
+import java.util.Optional;
+
+/**
+ * CompactBuilder class, used to create a new instance of the current procedure
+ */
+public class CompactBuilder extends CoreProcedureBuilder<Compact> {
+
+    /**
+     * Constructor method
+     */
+    public CompactBuilder() {
+        super(Compact.class);
+    }
+
+    @Override
+    public Optional<Compact> build(){
+        return super.instantiate();
+    }
+}
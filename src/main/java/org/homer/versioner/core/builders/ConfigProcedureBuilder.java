@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.ConfigProcedure;
+
+import java.util.Optional;
+
+/**
+ * ConfigProcedureBuilder class, used to create a new instance of the current procedure
+ */
+public class ConfigProcedureBuilder extends CoreProcedureBuilder<ConfigProcedure> {
+
+    /**
+     * Constructor method
+     */
+    public ConfigProcedureBuilder() {
+        super(ConfigProcedure.class);
+    }
+
+    @Override
+    public Optional<ConfigProcedure> build(){
+        return super.instantiate();
+    }
+}
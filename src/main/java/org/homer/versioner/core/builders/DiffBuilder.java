@@ -7,13 +7,17 @@ import java.util.Optional;
 /**
  * DiffBuilder class, used to create a new instance of the current procedure
  */
-public class DiffBuilder {
+public class DiffBuilder extends CoreProcedureBuilder<Diff> {
+
     /**
-     * It builds the {@link Diff} procedure
-     *
-     * @return procedure
+     * Constructor method
      */
+    public DiffBuilder() {
+        super(Diff.class);
+    }
+
+    @Override
     public Optional<Diff> build(){
-        return Optional.of(new Diff());
+        return super.instantiate();
     }
 }
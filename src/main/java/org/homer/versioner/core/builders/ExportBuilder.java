@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.Export;
+
+import java.util.Optional;
+
+/**
+ * ExportBuilder class, used to create a new instance of the current procedure
+ */
+public class ExportBuilder extends CoreProcedureBuilder<Export> {
+
+    /**
+     * Constructor method
+     */
+    public ExportBuilder() {
+        super(Export.class);
+    }
+
+    @Override
+    public Optional<Export> build(){
+        return super.instantiate();
+    }
+}
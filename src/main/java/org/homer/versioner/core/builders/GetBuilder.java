@@ -7,14 +7,17 @@ import java.util.Optional;
 /**
  * GetBuilder class, used to create a new instance of the current procedure
  */
-public class GetBuilder {
+public class GetBuilder extends CoreProcedureBuilder<Get> {
 
     /**
-     * It builds the {@link Get} procedure
-     *
-     * @return procedure
+     * Constructor method
      */
+    public GetBuilder() {
+        super(Get.class);
+    }
+
+    @Override
     public Optional<Get> build(){
-        return Optional.of(new Get());
+        return super.instantiate();
     }
 }
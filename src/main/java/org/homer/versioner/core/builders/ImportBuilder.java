@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.Import;
+
+import java.util.Optional;
+
+/**
+ * ImportBuilder class, used to create a new instance of the current procedure
+ */
+public class ImportBuilder extends CoreProcedureBuilder<Import> {
+
+    /**
+     * Constructor method
+     */
+    public ImportBuilder() {
+        super(Import.class);
+    }
+
+    @Override
+    public Optional<Import> build(){
+        return super.instantiate();
+    }
+}
@@ -0,0 +1,23 @@
+package org.homer.versioner.core.builders;
+
+import org.homer.versioner.core.procedure.Index;
+
+import java.util.Optional;
+
+/**
+ * IndexBuilder class, used to create a new instance of the current procedure
+ */
+public class IndexBuilder extends CoreProcedureBuilder<Index> {
+
+    /**
+     * Constructor method
+     */
+    public IndexBuilder() {
+        super(Index.class);
+    }
+
+    @Override
+    public Optional<Index> build(){
+        return super.instantiate();
+    }
+}
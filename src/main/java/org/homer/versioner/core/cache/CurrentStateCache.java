@@ -0,0 +1,199 @@
+package org.homer.versioner.core.cache;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.homer.versioner.core.Utility.CURRENT;
+
+/**
+ * CurrentStateCache class, a database-level cache from Entity id to its current State id and CURRENT relationship id.
+ * <p>
+ * Each database gets its own cache, owned by the {@link CurrentStateCacheExtensionFactory} instance of the database,
+ * since Entity and relationship ids are unique only within a database; transactions find it through the id of their
+ * database, and bypass it if there isn't any.
+ * <p>
+ * It is a fixed size, direct-mapped cache: each Entity id maps to a single slot, and colliding Entities simply
+ * overwrite each other. The entries are filled by the relationship scans of the cache misses and by the committed
+ * CURRENT relationships, and dropped on commit, both by {@link CurrentStateCacheInvalidator}. A transaction can still
+ * find an entry which is outdated for it, because of its own uncommitted writes or of a commit whose listeners haven't
+ * run yet, so each hit is validated against the calling transaction by loading the cached CURRENT relationship by id,
+ * which is a single record read; an outdated entry just falls back to the relationship scan.
+ */
+public final class CurrentStateCache {
+
+    private static final int SLOTS = 1 << 16;
+    private static final long EMPTY = -1L;
+    private static final Map<UUID, CurrentStateCache> CACHES = new ConcurrentHashMap<>();
+
+    // Each slot is spread over three arrays, so that caching doesn't allocate. Stale or torn reads of a slot
+    // are harmless, since each hit is validated against the relationship it points to
+    private final long[] entityIds;
+    private final long[] stateIds;
+    private final long[] relationshipIds;
+    private final int mask;
+
+    CurrentStateCache() {
+        this(SLOTS);
+    }
+
+    CurrentStateCache(int slots) {
+        this.entityIds = new long[slots];
+        this.stateIds = new long[slots];
+        this.relationshipIds = new long[slots];
+        this.mask = slots - 1;
+        clear();
+    }
+
+    /**
+     * Makes the given cache the one of the database with the given id
+     *
+     * @param databaseId the id of the database
+     * @param cache      the {@link CurrentStateCache} of the database
+     */
+    static void register(UUID databaseId, CurrentStateCache cache) {
+        CACHES.put(databaseId, cache);
+    }
+
+    /**
+     * Removes the given cache of the database with the given id, if it is still the registered one
+     *
+     * @param databaseId the id of the database
+     * @param cache      the {@link CurrentStateCache} of the database
+     */
+    static void unregister(UUID databaseId, CurrentStateCache cache) {
+        CACHES.remove(databaseId, cache);
+    }
+
+    /**
+     * Returns the cache of the database the given transaction belongs to
+     *
+     * @param transaction the {@link Transaction}
+     * @return the {@link CurrentStateCache}, or null if the database has none
+     */
+    static CurrentStateCache of(Transaction transaction) {
+        return (transaction instanceof InternalTransaction) ? CACHES.get(((InternalTransaction) transaction).getDatabaseId()) : null;
+    }
+
+    /**
+     * Returns the CURRENT relationship of the given Entity, as seen by the given transaction
+     *
+     * @param transaction the {@link Transaction} used to find and validate the cached entry, if null the cache is bypassed
+     * @param entity      a {@link Node} representing the Entity
+     * @return an {@link Optional} containing the CURRENT {@link Relationship}
+     */
+    public static Optional<Relationship> getCurrentRelationship(Transaction transaction, Node entity) {
+        return Optional.ofNullable(findCurrentRelationship(transaction, entity));
+    }
+
+    /**
+     * Returns the CURRENT relationship of the given Entity, as seen by the given transaction, or null if there isn't any
+     *
+     * @param transaction the {@link Transaction} used to find and validate the cached entry, if null the cache is bypassed
+     * @param entity      a {@link Node} representing the Entity
+     * @return the CURRENT {@link Relationship}, or null
+     */
+    public static Relationship findCurrentRelationship(Transaction transaction, Node entity) {
+
+        CurrentStateCache cache = of(transaction);
+        if (cache != null) {
+            return cache.lookup(transaction, entity);
+        }
+        for (Relationship currentRel : entity.getRelationships(Direction.OUTGOING, CURRENT)) {
+            return currentRel;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the current State of the given Entity, as seen by the given transaction
+     *
+     * @param transaction the {@link Transaction} used to find and validate the cached entry, if null the cache is bypassed
+     * @param entity      a {@link Node} representing the Entity
+     * @return an {@link Optional} containing the current State
+     */
+    public static Optional<Node> getCurrentState(Transaction transaction, Node entity) {
+        return getCurrentRelationship(transaction, entity).map(Relationship::getEndNode);
+    }
+
+    /**
+     * Returns the CURRENT relationship of the given Entity from this cache, validating the cached entry against the
+     * given transaction, or scanning the Entity relationships on a miss
+     *
+     * @param transaction the {@link Transaction} used to validate the cached entry
+     * @param entity      a {@link Node} representing the Entity
+     * @return the CURRENT {@link Relationship}, or null
+     */
+    Relationship lookup(Transaction transaction, Node entity) {
+
+        long entityId = entity.getId();
+        int slot = slot(entityId);
+        long stateId = stateIds[slot];
+        long relationshipId = relationshipIds[slot];
+        if (entityIds[slot] == entityId && relationshipId != EMPTY) {
+            try {
+                Relationship currentRel = transaction.getRelationshipById(relationshipId);
+                if (currentRel.getStartNodeId() == entityId && currentRel.getEndNodeId() == stateId && currentRel.isType(CURRENT)) {
+                    return currentRel;
+                }
+            } catch (NotFoundException e) {
+                // The cached relationship has been deleted, or it is not visible to the given transaction
+            }
+        }
+
+        for (Relationship currentRel : entity.getRelationships(Direction.OUTGOING, CURRENT)) {
+            put(currentRel);
+            return currentRel;
+        }
+        invalidate(entityId);
+        return null;
+    }
+
+    /**
+     * Caches the given CURRENT relationship
+     *
+     * @param currentRel the CURRENT {@link Relationship} of an Entity
+     */
+    void put(Relationship currentRel) {
+        long entityId = currentRel.getStartNodeId();
+        int slot = slot(entityId);
+        entityIds[slot] = entityId;
+        stateIds[slot] = currentRel.getEndNodeId();
+        relationshipIds[slot] = currentRel.getId();
+    }
+
+    /**
+     * Drops the cached entry of the given Entity id, if any
+     *
+     * @param entityId the Entity id
+     */
+    void invalidate(long entityId) {
+        int slot = slot(entityId);
+        if (entityIds[slot] == entityId) {
+            relationshipIds[slot] = EMPTY;
+            entityIds[slot] = EMPTY;
+        }
+    }
+
+    /**
+     * Drops all the cached entries
+     */
+    void clear() {
+        Arrays.fill(entityIds, EMPTY);
+        Arrays.fill(relationshipIds, EMPTY);
+    }
+
+    private int slot(long entityId) {
+        long hash = entityId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,59 @@
+package org.homer.versioner.core.cache;
+
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import java.util.UUID;
+
+/**
+ * CurrentStateCacheExtensionFactory class, it gives each user database its own {@link CurrentStateCache}, kept up to
+ * date by a {@link CurrentStateCacheInvalidator}, and clears it when the database stops
+ */
+public class CurrentStateCacheExtensionFactory extends ExtensionFactory<CurrentStateCacheExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        GraphDatabaseAPI graphDatabaseAPI();
+
+        DatabaseManagementService databaseManagementService();
+    }
+
+    public CurrentStateCacheExtensionFactory() {
+        super(ExtensionType.DATABASE, "versionerCurrentStateCache");
+    }
+
+    @Override
+    public Lifecycle newInstance(ExtensionContext context, Dependencies dependencies) {
+
+        String databaseName = dependencies.graphDatabaseAPI().databaseName();
+        UUID databaseId = dependencies.graphDatabaseAPI().databaseId().databaseId().uuid();
+        DatabaseManagementService managementService = dependencies.databaseManagementService();
+        CurrentStateCache cache = new CurrentStateCache();
+        CurrentStateCacheInvalidator invalidator = new CurrentStateCacheInvalidator(cache);
+
+        // The system database holds no Entities, and it doesn't accept transaction event listeners
+        if (GraphDatabaseSettings.SYSTEM_DATABASE_NAME.equals(databaseName)) {
+            return new LifecycleAdapter();
+        }
+
+        return new LifecycleAdapter() {
+            @Override
+            public void start() {
+                managementService.registerTransactionEventListener(databaseName, invalidator);
+                CurrentStateCache.register(databaseId, cache);
+            }
+
+            @Override
+            public void stop() {
+                CurrentStateCache.unregister(databaseId, cache);
+                managementService.unregisterTransactionEventListener(databaseName, invalidator);
+                cache.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package org.homer.versioner.core.cache;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+
+import static org.homer.versioner.core.Utility.CURRENT;
+
+/**
+ * CurrentStateCacheInvalidator class, it drops the {@link CurrentStateCache} entries of the Entities whose CURRENT
+ * relationship has been changed by a committed transaction, and caches their new CURRENT relationships
+ */
+public class CurrentStateCacheInvalidator extends TransactionEventListenerAdapter<Object> {
+
+    private final CurrentStateCache cache;
+
+    public CurrentStateCacheInvalidator(CurrentStateCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Object state, GraphDatabaseService databaseService) {
+        try {
+            for (Relationship relationship : data.deletedRelationships()) {
+                if (relationship.isType(CURRENT)) {
+                    cache.invalidate(relationship.getStartNodeId());
+                }
+            }
+            for (Node node : data.deletedNodes()) {
+                cache.invalidate(node.getId());
+            }
+            for (Relationship relationship : data.createdRelationships()) {
+                if (relationship.isType(CURRENT)) {
+                    cache.put(relationship);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Whenever the changes can't be inspected, dropping everything is always safe
+            cache.clear();
+        }
+    }
+}
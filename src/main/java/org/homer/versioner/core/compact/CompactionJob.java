@@ -0,0 +1,204 @@
+package org.homer.versioner.core.compact;
+
+import org.homer.versioner.core.batch.BatchRunner;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.output.CompactJobOutput;
+import org.homer.versioner.core.output.CompactOutput;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * CompactionJob class, it compacts the history of all the Entities with a given label, through {@link StateCompactor}.
+ * <p>
+ * The Entities are read by a label scan in id order and split into batches of consecutive ids, which are compacted
+ * by a bounded pool of workers, each batch in its own transaction. The id of the last Entity of the longest prefix of
+ * completed batches is checkpointed on a {@code CompactionJob} node after each batch, so that a job stopped before
+ * its end resumes after that id when it is started again with the same name. The checkpoint is deleted once the job
+ * is complete.
+ */
+public class CompactionJob {
+
+    public static final String JOB_LABEL = "CompactionJob";
+    public static final String NAME_PROP = "name";
+    public static final String LAST_ID_PROP = "lastId";
+    public static final String UPDATED_AT_PROP = "updatedAt";
+
+    public static final String NAME = "name";
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String CONCURRENCY = "concurrency";
+
+    private static final List<String> CONFIG = Arrays.asList(NAME, BATCH_SIZE, CONCURRENCY);
+
+    private final GraphDatabaseService db;
+    private final Log log;
+    private final String entityLabel;
+    private final Map<String, Object> options;
+    private final String name;
+    private final int batchSize;
+    private final int concurrency;
+
+    // Batches are checkpointed in order: completed out of order ones wait here, by sequence number
+    private final TreeMap<Long, Long> completedBatches = new TreeMap<>();
+    private long nextBatchToCheckpoint;
+    private long entities;
+    private long nodes;
+    private long relationships;
+    private long checkpointedId;
+
+    /**
+     * Constructor method
+     *
+     * @param db          the {@link GraphDatabaseService} used to open the batch transactions
+     * @param log         the {@link Log} used to report the progress
+     * @param entityLabel the label of the Entities to compact
+     * @param options     the compaction options, see {@link StateCompactor#compact(Node, Map)}
+     * @param config      a {@link Map} with the optional name, batchSize and concurrency of the job
+     */
+    public CompactionJob(GraphDatabaseService db, Log log, String entityLabel, Map<String, Object> options, Map<String, Object> config) {
+
+        for (String key : config.keySet()) {
+            if (!CONFIG.contains(key)) {
+                throw new VersionerCoreException("The compaction job config " + key + " is not valid, the available ones are " + CONFIG + ".");
+            }
+        }
+
+        StateCompactor.checkOptions(options);
+
+        this.db = db;
+        this.log = log;
+        this.entityLabel = entityLabel;
+        this.options = options;
+        try {
+            this.name = config.containsKey(NAME) ? (String) config.get(NAME) : entityLabel;
+            this.batchSize = config.containsKey(BATCH_SIZE) ? ((Number) config.get(BATCH_SIZE)).intValue() : 1000;
+            this.concurrency = config.containsKey(CONCURRENCY) ? ((Number) config.get(CONCURRENCY)).intValue() : Runtime.getRuntime().availableProcessors();
+        } catch (NullPointerException | ClassCastException e) {
+            throw new VersionerCoreException("The compaction job config is not valid, name must be a string, batchSize and concurrency integers.");
+        }
+        if (this.batchSize < 1 || this.concurrency < 1) {
+            throw new VersionerCoreException("The batchSize and concurrency of the compaction job must be at least 1.");
+        }
+    }
+
+    /**
+     * Runs the job, returning once all the Entities have been compacted
+     *
+     * @param transaction the {@link Transaction} used to scan the Entities
+     * @return a {@link CompactJobOutput} with the totals of the job
+     */
+    public CompactJobOutput run(Transaction transaction) {
+
+        long start = System.nanoTime();
+        long resumeAfter = readCheckpoint();
+        checkpointedId = resumeAfter;
+        if (resumeAfter >= 0) {
+            log.info(LOGGER_TAG + "Compaction job {} resumed after the Entity with id {}", name, resumeAfter);
+        }
+
+        BatchRunner runner = new BatchRunner(log, "Compaction job " + name, "versioner-compaction-" + name, concurrency);
+        long batches;
+        try (ResourceIterator<Node> scan = transaction.findNodes(Label.label(entityLabel))) {
+            Iterator<Long> ids = scan.stream().map(Node::getId).filter(id -> id > resumeAfter).iterator();
+            batches = runner.submitBatches(ids, batchSize, (batch, sequence) -> {
+                long[] reclaimed = runner.withRetries("starting at id " + batch.get(0), () -> compactBatch(batch));
+                completeBatch(sequence, batch.get(batch.size() - 1), batch.size(), reclaimed);
+            });
+        } finally {
+            try {
+                runner.await();
+            } catch (RuntimeException e) {
+                log.error(LOGGER_TAG + "Compaction job {} failed, it will resume after the Entity with id {}", name, checkpointedId);
+                throw e;
+            }
+        }
+
+        deleteCheckpoint();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(LOGGER_TAG + "Compaction job {} completed: {} Entities in {} seconds", name, entities, seconds);
+        return new CompactJobOutput(name, entities, nodes, relationships, batches, seconds, seconds > 0 ? entities / seconds : 0d);
+    }
+
+    /**
+     * Compacts the given batch of Entities in a new transaction
+     *
+     * @param batch the ids of the Entities
+     * @return the number of reclaimed nodes and relationships
+     */
+    private long[] compactBatch(List<Long> batch) {
+
+        long[] reclaimed = new long[2];
+        try (Transaction tx = db.beginTx()) {
+            for (Node entity : BatchRunner.lockEntities(tx, batch)) {
+                CompactOutput result = StateCompactor.compact(entity, options);
+                reclaimed[0] += result.nodes;
+                reclaimed[1] += result.relationships;
+            }
+            tx.commit();
+        }
+        return reclaimed;
+    }
+
+    private synchronized void completeBatch(long sequence, long lastId, int size, long[] reclaimed) {
+
+        entities += size;
+        nodes += reclaimed[0];
+        relationships += reclaimed[1];
+
+        completedBatches.put(sequence, lastId);
+        Long nextLastId = null;
+        while (completedBatches.containsKey(nextBatchToCheckpoint)) {
+            nextLastId = completedBatches.remove(nextBatchToCheckpoint++);
+        }
+        if (nextLastId != null) {
+            writeCheckpoint(nextLastId);
+            checkpointedId = nextLastId;
+            log.info(LOGGER_TAG + "Compaction job {}: {} Entities compacted, up to id {}", name, entities, checkpointedId);
+        }
+    }
+
+    private long readCheckpoint() {
+
+        try (Transaction tx = db.beginTx()) {
+            Node checkpoint = tx.findNode(Label.label(JOB_LABEL), NAME_PROP, name);
+            return (checkpoint == null) ? -1L : (long) checkpoint.getProperty(LAST_ID_PROP, -1L);
+        }
+    }
+
+    private void writeCheckpoint(long lastId) {
+
+        try (Transaction tx = db.beginTx()) {
+            Node checkpoint = tx.findNode(Label.label(JOB_LABEL), NAME_PROP, name);
+            if (checkpoint == null) {
+                checkpoint = tx.createNode(Label.label(JOB_LABEL));
+                checkpoint.setProperty(NAME_PROP, name);
+            }
+            checkpoint.setProperty(LAST_ID_PROP, lastId);
+            checkpoint.setProperty(UPDATED_AT_PROP, LocalDateTime.now());
+            tx.commit();
+        }
+    }
+
+    private void deleteCheckpoint() {
+
+        try (Transaction tx = db.beginTx()) {
+            Node checkpoint = tx.findNode(Label.label(JOB_LABEL), NAME_PROP, name);
+            if (checkpoint != null) {
+                checkpoint.delete();
+            }
+            tx.commit();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.homer.versioner.core.compact;
+
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.index.StateIndex;
+import org.homer.versioner.core.output.CompactOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * StateCompactor class, it shortens the history of an Entity, deleting or merging its oldest States.
+ * <p>
+ * The last {@code keepLast} States, and the ones which were still valid at {@code olderThan}, are never touched; at
+ * least one of them must be given, so that empty options never compact the whole history but the current State.
+ * If a {@code granularity} is given, only the newest of the older States started in each period is kept, and it
+ * takes the start date of the oldest one, so that it covers the whole merged range; otherwise the older States are
+ * all deleted. The chain is then rewired: the kept States are linked through PREVIOUS relationships and the compacted
+ * ones are stored whole, ROLLBACK relationships towards a merged State are moved to the State it has been merged
+ * into, the ROLLBACK_TARGET ones of the kept States are dropped, the relationship sets owned by deleted States are
+ * handed over to their sharing States and the index is rebuilt.
+ */
+public class StateCompactor {
+
+    public static final String KEEP_LAST = "keepLast";
+    public static final String OLDER_THAN = "olderThan";
+    public static final String GRANULARITY = "granularity";
+
+    private static final List<String> OPTIONS = Arrays.asList(KEEP_LAST, OLDER_THAN, GRANULARITY);
+
+    private StateCompactor() {
+    }
+
+    /**
+     * Compacts the history of the given Entity, reading the compaction parameters from the given options
+     *
+     * @param entity  a {@link Node} representing the Entity
+     * @param options a {@link Map} with the keepLast, olderThan and granularity options, see {@link #checkOptions(Map)}
+     * @return a {@link CompactOutput} with the number of kept States and of reclaimed nodes and relationships
+     */
+    public static CompactOutput compact(Node entity, Map<String, Object> options) {
+
+        checkOptions(options);
+
+        long keepLast;
+        LocalDateTime olderThan;
+        String granularity;
+        try {
+            keepLast = options.containsKey(KEEP_LAST) ? ((Number) options.get(KEEP_LAST)).longValue() : 1L;
+            olderThan = (LocalDateTime) options.get(OLDER_THAN);
+            granularity = (String) options.get(GRANULARITY);
+        } catch (NullPointerException | ClassCastException e) {
+            throw new VersionerCoreException("The compaction options are not valid, keepLast must be an integer, olderThan a local datetime and granularity a string.");
+        }
+
+        return compact(entity, keepLast, olderThan, granularity);
+    }
+
+    /**
+     * Checks that the given compaction options are known and that they hold keepLast, olderThan or both
+     *
+     * @param options a {@link Map} with the compaction options
+     */
+    public static void checkOptions(Map<String, Object> options) {
+
+        for (String key : options.keySet()) {
+            if (!OPTIONS.contains(key)) {
+                throw new VersionerCoreException("The compaction option " + key + " is not valid, the available ones are " + OPTIONS + ".");
+            }
+        }
+        if (options.get(KEEP_LAST) == null && options.get(OLDER_THAN) == null) {
+            throw new VersionerCoreException("The compaction options must have keepLast, olderThan or both, to tell which States are kept.");
+        }
+    }
+
+    /**
+     * Compacts the history of the given Entity
+     *
+     * @param entity      a {@link Node} representing the Entity
+     * @param keepLast    the number of newest States to keep untouched, at least 1
+     * @param olderThan   only the States whose end date is not after this date are compacted, if not null
+     * @param granularity the period (MINUTE, HOUR, DAY, WEEK, MONTH or YEAR) whose States are merged, or null to delete them
+     * @return a {@link CompactOutput} with the number of kept States and of reclaimed nodes and relationships
+     */
+    public static CompactOutput compact(Node entity, long keepLast, LocalDateTime olderThan, String granularity) {
+
+        if (keepLast < 1) {
+            throw new VersionerCoreException("The keepLast compaction option must be at least 1.");
+        }
+        UnaryOperator<LocalDateTime> period = getPeriod(granularity);
+
+        Relationship currentRel = entity.getSingleRelationship(CURRENT, Direction.OUTGOING);
+        if (currentRel == null) {
+            return new CompactOutput(entity, 0L, 0L, 0L);
+        }
+
+        // Collecting the chain, from the current State back to the first one
+        List<Node> states = new ArrayList<>();
+        for (Node state = currentRel.getEndNode(); state != null; state = getPreviousState(state)) {
+            states.add(state);
+        }
+
+        // The end dates decrease along the chain, so all the States older than the first compacted one are compacted too
+        int first = (int) Math.min(keepLast, states.size());
+        while (first < states.size() && !isCompactable(states.get(first), olderThan)) {
+            first++;
+        }
+        if (first == states.size()) {
+            return new CompactOutput(entity, (long) states.size(), 0L, 0L);
+        }
+
+        // Each removed State is mapped to the State it is merged into, or to null if it is just deleted
+        List<Node> kept = new ArrayList<>(states.subList(0, first));
+        Map<Node, Node> mergedInto = new HashMap<>();
+        Map<Node, Object> mergedStartDates = new HashMap<>();
+        Node survivor = null;
+        LocalDateTime survivorPeriod = null;
+        for (Node state : states.subList(first, states.size())) {
+            LocalDateTime startDate = getStartDate(state);
+            if (period == null || startDate == null) {
+                mergedInto.put(state, null);
+            } else if (survivor != null && period.apply(startDate).equals(survivorPeriod)) {
+                mergedInto.put(state, survivor);
+                mergedStartDates.put(survivor, startDate);
+            } else {
+                survivor = state;
+                survivorPeriod = period.apply(startDate);
+                kept.add(state);
+            }
+        }
+
+        // Rebuilding the compacted States, while the deltas they depend on are still there
+        Map<Node, Map<String, Object>> wholeProps = new HashMap<>();
+        for (Node state : kept.subList(first, kept.size())) {
+            if (StateDelta.isDelta(state)) {
+                wholeProps.put(state, StateDelta.getAllProperties(state));
+            }
+        }
+
+        // Each relationship deleted or created from now on is counted, so that the reclaimed ones are the difference
+        long deleted = 0;
+        long created = 0;
+
+        // The oldest kept State sharing a relationship set owned by a removed State becomes its new owner
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            Node owner = RelationshipSet.getOwner(kept.get(i));
+            if (mergedInto.containsKey(owner)) {
+                deleted += owner.getDegree(SHARES_RELS, Direction.INCOMING);
+                created += RelationshipSet.transfer(owner, kept.get(i));
+            }
+        }
+
+        // The ROLLBACK chains can change, so the recorded ends are dropped and the chains are walked again
+        for (Node state : kept) {
+            for (Relationship rollbackTarget : state.getRelationships(Direction.OUTGOING, ROLLBACK_TARGET)) {
+                rollbackTarget.delete();
+                deleted++;
+            }
+            Relationship rollbackRel = state.getSingleRelationship(ROLLBACK, Direction.OUTGOING);
+            if (rollbackRel != null && mergedInto.containsKey(rollbackRel.getEndNode())) {
+                Node target = mergedInto.get(rollbackRel.getEndNode());
+                if (target != null && !target.equals(state)) {
+                    state.createRelationshipTo(target, ROLLBACK);
+                    created++;
+                }
+                rollbackRel.delete();
+                deleted++;
+            }
+        }
+
+        for (Node state : mergedInto.keySet()) {
+            for (Relationship relationship : state.getRelationships()) {
+                relationship.delete();
+                deleted++;
+            }
+            state.delete();
+        }
+
+        // Linking each compacted State to the next kept one, the first one always has a newer kept State
+        for (int i = first; i < kept.size(); i++) {
+            Node state = kept.get(i);
+            Node newerState = kept.get(i - 1);
+
+            if (wholeProps.containsKey(state)) {
+                setProperties(state, wholeProps.get(state));
+            }
+
+            Relationship hasState = state.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+            if (hasState != null && mergedStartDates.containsKey(state)) {
+                hasState.setProperty(START_DATE_PROP, mergedStartDates.get(state));
+            }
+
+            Relationship previousRel = newerState.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+            if (previousRel == null || !previousRel.getEndNode().equals(state)) {
+                if (previousRel != null) {
+                    previousRel.delete();
+                    deleted++;
+                }
+                previousRel = newerState.createRelationshipTo(state, PREVIOUS);
+                created++;
+            }
+            previousRel.removeProperty(DELTA_PROP);
+            previousRel.removeProperty(ABSENT_KEYS_PROP);
+            if (hasState != null && hasState.hasProperty(START_DATE_PROP)) {
+                previousRel.setProperty(DATE_PROP, hasState.getProperty(START_DATE_PROP));
+            }
+        }
+
+        // The index rebuild replaces all the SKIP relationships of the kept States
+        for (Node state : kept) {
+            deleted += state.getDegree(SKIP, Direction.OUTGOING);
+        }
+        created += StateIndex.rebuildIndex(entity).skips;
+
+        return new CompactOutput(entity, (long) kept.size(), (long) mergedInto.size(), deleted - created);
+    }
+
+    private static UnaryOperator<LocalDateTime> getPeriod(String granularity) {
+
+        if (granularity == null) {
+            return null;
+        }
+        switch (granularity.toUpperCase()) {
+            case "MINUTE":
+                return date -> date.truncatedTo(ChronoUnit.MINUTES);
+            case "HOUR":
+                return date -> date.truncatedTo(ChronoUnit.HOURS);
+            case "DAY":
+                return date -> date.truncatedTo(ChronoUnit.DAYS);
+            case "WEEK":
+                return date -> date.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "MONTH":
+                return date -> date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case "YEAR":
+                return date -> date.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            default:
+                throw new VersionerCoreException("The granularity " + granularity + " is not valid, it must be one of MINUTE, HOUR, DAY, WEEK, MONTH or YEAR.");
+        }
+    }
+
+    private static boolean isCompactable(Node state, LocalDateTime olderThan) {
+
+        if (olderThan == null) {
+            return true;
+        }
+        Relationship hasState = state.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+        LocalDateTime endDate = (hasState == null) ? null : (LocalDateTime) hasState.getProperty(END_DATE_PROP, null);
+        return endDate != null && !endDate.isAfter(olderThan);
+    }
+
+    private static LocalDateTime getStartDate(Node state) {
+
+        Relationship hasState = state.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+        return (hasState == null) ? null : (LocalDateTime) hasState.getProperty(START_DATE_PROP, null);
+    }
+
+    private static Node getPreviousState(Node state) {
+
+        Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+        return (previousRel == null) ? null : previousRel.getEndNode();
+    }
+}
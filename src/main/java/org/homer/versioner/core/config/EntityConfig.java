@@ -0,0 +1,158 @@
+package org.homer.versioner.core.config;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.homer.versioner.core.Utility.FOR;
+
+/**
+ * EntityConfig class, it reads and writes the storage options of an Entity.
+ * <p>
+ * The options are stored as properties of the R node of the Entity, so that they never get mixed with the Entity
+ * properties. Every option is disabled by default, an Entity can opt into each of them independently.
+ */
+public class EntityConfig {
+
+    /**
+     * If true, consecutive States share their relationships to R nodes until one of them changes them
+     */
+    public static final String SHARED_RELATIONSHIPS = "sharedRelationships";
+
+    /**
+     * If greater than 0, States are stored as deltas of their next one, keeping a whole keyframe every given number of States
+     */
+    public static final String KEYFRAME_INTERVAL = "keyframeInterval";
+
+    /**
+     * If true, updates and patches which wouldn't change the current State don't add a new one
+     */
+    public static final String SKIP_UNCHANGED = "skipUnchanged";
+
+    /**
+     * If true, the differences between each new State and the previous one are stored on their PREVIOUS relationship
+     */
+    public static final String STORE_DIFFS = "storeDiffs";
+
+    private static final Map<String, Object> DEFAULTS;
+
+    static {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put(SHARED_RELATIONSHIPS, false);
+        defaults.put(KEYFRAME_INTERVAL, 0L);
+        defaults.put(SKIP_UNCHANGED, false);
+        defaults.put(STORE_DIFFS, false);
+        DEFAULTS = Collections.unmodifiableMap(defaults);
+    }
+
+    private EntityConfig() {
+    }
+
+    /**
+     * Returns all the options of the given Entity, including the default ones
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return a {@link Map} of options
+     */
+    public static Map<String, Object> getOptions(Node entity) {
+
+        Map<String, Object> options = new LinkedHashMap<>(DEFAULTS);
+        Node rNode = getRNode(entity);
+        if (rNode != null) {
+            DEFAULTS.keySet().forEach(key -> options.put(key, rNode.getProperty(key, DEFAULTS.get(key))));
+        }
+        return options;
+    }
+
+    /**
+     * Sets the given options on the Entity, a null value restores the default one
+     *
+     * @param entity  a {@link Node} representing the Entity
+     * @param options a {@link Map} of options to be set
+     * @return a {@link Map} with all the options of the Entity
+     */
+    public static Map<String, Object> setOptions(Node entity, Map<String, Object> options) {
+
+        Node rNode = getRNode(entity);
+        if (rNode == null) {
+            throw new VersionerCoreException("The given node is not a Versioner Core Entity");
+        }
+
+        options.forEach((key, value) -> {
+            if (!DEFAULTS.containsKey(key)) {
+                throw new VersionerCoreException("Unknown option " + key + ", the available ones are " + DEFAULTS.keySet() + ".");
+            }
+            if (value != null && !DEFAULTS.get(key).getClass().isInstance(value)) {
+                throw new VersionerCoreException("The option " + key + " must be a " + DEFAULTS.get(key).getClass().getSimpleName() + ".");
+            }
+            if (value instanceof Long && (Long) value < 0) {
+                throw new VersionerCoreException("The option " + key + " can't be negative.");
+            }
+        });
+        options.forEach((key, value) -> {
+            if (value == null) {
+                rNode.removeProperty(key);
+            } else {
+                rNode.setProperty(key, value);
+            }
+        });
+        return getOptions(entity);
+    }
+
+    /**
+     * Checks if the States of the given Entity share their relationships
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return true if the option is enabled
+     */
+    public static boolean isSharedRelationships(Node entity) {
+        return (boolean) getOption(entity, SHARED_RELATIONSHIPS);
+    }
+
+    /**
+     * Returns the number of States between two keyframes, 0 if the States of the given Entity are not delta encoded
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return the keyframe interval
+     */
+    public static long getKeyframeInterval(Node entity) {
+        return (long) getOption(entity, KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Checks if the unchanged updates and patches of the given Entity are skipped
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return true if the option is enabled
+     */
+    public static boolean isSkipUnchanged(Node entity) {
+        return (boolean) getOption(entity, SKIP_UNCHANGED);
+    }
+
+    /**
+     * Checks if the differences between the consecutive States of the given Entity are stored
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return true if the option is enabled
+     */
+    public static boolean isStoreDiffs(Node entity) {
+        return (boolean) getOption(entity, STORE_DIFFS);
+    }
+
+    private static Object getOption(Node entity, String key) {
+
+        Node rNode = getRNode(entity);
+        return (rNode == null) ? DEFAULTS.get(key) : rNode.getProperty(key, DEFAULTS.get(key));
+    }
+
+    private static Node getRNode(Node entity) {
+
+        Relationship forRel = entity.getSingleRelationship(FOR, Direction.INCOMING);
+        return (forRel == null) ? null : forRel.getStartNode();
+    }
+}
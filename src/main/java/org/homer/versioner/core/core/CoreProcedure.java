@@ -5,7 +5,7 @@ import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 
 /**
- * CoreProcedure abstract class, exteded by all the procedure classes that perform write/update to the database
+ * CoreProcedure abstract class, exteded by all the procedure classes that need to access the database
  */
 public abstract class CoreProcedure {
 
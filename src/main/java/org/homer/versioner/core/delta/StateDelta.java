@@ -0,0 +1,169 @@
+package org.homer.versioner.core.delta;
+
+import org.homer.versioner.core.config.EntityConfig;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * StateDelta class, it encodes States as deltas of their next State and reconstructs them.
+ * <p>
+ * If the Entity has the {@link EntityConfig#KEYFRAME_INTERVAL} option set to {@code n > 0}, each time a new State is
+ * added, the previous one only keeps the properties whose value differs from the new State, and the PREVIOUS
+ * relationship between them stores {@code delta: true} and the {@code absentKeys} of the previous State, which are
+ * the keys of the new State the previous one didn't have. States whose ordinal is a multiple of {@code n} are kept
+ * whole as keyframes, so a State is rebuilt applying at most {@code n - 1} deltas, starting from the next keyframe
+ * or from the current State, which is always whole.
+ */
+public class StateDelta {
+
+    private StateDelta() {
+    }
+
+    /**
+     * Encodes the end State of the given PREVIOUS relationship as a delta of its start State, if the Entity uses
+     * delta encoding and the State is not a keyframe. Both States must be whole.
+     *
+     * @param entity      a {@link Node} representing the Entity
+     * @param previousRel the {@link Relationship} PREVIOUS from the new State to the previous one
+     */
+    public static void encode(Node entity, Relationship previousRel) {
+
+        long keyframeInterval = EntityConfig.getKeyframeInterval(entity);
+        if (keyframeInterval <= 0) {
+            return;
+        }
+
+        Node previousState = previousRel.getEndNode();
+        Relationship hasState = previousState.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+        if (hasState == null || !hasState.hasProperty(ORDINAL_PROP) || (long) hasState.getProperty(ORDINAL_PROP) % keyframeInterval == 0) {
+            return;
+        }
+
+        Node newState = previousRel.getStartNode();
+        Map<String, Object> previousProps = previousState.getAllProperties();
+        List<String> absentKeys = new ArrayList<>();
+        for (String key : newState.getPropertyKeys()) {
+            if (!previousProps.containsKey(key)) {
+                absentKeys.add(key);
+            } else if (Objects.deepEquals(previousProps.get(key), newState.getProperty(key))) {
+                previousState.removeProperty(key);
+            }
+        }
+
+        previousRel.setProperty(DELTA_PROP, true);
+        previousRel.setProperty(ABSENT_KEYS_PROP, absentKeys.toArray(new String[0]));
+    }
+
+    /**
+     * Checks if the given State is stored as a delta
+     *
+     * @param state a {@link Node} representing the State
+     * @return true if the State is a delta
+     */
+    public static boolean isDelta(Node state) {
+        return isDelta(state.getSingleRelationship(PREVIOUS, Direction.INCOMING));
+    }
+
+    /**
+     * Returns all the properties of the given State, rebuilding them if it is stored as a delta
+     *
+     * @param state a {@link Node} representing the State
+     * @return a {@link Map} with all the properties of the State
+     */
+    public static Map<String, Object> getAllProperties(Node state) {
+
+        // Collecting the deltas up to the first whole State, the nearest one is the last pushed
+        Deque<Relationship> deltas = new ArrayDeque<>();
+        Node wholeState = state;
+        Relationship nextRel = state.getSingleRelationship(PREVIOUS, Direction.INCOMING);
+        while (isDelta(nextRel)) {
+            deltas.push(nextRel);
+            wholeState = nextRel.getStartNode();
+            nextRel = wholeState.getSingleRelationship(PREVIOUS, Direction.INCOMING);
+        }
+
+        Map<String, Object> props = wholeState.getAllProperties();
+        for (Relationship delta : deltas) {
+            for (String absentKey : (String[]) delta.getProperty(ABSENT_KEYS_PROP)) {
+                props.remove(absentKey);
+            }
+            props.putAll(delta.getEndNode().getAllProperties());
+        }
+        return props;
+    }
+
+    /**
+     * Returns the given properties of the given State, reading only them along its deltas, if it is stored as a delta
+     *
+     * @param state a {@link Node} representing the State
+     * @param keys  the keys of the properties to read
+     * @return a {@link Map} with the given properties the State has
+     */
+    public static Map<String, Object> getProperties(Node state, Collection<String> keys) {
+
+        Map<String, Object> props = new HashMap<>();
+        Set<String> pendingKeys = new HashSet<>(keys);
+        Node current = state;
+        while (!pendingKeys.isEmpty()) {
+            Map<String, Object> ownProps = current.getProperties(pendingKeys.toArray(new String[0]));
+            props.putAll(ownProps);
+            pendingKeys.removeAll(ownProps.keySet());
+
+            // The keys missing from a delta are either absent or the same of the next State
+            Relationship nextRel = current.getSingleRelationship(PREVIOUS, Direction.INCOMING);
+            if (!isDelta(nextRel)) {
+                break;
+            }
+            pendingKeys.removeAll(Arrays.asList((String[]) nextRel.getProperty(ABSENT_KEYS_PROP)));
+            current = nextRel.getStartNode();
+        }
+        return props;
+    }
+
+    /**
+     * Returns all the properties of the end State of the given PREVIOUS relationship, rebuilding them from the ones of
+     * its start State if it is stored as a delta, so that walking back a chain never rebuilds a State twice
+     *
+     * @param previousRel   the {@link Relationship} PREVIOUS from a State to the previous one
+     * @param newStateProps all the properties of the start State of the relationship
+     * @return a {@link Map} with all the properties of the previous State
+     */
+    public static Map<String, Object> getPreviousProperties(Relationship previousRel, Map<String, Object> newStateProps) {
+
+        Map<String, Object> props = previousRel.getEndNode().getAllProperties();
+        if (!isDelta(previousRel)) {
+            return props;
+        }
+        Map<String, Object> wholeProps = new HashMap<>(newStateProps);
+        for (String absentKey : (String[]) previousRel.getProperty(ABSENT_KEYS_PROP)) {
+            wholeProps.remove(absentKey);
+        }
+        wholeProps.putAll(props);
+        return wholeProps;
+    }
+
+    /**
+     * Checks if the end State of the given PREVIOUS relationship is stored as a delta of its start State
+     *
+     * @param nextRel the {@link Relationship} PREVIOUS towards the State, it can be null
+     * @return true if the State is a delta
+     */
+    public static boolean isDelta(Relationship nextRel) {
+        return nextRel != null && Boolean.TRUE.equals(nextRel.getProperty(DELTA_PROP, false));
+    }
+}
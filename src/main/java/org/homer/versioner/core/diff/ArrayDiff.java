@@ -0,0 +1,248 @@
+package org.homer.versioner.core.diff;
+
+import org.homer.versioner.core.Utility;
+import org.homer.versioner.core.output.ElementDiffOutput;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ArrayDiff class, it computes the element level differences between two array properties.
+ * <p>
+ * The arrays are compared with the linear space variant of the Myers O(ND) algorithm: after trimming their common
+ * prefix and suffix, the middle snake of the edit graph is searched from both ends and the two halves are compared
+ * recursively. The elements are compared in place, so primitive arrays are never boxed, and the differences are
+ * returned as hunks of consecutive INSERT, DELETE or REPLACE operations, holding only the changed slices.
+ */
+public class ArrayDiff {
+
+    private final ElementEquality equality;
+    private final BitSet deleted = new BitSet();
+    private final BitSet inserted = new BitSet();
+
+    private ArrayDiff(ElementEquality equality) {
+        this.equality = equality;
+    }
+
+    /**
+     * Returns the element level differences that must be applied to the first array in order to convert it into the
+     * second one, or null if they are not arrays of the same type
+     *
+     * @param label the name of the array property
+     * @param from  the first array
+     * @param to    the second array
+     * @return a {@link List} of {@link ElementDiffOutput} hunks, in index order, or null
+     */
+    public static List<ElementDiffOutput> between(String label, Object from, Object to) {
+
+        ElementEquality equality = getEquality(from, to);
+        if (equality == null) {
+            return null;
+        }
+
+        int fromLength = Array.getLength(from);
+        int toLength = Array.getLength(to);
+        ArrayDiff diff = new ArrayDiff(equality);
+        diff.compare(0, fromLength, 0, toLength);
+
+        // The elements which are neither deleted nor inserted are the common subsequence, walked in step
+        List<ElementDiffOutput> hunks = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < fromLength || j < toLength) {
+            if (i < fromLength && j < toLength && !diff.deleted.get(i) && !diff.inserted.get(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            int fromStart = i;
+            int toStart = j;
+            while (i < fromLength && diff.deleted.get(i)) {
+                i++;
+            }
+            while (j < toLength && diff.inserted.get(j)) {
+                j++;
+            }
+            String operation = (fromStart == i) ? Utility.DIFF_OPERATION_INSERT
+                    : (toStart == j) ? Utility.DIFF_OPERATION_DELETE : Utility.DIFF_OPERATION_REPLACE;
+            hunks.add(new ElementDiffOutput(operation, label, (long) fromStart,
+                    (fromStart == i) ? null : slice(from, fromStart, i),
+                    (toStart == j) ? null : slice(to, toStart, j)));
+        }
+        return hunks;
+    }
+
+    private void compare(int fromStart, int fromEnd, int toStart, int toEnd) {
+
+        while (fromStart < fromEnd && toStart < toEnd && equality.test(fromStart, toStart)) {
+            fromStart++;
+            toStart++;
+        }
+        while (fromStart < fromEnd && toStart < toEnd && equality.test(fromEnd - 1, toEnd - 1)) {
+            fromEnd--;
+            toEnd--;
+        }
+
+        if (fromStart == fromEnd) {
+            inserted.set(toStart, toEnd);
+        } else if (toStart == toEnd) {
+            deleted.set(fromStart, fromEnd);
+        } else {
+            bisect(fromStart, fromEnd, toStart, toEnd);
+        }
+    }
+
+    /**
+     * Finds the middle snake of the given ranges, walking the furthest reaching paths from both ends, and compares
+     * the two halves it splits the ranges into. Both ranges are not empty and their ends differ, so the edit distance
+     * is at least 2 and each half is strictly shorter than the whole.
+     */
+    private void bisect(int fromStart, int fromEnd, int toStart, int toEnd) {
+
+        int n = fromEnd - fromStart;
+        int m = toEnd - toStart;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] forward = new int[length];
+        int[] reverse = new int[length];
+        Arrays.fill(forward, -1);
+        Arrays.fill(reverse, -1);
+        forward[offset + 1] = 0;
+        reverse[offset + 1] = 0;
+
+        int delta = n - m;
+        // With an odd delta the paths overlap while extending the forward one, otherwise the reverse one
+        boolean front = (delta % 2 != 0);
+        int forwardStart = 0;
+        int forwardEnd = 0;
+        int reverseStart = 0;
+        int reverseEnd = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                int kOffset = offset + k;
+                int x = (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1])) ? forward[kOffset + 1] : forward[kOffset - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && equality.test(fromStart + x, toStart + y)) {
+                    x++;
+                    y++;
+                }
+                forward[kOffset] = x;
+                if (x > n) {
+                    forwardEnd += 2;
+                } else if (y > m) {
+                    forwardStart += 2;
+                } else if (front) {
+                    int reverseOffset = offset + delta - k;
+                    if (reverseOffset >= 0 && reverseOffset < length && reverse[reverseOffset] != -1 && x >= n - reverse[reverseOffset]) {
+                        split(fromStart, fromEnd, toStart, toEnd, x, y);
+                        return;
+                    }
+                }
+            }
+
+            for (int k = -d + reverseStart; k <= d - reverseEnd; k += 2) {
+                int kOffset = offset + k;
+                int x = (k == -d || (k != d && reverse[kOffset - 1] < reverse[kOffset + 1])) ? reverse[kOffset + 1] : reverse[kOffset - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && equality.test(fromEnd - x - 1, toEnd - y - 1)) {
+                    x++;
+                    y++;
+                }
+                reverse[kOffset] = x;
+                if (x > n) {
+                    reverseEnd += 2;
+                } else if (y > m) {
+                    reverseStart += 2;
+                } else if (!front) {
+                    int forwardOffset = offset + delta - k;
+                    if (forwardOffset >= 0 && forwardOffset < length && forward[forwardOffset] != -1) {
+                        int forwardX = forward[forwardOffset];
+                        if (forwardX >= n - x) {
+                            split(fromStart, fromEnd, toStart, toEnd, forwardX, forwardX - (delta - k));
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        // The ranges have no common element
+        deleted.set(fromStart, fromEnd);
+        inserted.set(toStart, toEnd);
+    }
+
+    private void split(int fromStart, int fromEnd, int toStart, int toEnd, int x, int y) {
+
+        compare(fromStart, fromStart + x, toStart, toStart + y);
+        compare(fromStart + x, fromEnd, toStart + y, toEnd);
+    }
+
+    private static Object slice(Object array, int start, int end) {
+
+        Object slice = Array.newInstance(array.getClass().getComponentType(), end - start);
+        System.arraycopy(array, start, slice, 0, end - start);
+        return slice;
+    }
+
+    /**
+     * Returns the function comparing the elements of the given arrays, or null if they are not arrays of the same type.
+     * Floating point elements are compared by their bits, as {@link Arrays#equals(double[], double[])} does.
+     */
+    private static ElementEquality getEquality(Object from, Object to) {
+
+        if (from == null || to == null || !from.getClass().isArray() || from.getClass() != to.getClass()) {
+            return null;
+        }
+        if (from instanceof long[]) {
+            long[] a = (long[]) from;
+            long[] b = (long[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else if (from instanceof double[]) {
+            double[] a = (double[]) from;
+            double[] b = (double[]) to;
+            return (i, j) -> Double.doubleToLongBits(a[i]) == Double.doubleToLongBits(b[j]);
+        } else if (from instanceof int[]) {
+            int[] a = (int[]) from;
+            int[] b = (int[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else if (from instanceof float[]) {
+            float[] a = (float[]) from;
+            float[] b = (float[]) to;
+            return (i, j) -> Float.floatToIntBits(a[i]) == Float.floatToIntBits(b[j]);
+        } else if (from instanceof short[]) {
+            short[] a = (short[]) from;
+            short[] b = (short[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else if (from instanceof byte[]) {
+            byte[] a = (byte[]) from;
+            byte[] b = (byte[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else if (from instanceof char[]) {
+            char[] a = (char[]) from;
+            char[] b = (char[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else if (from instanceof boolean[]) {
+            boolean[] a = (boolean[]) from;
+            boolean[] b = (boolean[]) to;
+            return (i, j) -> a[i] == b[j];
+        } else {
+            Object[] a = (Object[]) from;
+            Object[] b = (Object[]) to;
+            return (i, j) -> Objects.equals(a[i], b[j]);
+        }
+    }
+
+    /**
+     * ElementEquality interface, it compares an element of the first array with one of the second array, by index
+     */
+    @FunctionalInterface
+    private interface ElementEquality {
+        boolean test(int fromIndex, int toIndex);
+    }
+}
@@ -0,0 +1,427 @@
+package org.homer.versioner.core.diff;
+
+import org.homer.versioner.core.Utility;
+import org.homer.versioner.core.config.EntityConfig;
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.output.DiffOutput;
+import org.homer.versioner.core.output.DiffStepOutput;
+import org.homer.versioner.core.output.ElementDiffOutput;
+import org.homer.versioner.core.output.RelationshipDiffOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.homer.versioner.core.Utility.ABSENT_KEYS_PROP;
+import static org.homer.versioner.core.Utility.ADDED_KEYS_PROP;
+import static org.homer.versioner.core.Utility.FOR;
+import static org.homer.versioner.core.Utility.HAS_STATE;
+import static org.homer.versioner.core.Utility.NEW_VALUE_PREFIX;
+import static org.homer.versioner.core.Utility.OLD_VALUE_PREFIX;
+import static org.homer.versioner.core.Utility.PREVIOUS;
+import static org.homer.versioner.core.Utility.REMOVED_KEYS_PROP;
+import static org.homer.versioner.core.Utility.START_DATE_PROP;
+import static org.homer.versioner.core.Utility.UPDATED_KEYS_PROP;
+
+/**
+ * StateDiff class, it computes the differences between the properties of two States
+ */
+public class StateDiff {
+
+    private StateDiff() {
+    }
+
+    /**
+     * Returns the differences that must be applied to the first State in order to convert it into the second one
+     *
+     * @param from a {@link Node} representing the first State, it can be null
+     * @param to   a {@link Node} representing the second State, it can be null
+     * @return a {@link List} of {@link DiffOutput}, sorted by operation
+     */
+    public static List<DiffOutput> between(Node from, Node to) {
+
+        Map<String, Object> propertiesFrom = Optional.ofNullable(from).map(StateDelta::getAllProperties).orElse(Collections.emptyMap());
+        Map<String, Object> propertiesTo = Optional.ofNullable(to).map(StateDelta::getAllProperties).orElse(Collections.emptyMap());
+        return between(propertiesFrom, propertiesTo);
+    }
+
+    /**
+     * Returns the differences that must be applied to the first properties in order to convert them into the second ones
+     *
+     * @param propertiesFrom the first properties
+     * @param propertiesTo   the second properties
+     * @return a {@link List} of {@link DiffOutput}, sorted by operation
+     */
+    public static List<DiffOutput> between(Map<String, Object> propertiesFrom, Map<String, Object> propertiesTo) {
+
+        List<DiffOutput> diffs = new ArrayList<>();
+
+        //Getting updated and removed properties
+        propertiesFrom.forEach((key, value) -> {
+            Optional<Object> foundValue = Optional.ofNullable(propertiesTo.get(key));
+            String operation = foundValue.map(val -> isEqual(val, value) ? "" : Utility.DIFF_OPERATION_UPDATE).orElse(Utility.DIFF_OPERATION_REMOVE);
+            if (!operation.isEmpty()) {
+                diffs.add(new DiffOutput(operation, key, value, foundValue.orElse(null)));
+            }
+        });
+
+        //Getting added properties
+        propertiesTo.forEach((key, value) -> {
+            if (!propertiesFrom.containsKey(key)) {
+                diffs.add(new DiffOutput(Utility.DIFF_OPERATION_ADD, key, null, value));
+            }
+        });
+
+        diffs.sort(Comparator.comparingInt(diff -> Utility.DIFF_OPERATIONS_SORTING.indexOf(diff.operation)));
+        return diffs;
+    }
+
+    /**
+     * Returns the differences that must be applied to the previous State of the given one in order to convert it into
+     * the given one, reading them from their PREVIOUS relationship if they are stored there
+     *
+     * @param state a {@link Node} representing the State
+     * @return a {@link List} of {@link DiffOutput}, sorted by operation
+     */
+    public static List<DiffOutput> fromPrevious(Node state) {
+
+        Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+        return getStored(previousRel).orElseGet(() -> between((previousRel == null) ? null : previousRel.getEndNode(), state));
+    }
+
+    /**
+     * Stores the differences between the start State of the given PREVIOUS relationship and its end State on the
+     * relationship itself, if the Entity has the {@link EntityConfig#STORE_DIFFS} option enabled: the changed keys are
+     * kept by operation, and their old and new values as prefixed properties. Both States must be whole.
+     *
+     * @param entity      a {@link Node} representing the Entity
+     * @param previousRel the {@link Relationship} PREVIOUS from the new State to the previous one
+     */
+    public static void store(Node entity, Relationship previousRel) {
+
+        if (!EntityConfig.isStoreDiffs(entity)) {
+            return;
+        }
+
+        List<String> removedKeys = new ArrayList<>();
+        List<String> updatedKeys = new ArrayList<>();
+        List<String> addedKeys = new ArrayList<>();
+        for (DiffOutput diff : between(previousRel.getEndNode().getAllProperties(), previousRel.getStartNode().getAllProperties())) {
+            if (Utility.DIFF_OPERATION_REMOVE.equals(diff.operation)) {
+                removedKeys.add(diff.label);
+            } else if (Utility.DIFF_OPERATION_UPDATE.equals(diff.operation)) {
+                updatedKeys.add(diff.label);
+            } else {
+                addedKeys.add(diff.label);
+            }
+            if (diff.oldValue != null) {
+                previousRel.setProperty(OLD_VALUE_PREFIX + diff.label, diff.oldValue);
+            }
+            if (diff.newValue != null) {
+                previousRel.setProperty(NEW_VALUE_PREFIX + diff.label, diff.newValue);
+            }
+        }
+        previousRel.setProperty(REMOVED_KEYS_PROP, removedKeys.toArray(new String[0]));
+        previousRel.setProperty(UPDATED_KEYS_PROP, updatedKeys.toArray(new String[0]));
+        previousRel.setProperty(ADDED_KEYS_PROP, addedKeys.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the differences stored on the given PREVIOUS relationship by {@link #store(Node, Relationship)}
+     *
+     * @param previousRel the {@link Relationship} PREVIOUS, it can be null
+     * @return an {@link Optional} with the {@link List} of {@link DiffOutput}, empty if no differences are stored
+     */
+    public static Optional<List<DiffOutput>> getStored(Relationship previousRel) {
+
+        if (previousRel == null || !previousRel.hasProperty(UPDATED_KEYS_PROP)) {
+            return Optional.empty();
+        }
+
+        List<DiffOutput> diffs = new ArrayList<>();
+        for (String key : (String[]) previousRel.getProperty(REMOVED_KEYS_PROP)) {
+            diffs.add(new DiffOutput(Utility.DIFF_OPERATION_REMOVE, key, previousRel.getProperty(OLD_VALUE_PREFIX + key), null));
+        }
+        for (String key : (String[]) previousRel.getProperty(UPDATED_KEYS_PROP)) {
+            diffs.add(new DiffOutput(Utility.DIFF_OPERATION_UPDATE, key, previousRel.getProperty(OLD_VALUE_PREFIX + key), previousRel.getProperty(NEW_VALUE_PREFIX + key)));
+        }
+        for (String key : (String[]) previousRel.getProperty(ADDED_KEYS_PROP)) {
+            diffs.add(new DiffOutput(Utility.DIFF_OPERATION_ADD, key, null, previousRel.getProperty(NEW_VALUE_PREFIX + key)));
+        }
+        return Optional.of(diffs);
+    }
+
+    /**
+     * Returns the differences that must be applied to the first State in order to convert it into the second one, as
+     * {@link #between(Node, Node)} does, but each updated array property is described by its element level hunks,
+     * see {@link ArrayDiff}, instead of by its whole old and new values
+     *
+     * @param from a {@link Node} representing the first State, it can be null
+     * @param to   a {@link Node} representing the second State, it can be null
+     * @return a {@link List} of {@link ElementDiffOutput}, sorted by operation and then by index
+     */
+    public static List<ElementDiffOutput> elements(Node from, Node to) {
+
+        List<ElementDiffOutput> diffs = new ArrayList<>();
+        for (DiffOutput diff : between(from, to)) {
+            List<ElementDiffOutput> hunks = Utility.DIFF_OPERATION_UPDATE.equals(diff.operation)
+                    ? ArrayDiff.between(diff.label, diff.oldValue, diff.newValue)
+                    : null;
+            if (hunks == null) {
+                diffs.add(new ElementDiffOutput(diff.operation, diff.label, null, diff.oldValue, diff.newValue));
+            } else {
+                diffs.addAll(hunks);
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Returns the differences between the versioned relationships held by the first State and the ones held by the
+     * second one. Relationships are matched by their type and the Entity they point to, through a hash join, so the
+     * States are diffed in linear time; the matched ones are updated if their properties differ.
+     *
+     * @param from a {@link Node} representing the first State, it can be null
+     * @param to   a {@link Node} representing the second State, it can be null
+     * @return a {@link List} of {@link RelationshipDiffOutput}, sorted by operation
+     */
+    public static List<RelationshipDiffOutput> relationships(Node from, Node to) {
+
+        List<RelationshipDiffOutput> diffs = new ArrayList<>();
+        // States sharing the same relationship set hold the same relationships
+        if (from != null && to != null && RelationshipSet.getOwner(from).equals(RelationshipSet.getOwner(to))) {
+            return diffs;
+        }
+
+        // Building the hash side, the same Entity can be the target of more relationships with the same type
+        Map<RelationshipKey, Deque<Relationship>> relationshipsFrom = new HashMap<>();
+        if (from != null) {
+            Utility.streamOfVersionedRelationships(from).forEach(rel ->
+                    relationshipsFrom.computeIfAbsent(new RelationshipKey(rel), key -> new ArrayDeque<>()).add(rel));
+        }
+
+        //Getting updated and added relationships
+        if (to != null) {
+            Utility.streamOfVersionedRelationships(to).forEach(rel -> {
+                RelationshipKey key = new RelationshipKey(rel);
+                Deque<Relationship> matches = relationshipsFrom.get(key);
+                Relationship match = (matches == null) ? null : matches.poll();
+                if (match == null) {
+                    diffs.add(new RelationshipDiffOutput(Utility.DIFF_OPERATION_ADD, key.type, key.entity, null, rel.getAllProperties()));
+                } else {
+                    Map<String, Object> oldProperties = match.getAllProperties();
+                    Map<String, Object> newProperties = rel.getAllProperties();
+                    if (!between(oldProperties, newProperties).isEmpty()) {
+                        diffs.add(new RelationshipDiffOutput(Utility.DIFF_OPERATION_UPDATE, key.type, key.entity, oldProperties, newProperties));
+                    }
+                }
+            });
+        }
+
+        //Getting removed relationships, the ones left unmatched
+        relationshipsFrom.forEach((key, rels) -> rels.forEach(rel ->
+                diffs.add(new RelationshipDiffOutput(Utility.DIFF_OPERATION_REMOVE, key.type, key.entity, rel.getAllProperties(), null))));
+
+        diffs.sort(Comparator.comparingInt(diff -> Utility.DIFF_OPERATIONS_SORTING.indexOf(diff.operation)));
+        return diffs;
+    }
+
+    /**
+     * Returns the net differences that must be applied to an older State in order to convert it into a newer one.
+     * If the older State is stored as a delta of the newer one, through a run of deltas, the deltas are folded to
+     * find the changed properties, and only those are read from both States; otherwise, both States are loaded whole.
+     *
+     * @param from a {@link Node} representing the older State, it can be null
+     * @param to   a {@link Node} representing the newer State, it can be null
+     * @return a {@link List} of {@link DiffOutput}, sorted by operation
+     */
+    public static List<DiffOutput> net(Node from, Node to) {
+
+        if (from == null || to == null || !StateDelta.isDelta(from)) {
+            return between(from, to);
+        }
+
+        // Collecting the deltas from the older State up to the newer one, the nearest to the newer is the last pushed
+        Deque<Relationship> deltas = new ArrayDeque<>();
+        Node state = from;
+        while (!state.equals(to)) {
+            Relationship nextRel = state.getSingleRelationship(PREVIOUS, Direction.INCOMING);
+            if (!StateDelta.isDelta(nextRel)) {
+                return between(from, to);
+            }
+            deltas.push(nextRel);
+            state = nextRel.getStartNode();
+        }
+
+        // Folding the deltas from the newer State back, each older delta overrides the newer ones
+        Map<String, Object> propertiesFrom = new HashMap<>();
+        Set<String> absentKeys = new HashSet<>();
+        for (Relationship delta : deltas) {
+            delta.getEndNode().getAllProperties().forEach((key, value) -> {
+                propertiesFrom.put(key, value);
+                absentKeys.remove(key);
+            });
+            for (String absentKey : (String[]) delta.getProperty(ABSENT_KEYS_PROP)) {
+                propertiesFrom.remove(absentKey);
+                absentKeys.add(absentKey);
+            }
+        }
+
+        // Any other property is the same in both States
+        Set<String> changedKeys = new HashSet<>(propertiesFrom.keySet());
+        changedKeys.addAll(absentKeys);
+        return between(propertiesFrom, StateDelta.getProperties(to, changedKeys));
+    }
+
+    /**
+     * Returns the differences of each step of the PREVIOUS chain, from the given newest State back to the given oldest
+     * one, excluded. The differences stored on the PREVIOUS relationship of a step are returned as they are, otherwise
+     * the properties of each State are loaded only once, and the ones of a State stored as a delta are rebuilt from the
+     * ones of its next State. If the oldest State is null, the chain is walked up to its first State, whose step has no
+     * previous State.
+     *
+     * @param newest a {@link Node} representing the newest State
+     * @param oldest a {@link Node} representing the oldest State, it can be null
+     * @return a lazy {@link Stream} of {@link DiffStepOutput}, from the newest step
+     */
+    public static Stream<DiffStepOutput> steps(Node newest, Node oldest) {
+
+        Iterator<DiffStepOutput> iterator = new Iterator<DiffStepOutput>() {
+            private Node state = newest;
+            // Loaded only when a step has no stored differences, and null after a step which had them
+            private Map<String, Object> props;
+
+            @Override
+            public boolean hasNext() {
+                return state != null && !state.equals(oldest);
+            }
+
+            @Override
+            public DiffStepOutput next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+                Node previousState = (previousRel == null) ? null : previousRel.getEndNode();
+                Relationship hasState = state.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+                LocalDateTime date = (hasState == null) ? null : (LocalDateTime) hasState.getProperty(START_DATE_PROP, null);
+
+                Optional<List<DiffOutput>> storedDiffs = getStored(previousRel);
+                List<DiffOutput> diffs;
+                Map<String, Object> previousProps;
+                if (storedDiffs.isPresent()) {
+                    diffs = storedDiffs.get();
+                    previousProps = null;
+                } else {
+                    if (props == null) {
+                        props = StateDelta.getAllProperties(state);
+                    }
+                    previousProps = (previousRel == null) ? Collections.emptyMap() : StateDelta.getPreviousProperties(previousRel, props);
+                    diffs = between(previousProps, props);
+                }
+
+                DiffStepOutput step = new DiffStepOutput(state, previousState, date, asMaps(diffs));
+                state = previousState;
+                props = previousProps;
+                return step;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Converts the given differences into maps, to be returned inside other records
+     *
+     * @param diffs a {@link List} of {@link DiffOutput}
+     * @return a {@link List} of {operation, label, oldValue, newValue} maps
+     */
+    public static List<Map<String, Object>> asMaps(List<DiffOutput> diffs) {
+
+        List<Map<String, Object>> maps = new ArrayList<>(diffs.size());
+        for (DiffOutput diff : diffs) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("operation", diff.operation);
+            map.put("label", diff.label);
+            map.put("oldValue", diff.oldValue);
+            map.put("newValue", diff.newValue);
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    /**
+     * It compares 2 objects and return true if equals, false instead
+     *
+     * @param val
+     * @param value
+     * @return true if equals, false instead
+     */
+    public static boolean isEqual(Object val, Object value) {
+        if (val.getClass().isArray() && value.getClass().isArray()) {
+            return (val instanceof boolean[] && value instanceof boolean[] && Arrays.equals((boolean[]) val, (boolean[]) value))
+                    || (val instanceof byte[] && value instanceof byte[] && Arrays.equals((byte[]) val, (byte[]) value))
+                    || (val instanceof short[] && value instanceof short[] && Arrays.equals((short[]) val, (short[]) value))
+                    || (val instanceof int[] && value instanceof int[] && Arrays.equals((int[]) val, (int[]) value))
+                    || (val instanceof long[] && value instanceof long[] && Arrays.equals((long[]) val, (long[]) value))
+                    || (val instanceof float[] && value instanceof float[] && Arrays.equals((float[]) val, (float[]) value))
+                    || (val instanceof double[] && value instanceof double[] && Arrays.equals((double[]) val, (double[]) value))
+                    || (val instanceof char[] && value instanceof char[] && Arrays.equals((char[]) val, (char[]) value))
+                    || (val instanceof String[] && value instanceof String[] && Arrays.equals((String[]) val, (String[]) value));
+        } else {
+            return val.equals(value);
+        }
+    }
+
+    /**
+     * RelationshipKey class, it identifies a versioned relationship by its type and the Entity it points to
+     */
+    private static class RelationshipKey {
+        private final String type;
+        private final Node entity;
+
+        private RelationshipKey(Relationship rel) {
+            Relationship forRel = rel.getEndNode().getSingleRelationship(FOR, Direction.OUTGOING);
+            this.type = rel.getType().name();
+            this.entity = (forRel == null) ? rel.getEndNode() : forRel.getEndNode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RelationshipKey that = (RelationshipKey) o;
+            return type.equals(that.type) && entity.equals(that.entity);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, entity.getId());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.homer.versioner.core.feed;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.homer.versioner.core.Utility.DATE_PROP;
+
+/**
+ * ChangeFeed class, it records every new State in a feed which can be read in the order the changes are numbered.
+ * <p>
+ * The feed is a single {@code ChangeFeed} node, created when the feed is enabled, holding the sequence number of the
+ * last change and pointing to the first and to the last {@code Change} node. Each new State gets a Change node with
+ * its date, linked to it by a CHANGED relationship and labelled {@code PendingChange}: the transaction creating the
+ * State neither reads nor locks the ChangeFeed node, so the writing transactions never wait for each other because of
+ * the feed. Once they are committed, the {@link ChangeSequencer} of the database numbers the pending changes and
+ * appends them to the list of changes through NEXT_CHANGE relationships, in its own transaction, so a change is
+ * never numbered before a change which could already be read. The order is not the commit order: the changes
+ * committed before a run of the sequencer are numbered before the ones committed after it, but the ones numbered by
+ * the same run are in id order. Reading the feed from a watermark, which points to the
+ * last read Change, only takes one hop per change.
+ */
+public class ChangeFeed {
+
+    public static final String FEED_LABEL = "ChangeFeed";
+    public static final String CHANGE_LABEL = "Change";
+    public static final String PENDING_CHANGE_LABEL = "PendingChange";
+    public static final String LAST_SEQ_PROP = "lastSeq";
+    public static final String SEQ_PROP = "seq";
+
+    public static final RelationshipType FIRST_CHANGE = RelationshipType.withName("FIRST_CHANGE");
+    public static final RelationshipType LAST_CHANGE = RelationshipType.withName("LAST_CHANGE");
+    public static final RelationshipType NEXT_CHANGE = RelationshipType.withName("NEXT_CHANGE");
+    public static final RelationshipType CHANGED = RelationshipType.withName("CHANGED");
+
+    static final Label FEED = Label.label(FEED_LABEL);
+    static final Label CHANGE = Label.label(CHANGE_LABEL);
+    static final Label PENDING_CHANGE = Label.label(PENDING_CHANGE_LABEL);
+
+    private static final String WATERMARK_SEPARATOR = ":";
+
+    private ChangeFeed() {
+    }
+
+    /**
+     * Enables the feed, if it isn't already
+     *
+     * @param transaction the current {@link Transaction}
+     * @return a {@link Node} representing the feed
+     */
+    public static Node enable(Transaction transaction) {
+
+        return findFeed(transaction).orElseGet(() -> {
+            Node feed = transaction.createNode(FEED);
+            feed.setProperty(LAST_SEQ_PROP, 0L);
+            return feed;
+        });
+    }
+
+    /**
+     * Records the given new State as a pending change, if the feed is enabled
+     *
+     * @param transaction the current {@link Transaction}
+     * @param state       a {@link Node} representing the new State
+     * @param date        the date of the State
+     */
+    public static void record(Transaction transaction, Node state, LocalDateTime date) {
+
+        if (!ChangeSequencer.isFeedEnabled(transaction)) {
+            return;
+        }
+        Node change = transaction.createNode(CHANGE, PENDING_CHANGE);
+        change.setProperty(DATE_PROP, date);
+        change.createRelationshipTo(state, CHANGED);
+    }
+
+    /**
+     * Numbers the committed pending changes and appends them to the feed, in id order. It is called by the
+     * {@link ChangeSequencer} only, which runs one transaction at a time for each database. If the feed doesn't exist,
+     * for example because the transaction enabling it has been rolled back, the pending changes are dropped.
+     *
+     * @param transaction the {@link Transaction} of the sequencer
+     * @return the number of appended changes, or -1 if the feed doesn't exist
+     */
+    static long sequence(Transaction transaction) {
+
+        List<Node> pending = new ArrayList<>();
+        try (ResourceIterator<Node> changes = transaction.findNodes(PENDING_CHANGE)) {
+            changes.forEachRemaining(pending::add);
+        }
+        Optional<Node> feedNode = findFeed(transaction);
+        if (!feedNode.isPresent()) {
+            for (Node change : pending) {
+                change.getRelationships().forEach(Relationship::delete);
+                change.delete();
+            }
+            return -1L;
+        }
+
+        Node feed = feedNode.get();
+        transaction.acquireWriteLock(feed);
+        pending.sort(Comparator.comparingLong(Node::getId));
+        long seq = (long) feed.getProperty(LAST_SEQ_PROP, 0L);
+        Relationship lastRel = feed.getSingleRelationship(LAST_CHANGE, Direction.OUTGOING);
+        Node last = (lastRel == null) ? null : lastRel.getEndNode();
+        for (Node change : pending) {
+            change.setProperty(SEQ_PROP, ++seq);
+            change.removeLabel(PENDING_CHANGE);
+            if (last == null) {
+                feed.createRelationshipTo(change, FIRST_CHANGE);
+            } else {
+                last.createRelationshipTo(change, NEXT_CHANGE);
+            }
+            last = change;
+        }
+        if (!pending.isEmpty()) {
+            if (lastRel != null) {
+                lastRel.delete();
+            }
+            feed.createRelationshipTo(last, LAST_CHANGE);
+            feed.setProperty(LAST_SEQ_PROP, seq);
+        }
+        return pending.size();
+    }
+
+    /**
+     * Returns the first Change after the given watermark
+     *
+     * @param transaction the current {@link Transaction}
+     * @param watermark   the watermark of the last read Change, or null or empty to read from the first one
+     * @return the next Change {@link Node}, if any
+     */
+    public static Optional<Node> getNextChange(Transaction transaction, String watermark) {
+
+        if (watermark == null || watermark.isEmpty()) {
+            return findFeed(transaction)
+                    .map(feed -> feed.getSingleRelationship(FIRST_CHANGE, Direction.OUTGOING))
+                    .map(Relationship::getEndNode);
+        }
+        return getNextChange(decodeWatermark(transaction, watermark));
+    }
+
+    /**
+     * Returns the Change following the given one
+     *
+     * @param change a {@link Node} representing a Change
+     * @return the next Change {@link Node}, if any
+     */
+    public static Optional<Node> getNextChange(Node change) {
+
+        return Optional.ofNullable(change.getSingleRelationship(NEXT_CHANGE, Direction.OUTGOING))
+                .map(Relationship::getEndNode);
+    }
+
+    /**
+     * Returns the watermark of the last Change of the feed, so that it can be read from now on
+     *
+     * @param transaction the current {@link Transaction}
+     * @return the watermark, or null if the feed has no changes
+     */
+    public static String getLastWatermark(Transaction transaction) {
+
+        return findFeed(transaction)
+                .map(feed -> feed.getSingleRelationship(LAST_CHANGE, Direction.OUTGOING))
+                .map(lastRel -> encodeWatermark(lastRel.getEndNode()))
+                .orElse(null);
+    }
+
+    /**
+     * It encodes the watermark pointing to the given Change, made of its sequence number and of its id. The id makes
+     * resuming the feed a single lookup, while the sequence number tells apart a node which reused the id of the Change
+     *
+     * @param change a {@link Node} representing the last read Change
+     * @return the watermark
+     */
+    public static String encodeWatermark(Node change) {
+        String watermark = change.getProperty(SEQ_PROP) + WATERMARK_SEPARATOR + change.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(watermark.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Node decodeWatermark(Transaction transaction, String watermark) {
+
+        long seq;
+        Node change;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8).split(WATERMARK_SEPARATOR);
+            seq = Long.parseLong(parts[0]);
+            change = transaction.getNodeById(Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new VersionerCoreException("The given watermark is not valid.");
+        }
+        if (!change.hasLabel(CHANGE) || !Long.valueOf(seq).equals(change.getProperty(SEQ_PROP, null))) {
+            throw new VersionerCoreException("The given watermark is not valid, it doesn't point to a change of the feed.");
+        }
+        return change;
+    }
+
+    static Optional<Node> findFeed(Transaction transaction) {
+
+        try (ResourceIterator<Node> feeds = transaction.findNodes(FEED)) {
+            return feeds.hasNext() ? Optional.of(feeds.next()) : Optional.empty();
+        }
+    }
+}
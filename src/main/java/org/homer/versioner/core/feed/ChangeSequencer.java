@@ -0,0 +1,160 @@
+package org.homer.versioner.core.feed;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.logging.Log;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * ChangeSequencer class, it appends the pending changes of a database to its {@link ChangeFeed} after their commit.
+ * <p>
+ * Each database gets its own sequencer, owned by the {@link ChangeSequencerExtensionFactory} instance of the database.
+ * Whenever a committed transaction has recorded pending changes, the sequencer is woken up and numbers all the pending
+ * changes in a transaction of its own, on its own thread: it is the only transaction locking the ChangeFeed node, and
+ * it never runs on the thread of a committing transaction, which can still hold the locks of the Change nodes it has
+ * created. The pending changes left by a stop are numbered when the sequencer starts again.
+ * <p>
+ * It also keeps track of whether the feed is enabled, so that the transactions creating States don't look the
+ * ChangeFeed node up: the flag is loaded on first use and updated by the committed transactions creating or deleting
+ * the feed. A loaded value is stored only if the flag is still unknown, so that a transaction opened before the feed
+ * was created never overwrites the flag set by the creating one.
+ */
+public class ChangeSequencer extends TransactionEventListenerAdapter<Object> {
+
+    private static final Map<UUID, ChangeSequencer> SEQUENCERS = new ConcurrentHashMap<>();
+    private static final long RETRY_DELAY_MILLIS = 1000L;
+    private static final long AVAILABILITY_TIMEOUT_MILLIS = 10000L;
+    private static final long STOP_TIMEOUT_SECONDS = 10L;
+
+    private final GraphDatabaseService db;
+    private final Log log;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+    private final AtomicReference<Boolean> feedEnabled = new AtomicReference<>();
+
+    ChangeSequencer(GraphDatabaseService db, Log log) {
+        this.db = db;
+        this.log = log;
+    }
+
+    /**
+     * Makes the given sequencer the one of the database with the given id
+     *
+     * @param databaseId the id of the database
+     * @param sequencer  the {@link ChangeSequencer} of the database
+     */
+    static void register(UUID databaseId, ChangeSequencer sequencer) {
+        SEQUENCERS.put(databaseId, sequencer);
+    }
+
+    /**
+     * Removes the given sequencer of the database with the given id, if it is still the registered one
+     *
+     * @param databaseId the id of the database
+     * @param sequencer  the {@link ChangeSequencer} of the database
+     */
+    static void unregister(UUID databaseId, ChangeSequencer sequencer) {
+        SEQUENCERS.remove(databaseId, sequencer);
+    }
+
+    /**
+     * Checks if the change feed of the database the given transaction belongs to is enabled, looking the ChangeFeed
+     * node up only if the database has no sequencer or if the sequencer doesn't know it yet
+     *
+     * @param transaction the {@link Transaction}
+     * @return true if the feed is enabled
+     */
+    static boolean isFeedEnabled(Transaction transaction) {
+
+        ChangeSequencer sequencer = (transaction instanceof InternalTransaction) ? SEQUENCERS.get(((InternalTransaction) transaction).getDatabaseId()) : null;
+        if (sequencer == null) {
+            return ChangeFeed.findFeed(transaction).isPresent();
+        }
+        Boolean enabled = sequencer.feedEnabled.get();
+        if (enabled == null) {
+            enabled = ChangeFeed.findFeed(transaction).isPresent();
+            sequencer.feedEnabled.compareAndSet(null, enabled);
+        }
+        return enabled;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Object state, GraphDatabaseService databaseService) {
+
+        boolean pending = false;
+        for (LabelEntry entry : data.assignedLabels()) {
+            if (entry.label().equals(ChangeFeed.FEED)) {
+                feedEnabled.set(true);
+            } else if (entry.label().equals(ChangeFeed.PENDING_CHANGE)) {
+                pending = true;
+            }
+        }
+        for (LabelEntry entry : data.removedLabels()) {
+            if (entry.label().equals(ChangeFeed.FEED)) {
+                feedEnabled.set(null);
+            }
+        }
+        if (pending) {
+            schedule(0L);
+        }
+    }
+
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "versioner-change-sequencer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedule(0L);
+    }
+
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void schedule(long delayMillis) {
+
+        // A single run numbers all the changes committed before it starts, so it is scheduled at most once at a time
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // The sequencer is stopping, the pending changes are numbered when it starts again
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void run() {
+
+        scheduled.set(false);
+        if (!db.isAvailable(AVAILABILITY_TIMEOUT_MILLIS)) {
+            schedule(RETRY_DELAY_MILLIS);
+            return;
+        }
+        try (Transaction tx = db.beginTx()) {
+            if (ChangeFeed.sequence(tx) < 0) {
+                feedEnabled.set(null);
+            }
+            tx.commit();
+        } catch (RuntimeException e) {
+            log.warn(LOGGER_TAG + "Failed to sequence the pending changes of the change feed, retrying: {}", e.getMessage());
+            schedule(RETRY_DELAY_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.homer.versioner.core.feed;
+
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.kernel.extension.ExtensionFactory;
+import org.neo4j.kernel.extension.ExtensionType;
+import org.neo4j.kernel.extension.context.ExtensionContext;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.internal.LogService;
+
+import java.util.UUID;
+
+/**
+ * ChangeSequencerExtensionFactory class, it gives each user database its own {@link ChangeSequencer}, woken up by
+ * the committed transactions, and stops it when the database stops
+ */
+public class ChangeSequencerExtensionFactory extends ExtensionFactory<ChangeSequencerExtensionFactory.Dependencies> {
+
+    public interface Dependencies {
+        GraphDatabaseAPI graphDatabaseAPI();
+
+        DatabaseManagementService databaseManagementService();
+
+        LogService logService();
+    }
+
+    public ChangeSequencerExtensionFactory() {
+        super(ExtensionType.DATABASE, "versionerChangeSequencer");
+    }
+
+    @Override
+    public Lifecycle newInstance(ExtensionContext context, Dependencies dependencies) {
+
+        GraphDatabaseAPI db = dependencies.graphDatabaseAPI();
+        String databaseName = db.databaseName();
+        UUID databaseId = db.databaseId().databaseId().uuid();
+        DatabaseManagementService managementService = dependencies.databaseManagementService();
+        ChangeSequencer sequencer = new ChangeSequencer(db, dependencies.logService().getUserLog(ChangeSequencer.class));
+
+        // The system database holds no States, and it doesn't accept transaction event listeners
+        if (GraphDatabaseSettings.SYSTEM_DATABASE_NAME.equals(databaseName)) {
+            return new LifecycleAdapter();
+        }
+
+        return new LifecycleAdapter() {
+            @Override
+            public void start() {
+                sequencer.start();
+                managementService.registerTransactionEventListener(databaseName, sequencer);
+                ChangeSequencer.register(databaseId, sequencer);
+            }
+
+            @Override
+            public void stop() throws InterruptedException {
+                ChangeSequencer.unregister(databaseId, sequencer);
+                managementService.unregisterTransactionEventListener(databaseName, sequencer);
+                sequencer.stop();
+            }
+        };
+    }
+}
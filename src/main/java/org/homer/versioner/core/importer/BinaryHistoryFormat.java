@@ -0,0 +1,85 @@
+package org.homer.versioner.core.importer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BinaryHistoryFormat class, it holds the constants of the binary history files, shared by
+ * {@link BinaryHistoryWriter} and {@link BinaryHistoryReader}.
+ * <p>
+ * A file starts with a magic number and a format version, followed by one record per Entity and an end marker.
+ * An Entity record holds its key and the number of its States, followed by the States in date order, each one with
+ * its start date, its labels other than State, its properties and its versioned relationships, whose destination
+ * Entities are identified by label and key. Integers are written as variable length quantities, and each property
+ * key, label and relationship type is written in full only the first time, then as a reference to it.
+ */
+final class BinaryHistoryFormat {
+
+    static final int MAGIC = 0x47564842;
+    static final int VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+
+    static final int END_RECORD = 0;
+    static final int ENTITY_RECORD = 1;
+
+    // Value types, the ones of arrays have the ARRAY bit set
+    static final int STRING = 1;
+    static final int LONG = 2;
+    static final int INT = 3;
+    static final int SHORT = 4;
+    static final int BYTE = 5;
+    static final int DOUBLE = 6;
+    static final int FLOAT = 7;
+    static final int BOOLEAN = 8;
+    static final int CHAR = 9;
+    static final int LOCAL_DATE_TIME = 10;
+    static final int LOCAL_DATE = 11;
+    static final int LOCAL_TIME = 12;
+    static final int ZONED_DATE_TIME = 13;
+    static final int ARRAY = 0x40;
+
+    // Scalar values are boxed, while array elements can be primitives
+    static final Map<Class<?>, Integer> SCALAR_TYPES = new HashMap<>();
+    static final Map<Class<?>, Integer> ELEMENT_TYPES = new HashMap<>();
+    static final Map<Integer, Class<?>> ELEMENT_CLASSES = new HashMap<>();
+
+    static {
+        SCALAR_TYPES.put(String.class, STRING);
+        SCALAR_TYPES.put(Long.class, LONG);
+        SCALAR_TYPES.put(Integer.class, INT);
+        SCALAR_TYPES.put(Short.class, SHORT);
+        SCALAR_TYPES.put(Byte.class, BYTE);
+        SCALAR_TYPES.put(Double.class, DOUBLE);
+        SCALAR_TYPES.put(Float.class, FLOAT);
+        SCALAR_TYPES.put(Boolean.class, BOOLEAN);
+        SCALAR_TYPES.put(Character.class, CHAR);
+        SCALAR_TYPES.put(LocalDateTime.class, LOCAL_DATE_TIME);
+        SCALAR_TYPES.put(LocalDate.class, LOCAL_DATE);
+        SCALAR_TYPES.put(LocalTime.class, LOCAL_TIME);
+        SCALAR_TYPES.put(ZonedDateTime.class, ZONED_DATE_TIME);
+
+        ELEMENT_CLASSES.put(STRING, String.class);
+        ELEMENT_CLASSES.put(LONG, long.class);
+        ELEMENT_CLASSES.put(INT, int.class);
+        ELEMENT_CLASSES.put(SHORT, short.class);
+        ELEMENT_CLASSES.put(BYTE, byte.class);
+        ELEMENT_CLASSES.put(DOUBLE, double.class);
+        ELEMENT_CLASSES.put(FLOAT, float.class);
+        ELEMENT_CLASSES.put(BOOLEAN, boolean.class);
+        ELEMENT_CLASSES.put(CHAR, char.class);
+        ELEMENT_CLASSES.put(LOCAL_DATE_TIME, LocalDateTime.class);
+        ELEMENT_CLASSES.put(LOCAL_DATE, LocalDate.class);
+        ELEMENT_CLASSES.put(LOCAL_TIME, LocalTime.class);
+        ELEMENT_CLASSES.put(ZONED_DATE_TIME, ZonedDateTime.class);
+        ELEMENT_CLASSES.forEach((type, elementClass) -> ELEMENT_TYPES.put(elementClass, type));
+        // Arrays of boxed values are written as the primitive ones
+        SCALAR_TYPES.forEach(ELEMENT_TYPES::putIfAbsent);
+    }
+
+    private BinaryHistoryFormat() {
+    }
+}
@@ -0,0 +1,220 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.homer.versioner.core.importer.BinaryHistoryFormat.*;
+
+/**
+ * BinaryHistoryReader class, it reads the binary history files written by {@link BinaryHistoryWriter}, through a
+ * fixed size buffer filled from a {@link FileChannel}. Each State is read as a {@link HistoryRow}, with its labels
+ * and versioned relationships; the line of a row is its position in the file.
+ */
+public class BinaryHistoryReader extends HistoryReader {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final List<String> names = new ArrayList<>();
+    private Object key;
+    private long remainingStates;
+    private long row;
+
+    public BinaryHistoryReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+        ensure(Integer.BYTES);
+        if (buffer.getInt() != MAGIC) {
+            channel.close();
+            throw new VersionerCoreException("The file " + path.getFileName() + " is not a binary history file.");
+        }
+        long version = readVarLong();
+        if (version != VERSION) {
+            channel.close();
+            throw new VersionerCoreException("The binary history file version " + version + " is not supported.");
+        }
+    }
+
+    @Override
+    protected HistoryRow readRow() throws IOException {
+
+        while (remainingStates == 0) {
+            int record = readTag();
+            if (record == END_RECORD) {
+                return null;
+            }
+            if (record != ENTITY_RECORD) {
+                throw new VersionerCoreException("The binary history file is corrupted, found record type " + record + ".");
+            }
+            key = readValue();
+            remainingStates = readVarLong();
+        }
+        remainingStates--;
+
+        LocalDateTime date = readLocalDateTime();
+        int labelCount = (int) readVarLong();
+        List<String> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            labels.add(readName());
+        }
+        Map<String, Object> props = readProperties();
+        int relationshipCount = (int) readVarLong();
+        List<HistoryRelationship> relationships = new ArrayList<>(relationshipCount);
+        for (int i = 0; i < relationshipCount; i++) {
+            relationships.add(new HistoryRelationship(readName(), readName(), readValue(), readProperties()));
+        }
+        return new HistoryRow(key, date, props, ++row, labels, relationships);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Map<String, Object> readProperties() throws IOException {
+
+        int count = (int) readVarLong();
+        Map<String, Object> props = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            props.put(readName(), readValue());
+        }
+        return props;
+    }
+
+    private Object readValue() throws IOException {
+
+        int type = readTag();
+        if ((type & ARRAY) == 0) {
+            return readScalar(type);
+        }
+        Class<?> elementClass = ELEMENT_CLASSES.get(type & ~ARRAY);
+        if (elementClass == null) {
+            throw new VersionerCoreException("The binary history file is corrupted, found value type " + type + ".");
+        }
+        int length = (int) readVarLong();
+        Object array = Array.newInstance(elementClass, length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, readScalar(type & ~ARRAY));
+        }
+        return array;
+    }
+
+    private Object readScalar(int type) throws IOException {
+
+        switch (type) {
+            case STRING:
+                return readString();
+            case LONG:
+                return readSignedVarLong();
+            case INT:
+                return (int) readSignedVarLong();
+            case SHORT:
+                return (short) readSignedVarLong();
+            case BYTE:
+                ensure(1);
+                return buffer.get();
+            case DOUBLE:
+                ensure(Double.BYTES);
+                return buffer.getDouble();
+            case FLOAT:
+                ensure(Float.BYTES);
+                return buffer.getFloat();
+            case BOOLEAN:
+                return readTag() != 0;
+            case CHAR:
+                return (char) readVarLong();
+            case LOCAL_DATE_TIME:
+                return readLocalDateTime();
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(readSignedVarLong());
+            case LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(readVarLong());
+            case ZONED_DATE_TIME:
+                Instant instant = Instant.ofEpochSecond(readSignedVarLong(), readVarLong());
+                return ZonedDateTime.ofInstant(instant, ZoneId.of(readString()));
+            default:
+                throw new VersionerCoreException("The binary history file is corrupted, found value type " + type + ".");
+        }
+    }
+
+    private LocalDateTime readLocalDateTime() throws IOException {
+        return LocalDateTime.ofEpochSecond(readSignedVarLong(), (int) readVarLong(), ZoneOffset.UTC);
+    }
+
+    private String readName() throws IOException {
+
+        int reference = (int) readVarLong();
+        if (reference == 0) {
+            String name = readString();
+            names.add(name);
+            return name;
+        }
+        return names.get(reference - 1);
+    }
+
+    private String readString() throws IOException {
+
+        byte[] data = new byte[(int) readVarLong()];
+        for (int offset = 0; offset < data.length; ) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), data.length - offset);
+            buffer.get(data, offset, length);
+            offset += length;
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private int readTag() throws IOException {
+        ensure(1);
+        return buffer.get() & 0xFF;
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int current = readTag();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+
+        if (buffer.remaining() >= length) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < length) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The binary history file is truncated.");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,235 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.homer.versioner.core.importer.BinaryHistoryFormat.*;
+
+/**
+ * BinaryHistoryWriter class, it writes the history of Entities to a binary file, as described in
+ * {@link BinaryHistoryFormat}, through a fixed size buffer flushed to a {@link FileChannel}.
+ */
+public class BinaryHistoryWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Map<String, Integer> names = new HashMap<>();
+    private long bytes;
+
+    public BinaryHistoryWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC);
+        writeVarLong(VERSION);
+    }
+
+    /**
+     * Starts the record of an Entity, which must be followed by the given number of States
+     *
+     * @param key    the key of the Entity
+     * @param states the number of States
+     */
+    public void writeEntity(Object key, int states) throws IOException {
+
+        writeTag(ENTITY_RECORD);
+        writeValue("key", key);
+        writeVarLong(states);
+    }
+
+    /**
+     * Writes a State of the current Entity
+     *
+     * @param date          the start date of the State
+     * @param labels        the labels of the State, other than State
+     * @param props         the properties of the State
+     * @param relationships the versioned relationships of the State
+     */
+    public void writeState(LocalDateTime date, List<String> labels, Map<String, Object> props, List<HistoryRelationship> relationships) throws IOException {
+
+        writeLocalDateTime(date);
+        writeVarLong(labels.size());
+        for (String label : labels) {
+            writeName(label);
+        }
+        writeProperties(props);
+        writeVarLong(relationships.size());
+        for (HistoryRelationship relationship : relationships) {
+            writeName(relationship.type);
+            writeName(relationship.label);
+            writeValue("key", relationship.key);
+            writeProperties(relationship.props);
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far
+     */
+    public long getBytes() {
+        return bytes + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        try {
+            writeTag(END_RECORD);
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeProperties(Map<String, Object> props) throws IOException {
+
+        writeVarLong(props.size());
+        for (Map.Entry<String, Object> prop : props.entrySet()) {
+            writeName(prop.getKey());
+            writeValue(prop.getKey(), prop.getValue());
+        }
+    }
+
+    private void writeValue(String name, Object value) throws IOException {
+
+        Integer type = SCALAR_TYPES.get(value.getClass());
+        if (type != null) {
+            writeTag(type);
+            writeScalar(type, value);
+            return;
+        }
+        type = value.getClass().isArray() ? ELEMENT_TYPES.get(value.getClass().getComponentType()) : null;
+        if (type == null) {
+            throw new VersionerCoreException("The property " + name + " has a type not supported by the binary format: " + value.getClass().getSimpleName() + ".");
+        }
+        writeTag(type | ARRAY);
+        int length = Array.getLength(value);
+        writeVarLong(length);
+        for (int i = 0; i < length; i++) {
+            writeScalar(type, Array.get(value, i));
+        }
+    }
+
+    private void writeScalar(int type, Object value) throws IOException {
+
+        switch (type) {
+            case STRING:
+                writeString((String) value);
+                break;
+            case LONG:
+            case INT:
+            case SHORT:
+                writeSignedVarLong(((Number) value).longValue());
+                break;
+            case BYTE:
+                ensure(1);
+                buffer.put((Byte) value);
+                break;
+            case DOUBLE:
+                ensure(Double.BYTES);
+                buffer.putDouble((Double) value);
+                break;
+            case FLOAT:
+                ensure(Float.BYTES);
+                buffer.putFloat((Float) value);
+                break;
+            case BOOLEAN:
+                writeTag((Boolean) value ? 1 : 0);
+                break;
+            case CHAR:
+                writeVarLong((Character) value);
+                break;
+            case LOCAL_DATE_TIME:
+                writeLocalDateTime((LocalDateTime) value);
+                break;
+            case LOCAL_DATE:
+                writeSignedVarLong(((LocalDate) value).toEpochDay());
+                break;
+            case LOCAL_TIME:
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+                break;
+            default:
+                ZonedDateTime zoned = (ZonedDateTime) value;
+                writeSignedVarLong(zoned.toEpochSecond());
+                writeVarLong(zoned.getNano());
+                writeString(zoned.getZone().getId());
+        }
+    }
+
+    private void writeLocalDateTime(LocalDateTime date) throws IOException {
+        writeSignedVarLong(date.toEpochSecond(ZoneOffset.UTC));
+        writeVarLong(date.getNano());
+    }
+
+    private void writeName(String name) throws IOException {
+
+        Integer reference = names.get(name);
+        if (reference != null) {
+            writeVarLong(reference + 1L);
+        } else {
+            names.put(name, names.size());
+            writeVarLong(0);
+            writeString(name);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(data.length);
+        for (int offset = 0; offset < data.length; ) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), data.length - offset);
+            buffer.put(data, offset, length);
+            offset += length;
+        }
+    }
+
+    private void writeTag(int tag) throws IOException {
+        ensure(1);
+        buffer.put((byte) tag);
+    }
+
+    private void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) throws IOException {
+
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,152 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CsvHistoryReader class, it reads CSV files whose first line is the header.
+ * <p>
+ * Each header column can declare the type of its values, as in {@code name:type}, where type is one of
+ * {@code string} (the default one), {@code long}, {@code int}, {@code double}, {@code float} or {@code boolean};
+ * a type ending with {@code []} declares an array, whose values are separated by {@code ;}. Values can be quoted
+ * with {@code "}, doubling the quotes inside them, but they can't span many lines. Empty values are skipped.
+ */
+public class CsvHistoryReader extends LineHistoryReader {
+
+    private static final String ARRAY_SUFFIX = "[]";
+    private static final String ARRAY_SEPARATOR = ";";
+
+    private final char delimiter;
+    private String[] names;
+    private String[] types;
+
+    public CsvHistoryReader(BufferedReader reader, String keyColumn, String dateColumn, char delimiter) {
+        super(reader, keyColumn, dateColumn);
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    protected HistoryRow parse(String text, long line) {
+
+        List<String> values = split(text, line);
+        if (names == null) {
+            readHeader(values);
+            return null;
+        }
+        if (values.size() > names.length) {
+            throw new VersionerCoreException("The row at line " + line + " has more values than the header columns.");
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (!value.isEmpty()) {
+                fields.put(names[i], convert(value, types[i], line));
+            }
+        }
+        return toRow(fields, line);
+    }
+
+    private void readHeader(List<String> columns) {
+
+        names = new String[columns.size()];
+        types = new String[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            int separator = column.lastIndexOf(':');
+            names[i] = (separator < 0) ? column : column.substring(0, separator);
+            types[i] = (separator < 0) ? "string" : column.substring(separator + 1).toLowerCase();
+        }
+    }
+
+    private Object convert(String value, String type, long line) {
+
+        try {
+            if (type.endsWith(ARRAY_SUFFIX)) {
+                String elementType = type.substring(0, type.length() - ARRAY_SUFFIX.length());
+                String[] elements = value.split(ARRAY_SEPARATOR, -1);
+                switch (elementType) {
+                    case "long":
+                    case "int":
+                        long[] longs = new long[elements.length];
+                        for (int i = 0; i < elements.length; i++) {
+                            longs[i] = Long.parseLong(elements[i].trim());
+                        }
+                        return longs;
+                    case "double":
+                    case "float":
+                        double[] doubles = new double[elements.length];
+                        for (int i = 0; i < elements.length; i++) {
+                            doubles[i] = Double.parseDouble(elements[i].trim());
+                        }
+                        return doubles;
+                    case "boolean":
+                        boolean[] booleans = new boolean[elements.length];
+                        for (int i = 0; i < elements.length; i++) {
+                            booleans[i] = Boolean.parseBoolean(elements[i].trim());
+                        }
+                        return booleans;
+                    case "string":
+                        return elements;
+                    default:
+                        break;
+                }
+            } else {
+                switch (type) {
+                    case "long":
+                    case "int":
+                        return Long.parseLong(value.trim());
+                    case "double":
+                    case "float":
+                        return Double.parseDouble(value.trim());
+                    case "boolean":
+                        return Boolean.parseBoolean(value.trim());
+                    case "string":
+                        return value;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new VersionerCoreException("The value " + value + " at line " + line + " is not a valid " + type + ".");
+        }
+        throw new VersionerCoreException("The column type " + type + " is not valid, it must be one of string, long, int, double, float or boolean, optionally followed by [].");
+    }
+
+    private List<String> split(String text, long line) {
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new VersionerCoreException("The row at line " + line + " has an unterminated quoted value.");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
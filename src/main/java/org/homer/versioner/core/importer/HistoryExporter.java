@@ -0,0 +1,136 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.output.ExportOutput;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * HistoryExporter class, it writes the history of the Entities with a given label to a binary file, through a
+ * {@link BinaryHistoryWriter}, which can be imported again by a {@link HistoryImporter}.
+ * <p>
+ * The Entities are read by a label scan, optionally keeping only the ones in a range of ids, so that many exports of
+ * disjoint ranges can run in parallel. The scan order is not defined, so the whole label is scanned by each export. Each Entity is written with the value of its key property and its States in
+ * start date order, whose properties are always written whole; the destinations of their versioned relationships are
+ * identified by their first label and the value of the same key property. Only the States of a single Entity are held
+ * in memory at a time. Entities and relationship destinations without the key property are skipped.
+ */
+public class HistoryExporter {
+
+    private final Log log;
+    private final Label entityLabel;
+    private final String keyProperty;
+    private final long fromId;
+    private final long toId;
+
+    private long entities;
+    private long states;
+    private long relationships;
+
+    /**
+     * Constructor method
+     *
+     * @param log         the {@link Log} used to report the skipped Entities
+     * @param entityLabel the label of the Entities
+     * @param keyProperty the Entity property holding the key
+     * @param fromId      the first id of the Entities to export, inclusive
+     * @param toId        the last id of the Entities to export, exclusive
+     */
+    public HistoryExporter(Log log, String entityLabel, String keyProperty, long fromId, long toId) {
+        this.log = log;
+        this.entityLabel = Label.label(entityLabel);
+        this.keyProperty = keyProperty;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    /**
+     * Exports the Entities to the given file, which is overwritten
+     *
+     * @param transaction the {@link Transaction} used to read the Entities
+     * @param path        the {@link Path} of the file
+     * @return an {@link ExportOutput} with the totals of the export
+     */
+    public ExportOutput run(Transaction transaction, Path path) throws IOException {
+
+        long start = System.nanoTime();
+        long bytes;
+        try (BinaryHistoryWriter writer = new BinaryHistoryWriter(path);
+             ResourceIterator<Node> scan = transaction.findNodes(entityLabel)) {
+            while (scan.hasNext()) {
+                Node entity = scan.next();
+                if (entity.getId() >= fromId && entity.getId() < toId) {
+                    exportEntity(writer, entity);
+                }
+            }
+            bytes = writer.getBytes();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new ExportOutput(path.getFileName().toString(), entities, states, relationships, bytes, seconds, seconds > 0 ? states / seconds : 0d);
+    }
+
+    private void exportEntity(BinaryHistoryWriter writer, Node entity) throws IOException {
+
+        Object key = entity.getProperty(keyProperty, null);
+        if (key == null) {
+            log.warn(LOGGER_TAG + "Export of label {}, skipping the Entity with id {} without {}", entityLabel.name(), entity.getId(), keyProperty);
+            return;
+        }
+
+        List<Relationship> hasStates = streamOfIterable(entity.getRelationships(Direction.OUTGOING, HAS_STATE))
+                .filter(hasState -> hasState.hasProperty(START_DATE_PROP))
+                .sorted(Comparator.comparing((Relationship hasState) -> (LocalDateTime) hasState.getProperty(START_DATE_PROP))
+                        .thenComparing(hasState -> hasState.getEndNode().getId()))
+                .collect(Collectors.toList());
+        if (hasStates.isEmpty()) {
+            return;
+        }
+
+        writer.writeEntity(key, hasStates.size());
+        for (Relationship hasState : hasStates) {
+            Node state = hasState.getEndNode();
+            List<String> labels = streamOfIterable(state.getLabels())
+                    .filter(label -> !label.equals(STATE))
+                    .map(Label::name)
+                    .collect(Collectors.toList());
+            List<HistoryRelationship> stateRelationships = streamOfVersionedRelationships(state)
+                    .map(this::toHistoryRelationship)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            writer.writeState((LocalDateTime) hasState.getProperty(START_DATE_PROP), labels, StateDelta.getAllProperties(state), stateRelationships);
+            relationships += stateRelationships.size();
+        }
+        entities++;
+        states += hasStates.size();
+    }
+
+    private HistoryRelationship toHistoryRelationship(Relationship rel) {
+
+        Relationship forRel = rel.getEndNode().getSingleRelationship(FOR, Direction.OUTGOING);
+        Node destination = (forRel == null) ? null : forRel.getEndNode();
+        Object key = (destination == null) ? null : destination.getProperty(keyProperty, null);
+        Label label = (key == null) ? null : streamOfIterable(destination.getLabels()).findFirst().orElse(null);
+        if (label == null) {
+            log.warn(LOGGER_TAG + "Export of label {}, skipping a {} relationship to an Entity without {}", entityLabel.name(), rel.getType().name(), keyProperty);
+            return null;
+        }
+        return new HistoryRelationship(rel.getType().name(), label.name(), key, rel.getAllProperties());
+    }
+}
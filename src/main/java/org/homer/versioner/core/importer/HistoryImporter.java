@@ -0,0 +1,390 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.batch.BatchRunner;
+import org.homer.versioner.core.config.EntityConfig;
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.diff.StateDiff;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.feed.ChangeFeed;
+import org.homer.versioner.core.index.StateIndex;
+import org.homer.versioner.core.output.ImportOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.IndexType;
+import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.logging.Log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * HistoryImporter class, it builds the State chains of the Entities with a given label from a stream of
+ * {@link HistoryRow}s, each one being a version of the Entity identified by its key.
+ * <p>
+ * The rows are partitioned by Entity key among a fixed number of workers, so the rows of an Entity are always
+ * handled by the same worker, in the order they are read. Each worker groups its rows per Entity and, every
+ * {@code batchSize} Entities, builds their chains in a single transaction: a State is created for each row, with
+ * the HAS_STATE and PREVIOUS relationships dated as the rows, and the CURRENT relationship is moved only once, to
+ * the last State. An Entity is looked up by its key property and it is created, with its R node, if missing;
+ * otherwise, the new States are appended to its current one, following its options as the update procedure does:
+ * if skipUnchanged is enabled, a row without relationships with the same labels and properties of the State before it
+ * is skipped. The rows of each Entity must be in date order, and the key property of the Entity label must be indexed,
+ * otherwise the import fails before reading any row.
+ * <p>
+ * If the rows hold the versioned relationships of their States, they are read again once all the Entities exist,
+ * and the relationships of the State created for each row, found by the line of the row, are replaced with them, in
+ * batches of {@code batchSize} rows.
+ */
+public class HistoryImporter {
+
+    private static final HistoryRow END = new HistoryRow(null, null, null, -1);
+    private static final int QUEUE_SIZE = 10_000;
+    private static final int ROWS_PER_ENTITY_BATCH = 10;
+
+    private final GraphDatabaseService db;
+    private final Log log;
+    private final Label entityLabel;
+    private final String keyProperty;
+    private final Label[] stateLabels;
+    private final int batchSize;
+    private final int concurrency;
+
+    private final Set<String> indexedLabels = new HashSet<>();
+    // The ids of the States created for the rows holding relationships, by line
+    private final Map<Long, Long> statesByLine = new ConcurrentHashMap<>();
+    private long rows;
+    private long entities;
+    private long relationships;
+    private long batches;
+    private boolean withRelationships;
+
+    /**
+     * Constructor method
+     *
+     * @param db              the {@link GraphDatabaseService} used to open the batch transactions
+     * @param log             the {@link Log} used to report the progress
+     * @param entityLabel     the label of the Entities
+     * @param keyProperty     the Entity property holding the key of the rows
+     * @param additionalLabel the additional label of the new States, it can be null or empty
+     * @param batchSize       the number of Entities built in each transaction
+     * @param concurrency     the number of workers
+     */
+    public HistoryImporter(GraphDatabaseService db, Log log, String entityLabel, String keyProperty, String additionalLabel, int batchSize, int concurrency) {
+
+        if (batchSize < 1 || concurrency < 1) {
+            throw new VersionerCoreException("The batchSize and concurrency of the import must be at least 1.");
+        }
+        this.db = db;
+        this.log = log;
+        this.entityLabel = Label.label(entityLabel);
+        this.keyProperty = keyProperty;
+        this.stateLabels = asStateLabels(additionalLabel);
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Imports all the rows of the given source, returning once they have been committed
+     *
+     * @param source the {@link HistorySource} of the rows to import
+     * @return an {@link ImportOutput} with the totals of the import
+     */
+    public ImportOutput run(HistorySource source) {
+
+        long start = System.nanoTime();
+        checkKeyIndex(entityLabel);
+        try (HistoryReader reader = source.open()) {
+            importStates(reader);
+        } catch (IOException | UncheckedIOException e) {
+            throw new VersionerCoreException("Unable to read the import file: " + e.getMessage());
+        }
+
+        // The destinations of the relationships can be any of the imported Entities, so they are connected afterwards
+        if (withRelationships) {
+            try (HistoryReader reader = source.open()) {
+                importRelationships(reader);
+            } catch (IOException | UncheckedIOException e) {
+                throw new VersionerCoreException("Unable to read the import file: " + e.getMessage());
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(LOGGER_TAG + "Imported {} rows into {} new Entities with label {} in {} seconds", rows, entities, entityLabel.name(), seconds);
+        return new ImportOutput(rows, entities, relationships, batches, seconds, seconds > 0 ? rows / seconds : 0d);
+    }
+
+    private void importStates(Iterator<HistoryRow> source) {
+
+        BatchRunner runner = new BatchRunner(log, "Import of label " + entityLabel.name(), "versioner-import", concurrency);
+        List<BlockingQueue<HistoryRow>> queues = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            BlockingQueue<HistoryRow> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+            queues.add(queue);
+            runner.submit(() -> work(runner, queue));
+        }
+
+        try {
+            while (source.hasNext() && !runner.isFailed()) {
+                HistoryRow row = source.next();
+                withRelationships |= row.relationships != null;
+                put(runner, queues.get(Math.floorMod(row.key.hashCode(), concurrency)), row);
+            }
+        } catch (RuntimeException e) {
+            runner.fail(e);
+        } finally {
+            queues.forEach(queue -> put(runner, queue, END));
+            runner.await();
+        }
+    }
+
+    private void work(BatchRunner runner, BlockingQueue<HistoryRow> queue) {
+
+        Map<Object, List<HistoryRow>> pending = new LinkedHashMap<>();
+        int pendingRows = 0;
+        try {
+            for (HistoryRow row = queue.take(); row != END; row = queue.take()) {
+                // After a failure, the queue is still drained, so that the reader is never blocked
+                if (runner.isFailed()) {
+                    continue;
+                }
+                pending.computeIfAbsent(row.key, key -> new ArrayList<>()).add(row);
+                pendingRows++;
+                // Single Entities with long histories are split too, so that a batch never holds too many rows
+                if (pending.size() >= batchSize || pendingRows >= batchSize * ROWS_PER_ENTITY_BATCH) {
+                    flush(runner, pending, pendingRows);
+                    pending.clear();
+                    pendingRows = 0;
+                }
+            }
+            if (!pending.isEmpty()) {
+                flush(runner, pending, pendingRows);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runner.fail(new VersionerCoreException("The import has been interrupted."));
+        }
+    }
+
+    private void flush(BatchRunner runner, Map<Object, List<HistoryRow>> pending, int pendingRows) {
+
+        if (runner.isFailed()) {
+            return;
+        }
+        try {
+            long created = runner.withRetries("of " + pendingRows + " rows", () -> importBatch(pending));
+            completeBatch(pendingRows, created);
+        } catch (RuntimeException e) {
+            // The failure is kept instead of stopping the worker, which must go on draining its queue
+            runner.fail(e);
+        }
+    }
+
+    /**
+     * Builds the chains of the given Entities in a new transaction
+     *
+     * @param pending the rows to import, by Entity key
+     * @return the number of created Entities
+     */
+    private long importBatch(Map<Object, List<HistoryRow>> pending) {
+
+        long created = 0;
+        try (Transaction tx = db.beginTx()) {
+            for (Map.Entry<Object, List<HistoryRow>> entry : pending.entrySet()) {
+                Node entity = tx.findNode(entityLabel, keyProperty, entry.getKey());
+                if (entity == null) {
+                    entity = tx.createNode(entityLabel);
+                    entity.setProperty(keyProperty, entry.getKey());
+                    tx.createNode(R).createRelationshipTo(entity, FOR);
+                    appendStates(tx, entity, null, entry.getValue());
+                    created++;
+                } else {
+                    tx.acquireWriteLock(entity);
+                    appendStates(tx, entity, findCurrentRelationship(tx, entity), entry.getValue());
+                }
+            }
+            tx.commit();
+        }
+        return created;
+    }
+
+    private void appendStates(Transaction tx, Node entity, Relationship currentRel, List<HistoryRow> rows) {
+
+        Node previousState = null;
+        LocalDateTime previousDate = null;
+        if (currentRel != null) {
+            previousState = currentRel.getEndNode();
+            previousDate = (LocalDateTime) currentRel.getProperty(DATE_PROP);
+            currentRel.delete();
+        }
+        // The options and the relationships of a new Entity are the default empty ones
+        boolean existing = previousState != null;
+        boolean skipUnchanged = existing && EntityConfig.isSkipUnchanged(entity);
+
+        for (HistoryRow row : rows) {
+            if (previousDate != null && row.date.isBefore(previousDate)) {
+                throw new VersionerCoreException("The row at line " + row.line + " is older than the current State of the Entity " + row.key + ", the rows of each Entity must be in date order.");
+            }
+
+            Label[] labels = getStateLabels(row);
+            // The relationships of a row are only known once all the Entities exist, so such rows are always kept
+            if (skipUnchanged && row.relationships == null && isSameState(previousState, labels, row.props, true)) {
+                continue;
+            }
+
+            Node state = setProperties(tx.createNode(labels), row.props);
+            if (previousState != null) {
+                for (Relationship hasState : previousState.getRelationships(Direction.INCOMING, HAS_STATE)) {
+                    hasState.setProperty(END_DATE_PROP, row.date);
+                }
+                Relationship previousRel = state.createRelationshipTo(previousState, PREVIOUS);
+                previousRel.setProperty(DATE_PROP, previousDate);
+                if (existing) {
+                    StateDiff.store(entity, previousRel);
+                    StateDelta.encode(entity, previousRel);
+                    RelationshipSet.connect(entity, previousState, state);
+                }
+            }
+            Relationship hasState = entity.createRelationshipTo(state, HAS_STATE);
+            hasState.setProperty(START_DATE_PROP, row.date);
+            StateIndex.indexState(state, hasState);
+            ChangeFeed.record(tx, state, row.date);
+            if (row.relationships != null) {
+                statesByLine.put(row.line, state.getId());
+            }
+
+            previousState = state;
+            previousDate = row.date;
+        }
+
+        Relationship newCurrentRel = entity.createRelationshipTo(previousState, CURRENT);
+        newCurrentRel.setProperty(DATE_PROP, previousDate);
+    }
+
+    private void importRelationships(Iterator<HistoryRow> source) {
+
+        List<HistoryRow> batch = new ArrayList<>(batchSize);
+        while (source.hasNext()) {
+            HistoryRow row = source.next();
+            if (row.relationships != null) {
+                for (HistoryRelationship relationship : row.relationships) {
+                    checkKeyIndex(Label.label(relationship.label));
+                }
+                batch.add(row);
+            }
+            if (batch.size() == batchSize || (!source.hasNext() && !batch.isEmpty())) {
+                relationships += connectBatch(batch);
+                batch.clear();
+                log.info(LOGGER_TAG + "Import of label {}: {} relationships imported", entityLabel.name(), relationships);
+            }
+        }
+    }
+
+    /**
+     * Replaces the versioned relationships of the States of the given rows in a new transaction
+     *
+     * @param batch the rows holding the relationships
+     * @return the number of created relationships
+     */
+    private long connectBatch(List<HistoryRow> batch) {
+
+        long created = 0;
+        try (Transaction tx = db.beginTx()) {
+            for (HistoryRow row : batch) {
+                Long stateId = statesByLine.get(row.line);
+                if (stateId == null) {
+                    throw new VersionerCoreException("The State of the row " + row.line + " of the Entity " + row.key + " has not been imported.");
+                }
+                Node state = tx.getNodeById(stateId);
+                RelationshipSet.materialize(state);
+                streamOfVersionedRelationships(state).forEach(Relationship::delete);
+                for (HistoryRelationship relationship : row.relationships) {
+                    Node destination = tx.findNode(Label.label(relationship.label), keyProperty, relationship.key);
+                    Relationship forRel = (destination == null) ? null : destination.getSingleRelationship(FOR, Direction.INCOMING);
+                    if (forRel == null) {
+                        log.warn(LOGGER_TAG + "Import of label {}, skipping a {} relationship to the missing {} Entity {}", entityLabel.name(), relationship.type, relationship.label, relationship.key);
+                        continue;
+                    }
+                    Relationship rel = state.createRelationshipTo(forRel.getStartNode(), RelationshipType.withName(relationship.type));
+                    relationship.props.forEach(rel::setProperty);
+                    created++;
+                }
+            }
+            tx.commit();
+        }
+        return created;
+    }
+
+    private Label[] getStateLabels(HistoryRow row) {
+
+        if (row.labels == null) {
+            return stateLabels;
+        }
+        List<Label> labels = new ArrayList<>(row.labels.size() + 1);
+        labels.add(STATE);
+        row.labels.stream().map(Label::label).forEach(labels::add);
+        return labels.toArray(new Label[0]);
+    }
+
+    private synchronized void completeBatch(int batchRows, long created) {
+
+        rows += batchRows;
+        entities += created;
+        batches++;
+        log.info(LOGGER_TAG + "Import of label {}: {} rows imported, {} new Entities", entityLabel.name(), rows, entities);
+    }
+
+    private void put(BatchRunner runner, BlockingQueue<HistoryRow> queue, HistoryRow row) {
+
+        try {
+            // Workers always drain their queue, even after a failure, so this never blocks forever
+            queue.put(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            runner.fail(new VersionerCoreException("The import has been interrupted."));
+        }
+    }
+
+    /**
+     * Checks that the Entities with the given label can be looked up by their key through an online index
+     *
+     * @param label the label of the Entities
+     */
+    private void checkKeyIndex(Label label) {
+
+        if (indexedLabels.contains(label.name())) {
+            return;
+        }
+        try (Transaction tx = db.beginTx()) {
+            Schema schema = tx.schema();
+            for (IndexDefinition index : schema.getIndexes(label)) {
+                if (index.getIndexType() == IndexType.BTREE && !index.isCompositeIndex() && !index.isMultiTokenIndex()
+                        && keyProperty.equals(index.getPropertyKeys().iterator().next())
+                        && schema.getIndexState(index) == Schema.IndexState.ONLINE) {
+                    indexedLabels.add(label.name());
+                    return;
+                }
+            }
+        }
+        throw new VersionerCoreException("The import needs an online index on the " + keyProperty + " property of the " + label.name() + " nodes, it must be created before importing.");
+    }
+}
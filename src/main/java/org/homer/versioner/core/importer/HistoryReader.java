@@ -0,0 +1,50 @@
+package org.homer.versioner.core.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * HistoryReader class, it streams the {@link HistoryRow}s of an import file, reading them one at a time.
+ * Subclasses read the rows of a specific format.
+ */
+public abstract class HistoryReader implements Iterator<HistoryRow>, Closeable {
+
+    private HistoryRow next;
+    private boolean finished;
+
+    @Override
+    public boolean hasNext() {
+
+        if (next == null && !finished) {
+            try {
+                next = readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public HistoryRow next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        HistoryRow row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * Reads the next row of the file
+     *
+     * @return the {@link HistoryRow}, or null if the file is over
+     * @throws IOException if the file can't be read
+     */
+    protected abstract HistoryRow readRow() throws IOException;
+}
@@ -0,0 +1,22 @@
+package org.homer.versioner.core.importer;
+
+import java.util.Map;
+
+/**
+ * HistoryRelationship class, a versioned relationship of a State read from an import file, whose destination
+ * Entity is identified by its label and key
+ */
+public class HistoryRelationship {
+
+    public final String type;
+    public final String label;
+    public final Object key;
+    public final Map<String, Object> props;
+
+    public HistoryRelationship(String type, String label, Object key, Map<String, Object> props) {
+        this.type = type;
+        this.label = label;
+        this.key = key;
+        this.props = props;
+    }
+}
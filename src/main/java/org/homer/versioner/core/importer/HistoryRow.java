@@ -0,0 +1,33 @@
+package org.homer.versioner.core.importer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HistoryRow class, a single version of an Entity read from an import file
+ */
+public class HistoryRow {
+
+    public final Object key;
+    public final LocalDateTime date;
+    public final Map<String, Object> props;
+    public final long line;
+
+    // The labels and the versioned relationships of the State, if the file holds them
+    public final List<String> labels;
+    public final List<HistoryRelationship> relationships;
+
+    public HistoryRow(Object key, LocalDateTime date, Map<String, Object> props, long line) {
+        this(key, date, props, line, null, null);
+    }
+
+    public HistoryRow(Object key, LocalDateTime date, Map<String, Object> props, long line, List<String> labels, List<HistoryRelationship> relationships) {
+        this.key = key;
+        this.date = date;
+        this.props = props;
+        this.line = line;
+        this.labels = labels;
+        this.relationships = relationships;
+    }
+}
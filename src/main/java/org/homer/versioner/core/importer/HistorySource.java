@@ -0,0 +1,12 @@
+package org.homer.versioner.core.importer;
+
+import java.io.IOException;
+
+/**
+ * HistorySource interface, it opens a new {@link HistoryReader} on an import file, each time it is read
+ */
+@FunctionalInterface
+public interface HistorySource {
+
+    HistoryReader open() throws IOException;
+}
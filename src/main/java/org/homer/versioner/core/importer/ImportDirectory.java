@@ -0,0 +1,38 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.nio.file.Path;
+
+/**
+ * ImportDirectory class, it resolves the paths of the files read and written by the Procedures
+ */
+public class ImportDirectory {
+
+    private ImportDirectory() {
+    }
+
+    /**
+     * Resolves the given file against the import directory of the database, if any, checking that it doesn't leave it
+     *
+     * @param db   the {@link GraphDatabaseService} whose configuration holds the import directory
+     * @param file the path of the file
+     * @return the resolved {@link Path}
+     */
+    public static Path resolve(GraphDatabaseService db, String file) {
+
+        Path root = ((GraphDatabaseAPI) db).getDependencyResolver().resolveDependency(Config.class).get(GraphDatabaseSettings.load_csv_file_url_root);
+        if (root == null) {
+            return Path.of(file);
+        }
+        Path path = root.resolve(file.startsWith("/") ? file.substring(1) : file).normalize();
+        if (!path.startsWith(root.normalize())) {
+            throw new VersionerCoreException("The file " + file + " is outside the import directory.");
+        }
+        return path;
+    }
+}
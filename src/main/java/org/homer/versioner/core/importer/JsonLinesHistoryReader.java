@@ -0,0 +1,69 @@
+package org.homer.versioner.core.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.homer.versioner.core.exception.VersionerCoreException;
+
+import java.io.BufferedReader;
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JsonLinesHistoryReader class, it reads JSON Lines files, where each line is a flat JSON object.
+ * <p>
+ * Numbers, strings and booleans are kept as they are, while lists become arrays of the type of their first element.
+ * Nested objects are not supported, and null values are skipped.
+ */
+public class JsonLinesHistoryReader extends LineHistoryReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public JsonLinesHistoryReader(BufferedReader reader, String keyColumn, String dateColumn) {
+        super(reader, keyColumn, dateColumn);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected HistoryRow parse(String text, long line) {
+
+        Map<String, Object> fields;
+        try {
+            fields = MAPPER.readValue(text, Map.class);
+        } catch (JsonProcessingException | ClassCastException e) {
+            throw new VersionerCoreException("The row at line " + line + " is not a valid JSON object.");
+        }
+
+        fields.values().removeIf(value -> value == null);
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            field.setValue(convert(field.getKey(), field.getValue(), line));
+        }
+        return toRow(fields, line);
+    }
+
+    private static Object convert(String key, Object value, long line) {
+
+        if (value instanceof Map) {
+            throw new VersionerCoreException("The value of " + key + " at line " + line + " is an object, which can't be a property.");
+        }
+        if (!(value instanceof List)) {
+            return value;
+        }
+
+        List<?> list = (List<?>) value;
+        Class<?> type = list.isEmpty() ? String.class : list.get(0).getClass();
+        if (type == Integer.class) {
+            type = Long.class;
+        }
+        Object array = Array.newInstance(type, list.size());
+        try {
+            for (int i = 0; i < list.size(); i++) {
+                Object element = list.get(i);
+                Array.set(array, i, (element instanceof Integer && type == Long.class) ? Long.valueOf((Integer) element) : element);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new VersionerCoreException("The list " + key + " at line " + line + " has elements of different types.");
+        }
+        return array;
+    }
+}
@@ -0,0 +1,94 @@
+package org.homer.versioner.core.importer;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * LineHistoryReader class, it streams the {@link HistoryRow}s of a text import file, one row per line.
+ * Subclasses parse the lines of a specific format.
+ */
+public abstract class LineHistoryReader extends HistoryReader {
+
+    protected final String keyColumn;
+    protected final String dateColumn;
+
+    private final BufferedReader reader;
+    private long line;
+
+    protected LineHistoryReader(BufferedReader reader, String keyColumn, String dateColumn) {
+        this.reader = reader;
+        this.keyColumn = keyColumn;
+        this.dateColumn = dateColumn;
+    }
+
+    @Override
+    protected HistoryRow readRow() throws IOException {
+
+        HistoryRow row = null;
+        while (row == null) {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            if (!text.trim().isEmpty()) {
+                row = parse(text, line);
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Parses a non blank line of the file
+     *
+     * @param text the line
+     * @param line the 1-based line number
+     * @return the {@link HistoryRow}, or null if the line holds no row
+     */
+    protected abstract HistoryRow parse(String text, long line);
+
+    /**
+     * Builds a row, taking its key and date out of the given fields
+     *
+     * @param fields all the fields of the row
+     * @param line   the 1-based line number
+     * @return the {@link HistoryRow}
+     */
+    protected HistoryRow toRow(Map<String, Object> fields, long line) {
+
+        Object key = fields.remove(keyColumn);
+        Object date = fields.remove(dateColumn);
+        if (key == null || date == null) {
+            throw new VersionerCoreException("The row at line " + line + " has no " + keyColumn + " or " + dateColumn + ".");
+        }
+        // Integral keys are always compared as longs
+        if (key instanceof Integer) {
+            key = ((Integer) key).longValue();
+        }
+        return new HistoryRow(key, parseDate(date, line), fields, line);
+    }
+
+    private static LocalDateTime parseDate(Object date, long line) {
+
+        if (date instanceof LocalDateTime) {
+            return (LocalDateTime) date;
+        }
+        String text = date.toString();
+        try {
+            return text.contains("T") ? LocalDateTime.parse(text) : LocalDate.parse(text).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new VersionerCoreException("The date " + text + " at line " + line + " is not a valid ISO local date time.");
+        }
+    }
+}
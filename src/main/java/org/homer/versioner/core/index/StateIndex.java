@@ -0,0 +1,253 @@
+package org.homer.versioner.core.index;
+
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.output.IndexOutput;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * StateIndex class, it maintains and navigates the skip index laid over the PREVIOUS chain of an Entity.
+ * <p>
+ * Every indexed State stores its 1-based position in the chain as the {@code ordinal} property of its HAS_STATE
+ * relationship. A State with ordinal {@code k} also owns a {@code SKIP} relationship towards the State with ordinal
+ * {@code k - 2^i}, for every {@code i >= 1} such that {@code 2^i} divides {@code k}. Each SKIP relationship stores
+ * the jumped {@code distance} and the start {@code date} of its target, so that the index can be navigated without
+ * reading the target nodes. On average, each State owns one SKIP relationship.
+ */
+public class StateIndex {
+
+    private StateIndex() {
+    }
+
+    /**
+     * Indexes a new current State, by extending the index of its previous one.
+     * The State will be left unindexed if its previous State is not indexed.
+     *
+     * @param state    a {@link Node} representing the new current State
+     * @param hasState the {@link Relationship} HAS_STATE of the new current State
+     */
+    public static void indexState(Node state, Relationship hasState) {
+
+        Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+        if (previousRel == null) {
+            hasState.setProperty(ORDINAL_PROP, 1L);
+            return;
+        }
+
+        Relationship previousHasState = previousRel.getEndNode().getSingleRelationship(HAS_STATE, Direction.INCOMING);
+        if (previousHasState == null || !previousHasState.hasProperty(ORDINAL_PROP)) {
+            return;
+        }
+
+        long ordinal = (long) previousHasState.getProperty(ORDINAL_PROP) + 1;
+        hasState.setProperty(ORDINAL_PROP, ordinal);
+
+        // The target at distance 2d is reached jumping by d from the target at distance d
+        Relationship jump = previousRel;
+        for (long distance = 2; ordinal % distance == 0 && ordinal - distance >= 1; distance *= 2) {
+            jump = getJump(jump.getEndNode(), distance / 2);
+            if (jump == null) {
+                return;
+            }
+            Relationship skip = state.createRelationshipTo(jump.getEndNode(), SKIP);
+            skip.setProperty(DISTANCE_PROP, distance);
+            skip.setProperty(DATE_PROP, jump.getProperty(DATE_PROP));
+        }
+    }
+
+    /**
+     * Finds the State valid at the given date for the given Entity, which is the State whose HAS_STATE relationship
+     * satisfies {@code startDate <= date < endDate}. On indexed chains it takes a logarithmic number of hops,
+     * otherwise it walks the PREVIOUS chain starting from the current State.
+     *
+     * @param transaction the {@link Transaction} the Entity belongs to
+     * @param entity      a {@link Node} representing the Entity
+     * @param date        the {@link LocalDateTime} to look for
+     * @return an {@link Optional} containing the State valid at the given date
+     */
+    public static Optional<Node> findStateAt(Transaction transaction, Node entity, LocalDateTime date) {
+
+        if (date == null) {
+            throw new VersionerCoreException("The date to look for the State of the Entity with id " + entity.getId() + " is mandatory.");
+        }
+
+        Relationship currentRel = findCurrentRelationship(transaction, entity);
+        if (currentRel == null) {
+            return Optional.empty();
+        }
+
+        Node state = currentRel.getEndNode();
+        if (!isAfter(currentRel, date)) {
+            return Optional.of(state);
+        }
+
+        // Invariant: the start date of state is after the given date
+        while (true) {
+            Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+            if (previousRel == null) {
+                return Optional.empty();
+            }
+            if (!isAfter(previousRel, date)) {
+                return Optional.of(previousRel.getEndNode());
+            }
+
+            Relationship farthest = previousRel;
+            long farthestDistance = 1;
+            for (Relationship skip : state.getRelationships(Direction.OUTGOING, SKIP)) {
+                long distance = (long) skip.getProperty(DISTANCE_PROP);
+                if (distance > farthestDistance && isAfter(skip, date)) {
+                    farthest = skip;
+                    farthestDistance = distance;
+                }
+            }
+            state = farthest.getEndNode();
+        }
+    }
+
+    /**
+     * Finds the nth State before the given one, which is reached following nth PREVIOUS relationships.
+     * On indexed chains it takes a logarithmic number of hops, otherwise it walks the PREVIOUS chain.
+     *
+     * @param state a {@link Node} representing the starting State
+     * @param nth   the number of States to go back
+     * @return an {@link Optional} containing the nth previous State, if the chain is long enough
+     */
+    public static Optional<Node> findNthState(Node state, long nth) {
+
+        long remaining = nth;
+        while (remaining > 0) {
+            Relationship farthest = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+            if (farthest == null) {
+                return Optional.empty();
+            }
+
+            long farthestDistance = 1;
+            for (Relationship skip : state.getRelationships(Direction.OUTGOING, SKIP)) {
+                long distance = (long) skip.getProperty(DISTANCE_PROP);
+                if (distance > farthestDistance && distance <= remaining) {
+                    farthest = skip;
+                    farthestDistance = distance;
+                }
+            }
+            state = farthest.getEndNode();
+            remaining -= farthestDistance;
+        }
+        return Optional.of(state);
+    }
+
+    /**
+     * Finds the State of the given Entity with the given ordinal, which is its 1-based position in the chain.
+     * The current State must be indexed.
+     *
+     * @param transaction the {@link Transaction} the Entity belongs to
+     * @param entity      a {@link Node} representing the Entity
+     * @param ordinal     the ordinal of the State
+     * @return an {@link Optional} containing the State with the given ordinal, if any
+     */
+    public static Optional<Node> findStateByOrdinal(Transaction transaction, Node entity, long ordinal) {
+
+        Relationship currentRel = findCurrentRelationship(transaction, entity);
+        if (currentRel == null) {
+            return Optional.empty();
+        }
+        Node current = currentRel.getEndNode();
+        Relationship hasState = current.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+        if (hasState == null || !hasState.hasProperty(ORDINAL_PROP)) {
+            throw new VersionerCoreException("The States of the Entity with id " + entity.getId() + " are not indexed, rebuild its index first.");
+        }
+        long currentOrdinal = (long) hasState.getProperty(ORDINAL_PROP);
+        if (ordinal < 1 || ordinal > currentOrdinal) {
+            return Optional.empty();
+        }
+        return findNthState(current, currentOrdinal - ordinal);
+    }
+
+    /**
+     * (Re)builds the index of the given Entity, replacing any existing SKIP relationship and ordinal.
+     * It is used to upgrade the Entities created before the index was available.
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @return an {@link IndexOutput} with the number of indexed States and created SKIP relationships
+     */
+    public static IndexOutput rebuildIndex(Node entity) {
+
+        Relationship currentRel = entity.getSingleRelationship(CURRENT, Direction.OUTGOING);
+        if (currentRel == null) {
+            return new IndexOutput(entity, 0L, 0L);
+        }
+
+        // Collecting the chain, from the current State back to the first one, with the start date of each State
+        List<Node> states = new ArrayList<>();
+        List<Object> startDates = new ArrayList<>();
+        Node state = currentRel.getEndNode();
+        Object startDate = currentRel.getProperty(DATE_PROP, null);
+        while (state != null) {
+            states.add(state);
+            startDates.add(startDate);
+            Relationship previousRel = state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+            state = (previousRel == null) ? null : previousRel.getEndNode();
+            startDate = (previousRel == null) ? null : previousRel.getProperty(DATE_PROP, null);
+        }
+        Collections.reverse(states);
+        Collections.reverse(startDates);
+
+        long skips = 0;
+        for (int i = 0; i < states.size(); i++) {
+            Node indexed = states.get(i);
+            long ordinal = i + 1;
+
+            indexed.getRelationships(Direction.OUTGOING, SKIP).forEach(Relationship::delete);
+            Relationship hasState = indexed.getSingleRelationship(HAS_STATE, Direction.INCOMING);
+            if (hasState != null) {
+                hasState.setProperty(ORDINAL_PROP, ordinal);
+            }
+
+            for (long distance = 2; ordinal % distance == 0 && ordinal - distance >= 1; distance *= 2) {
+                int target = (int) (ordinal - distance) - 1;
+                if (startDates.get(target) == null) {
+                    continue;
+                }
+                Relationship skip = indexed.createRelationshipTo(states.get(target), SKIP);
+                skip.setProperty(DISTANCE_PROP, distance);
+                skip.setProperty(DATE_PROP, startDates.get(target));
+                skips++;
+            }
+        }
+        return new IndexOutput(entity, (long) states.size(), skips);
+    }
+
+    /**
+     * Returns the jump of the given distance starting from the given State, if any
+     *
+     * @param state    a {@link Node} representing the starting State
+     * @param distance the distance to jump
+     * @return the PREVIOUS or SKIP {@link Relationship} covering the given distance, or null
+     */
+    private static Relationship getJump(Node state, long distance) {
+
+        if (distance == 1) {
+            return state.getSingleRelationship(PREVIOUS, Direction.OUTGOING);
+        }
+        for (Relationship skip : state.getRelationships(Direction.OUTGOING, SKIP)) {
+            if ((long) skip.getProperty(DISTANCE_PROP) == distance) {
+                return skip;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAfter(Relationship jump, LocalDateTime date) {
+
+        return ((LocalDateTime) jump.getProperty(DATE_PROP)).isAfter(date);
+    }
+}
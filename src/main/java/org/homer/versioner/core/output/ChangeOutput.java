@@ -0,0 +1,33 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class ChangeOutput {
+    public Long seq;
+
+    public Node entity;
+
+    public Node state;
+
+    public Node previousState;
+
+    public LocalDateTime date;
+
+    public List<Map<String, Object>> diff;
+
+    public String watermark;
+
+    public ChangeOutput(Long seq, Node entity, Node state, Node previousState, LocalDateTime date, List<Map<String, Object>> diff, String watermark) {
+        this.seq = seq;
+        this.entity = entity;
+        this.state = state;
+        this.previousState = previousState;
+        this.date = date;
+        this.diff = diff;
+        this.watermark = watermark;
+    }
+}
@@ -0,0 +1,27 @@
+package org.homer.versioner.core.output;
+
+public class CompactJobOutput {
+    public String name;
+
+    public Long entities;
+
+    public Long nodes;
+
+    public Long relationships;
+
+    public Long batches;
+
+    public Double seconds;
+
+    public Double throughput;
+
+    public CompactJobOutput(String name, Long entities, Long nodes, Long relationships, Long batches, Double seconds, Double throughput) {
+        this.name = name;
+        this.entities = entities;
+        this.nodes = nodes;
+        this.relationships = relationships;
+        this.batches = batches;
+        this.seconds = seconds;
+        this.throughput = throughput;
+    }
+}
@@ -0,0 +1,20 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+public class CompactOutput {
+    public Node entity;
+
+    public Long states;
+
+    public Long nodes;
+
+    public Long relationships;
+
+    public CompactOutput(Node entity, Long states, Long nodes, Long relationships) {
+        this.entity = entity;
+        this.states = states;
+        this.nodes = nodes;
+        this.relationships = relationships;
+    }
+}
@@ -0,0 +1,16 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.util.Map;
+
+public class ConfigOutput {
+    public Node entity;
+
+    public Map<String, Object> options;
+
+    public ConfigOutput(Node entity, Map<String, Object> options) {
+        this.entity = entity;
+        this.options = options;
+    }
+}
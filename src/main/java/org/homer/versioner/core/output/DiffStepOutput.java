@@ -0,0 +1,24 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class DiffStepOutput {
+    public Node state;
+
+    public Node previousState;
+
+    public LocalDateTime date;
+
+    public List<Map<String, Object>> diff;
+
+    public DiffStepOutput(Node state, Node previousState, LocalDateTime date, List<Map<String, Object>> diff) {
+        this.state = state;
+        this.previousState = previousState;
+        this.date = date;
+        this.diff = diff;
+    }
+}
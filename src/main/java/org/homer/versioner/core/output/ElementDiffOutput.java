@@ -0,0 +1,21 @@
+package org.homer.versioner.core.output;
+
+public class ElementDiffOutput {
+	public String operation;
+
+	public String label;
+
+	public Long index;
+
+	public Object oldValue;
+
+	public Object newValue;
+
+	public ElementDiffOutput(String operation, String label, Long index, Object oldValue, Object newValue) {
+		this.operation = operation;
+		this.label = label;
+		this.index = index;
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+	}
+}
@@ -0,0 +1,14 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+public class EntityIdOutput {
+    public Node entity;
+
+    public Long id;
+
+    public EntityIdOutput(Node entity, Long id) {
+        this.entity = entity;
+        this.id = id;
+    }
+}
@@ -0,0 +1,14 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+public class EntityStateOutput {
+    public Node entity;
+
+    public Node state;
+
+    public EntityStateOutput(Node entity, Node state) {
+        this.entity = entity;
+        this.state = state;
+    }
+}
@@ -0,0 +1,19 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.util.Map;
+
+public class EntityStatePropertiesOutput {
+    public Node entity;
+
+    public Node state;
+
+    public Map<String, Object> properties;
+
+    public EntityStatePropertiesOutput(Node entity, Node state, Map<String, Object> properties) {
+        this.entity = entity;
+        this.state = state;
+        this.properties = properties;
+    }
+}
@@ -0,0 +1,27 @@
+package org.homer.versioner.core.output;
+
+public class ExportOutput {
+    public String file;
+
+    public Long entities;
+
+    public Long states;
+
+    public Long relationships;
+
+    public Long bytes;
+
+    public Double seconds;
+
+    public Double throughput;
+
+    public ExportOutput(String file, Long entities, Long states, Long relationships, Long bytes, Double seconds, Double throughput) {
+        this.file = file;
+        this.entities = entities;
+        this.states = states;
+        this.relationships = relationships;
+        this.bytes = bytes;
+        this.seconds = seconds;
+        this.throughput = throughput;
+    }
+}
@@ -0,0 +1,26 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class HistoryOutput {
+    public Node state;
+
+    public Map<String, Object> properties;
+
+    public LocalDateTime startDate;
+
+    public LocalDateTime endDate;
+
+    public String cursor;
+
+    public HistoryOutput(Node state, Map<String, Object> properties, LocalDateTime startDate, LocalDateTime endDate, String cursor) {
+        this.state = state;
+        this.properties = properties;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.cursor = cursor;
+    }
+}
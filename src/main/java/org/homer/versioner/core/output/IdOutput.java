@@ -0,0 +1,9 @@
+package org.homer.versioner.core.output;
+
+public class IdOutput {
+    public Long id;
+
+    public IdOutput(Long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,24 @@
+package org.homer.versioner.core.output;
+
+public class ImportOutput {
+    public Long rows;
+
+    public Long entities;
+
+    public Long relationships;
+
+    public Long batches;
+
+    public Double seconds;
+
+    public Double throughput;
+
+    public ImportOutput(Long rows, Long entities, Long relationships, Long batches, Double seconds, Double throughput) {
+        this.rows = rows;
+        this.entities = entities;
+        this.relationships = relationships;
+        this.batches = batches;
+        this.seconds = seconds;
+        this.throughput = throughput;
+    }
+}
@@ -0,0 +1,17 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+public class IndexOutput {
+    public Node entity;
+
+    public Long states;
+
+    public Long skips;
+
+    public IndexOutput(Node entity, Long states, Long skips) {
+        this.entity = entity;
+        this.states = states;
+        this.skips = skips;
+    }
+}
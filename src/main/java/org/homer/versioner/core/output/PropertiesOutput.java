@@ -0,0 +1,11 @@
+package org.homer.versioner.core.output;
+
+import java.util.Map;
+
+public class PropertiesOutput {
+    public Map<String, Object> properties;
+
+    public PropertiesOutput(Map<String, Object> properties) {
+        this.properties = properties;
+    }
+}
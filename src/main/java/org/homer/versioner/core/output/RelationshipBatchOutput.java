@@ -0,0 +1,20 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+public class RelationshipBatchOutput {
+    public Node entity;
+
+    public Node state;
+
+    public Long created;
+
+    public Long deleted;
+
+    public RelationshipBatchOutput(Node entity, Node state, Long created, Long deleted) {
+        this.entity = entity;
+        this.state = state;
+        this.created = created;
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,25 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.util.Map;
+
+public class RelationshipDiffOutput {
+	public String operation;
+
+	public String type;
+
+	public Node entity;
+
+	public Map<String, Object> oldProperties;
+
+	public Map<String, Object> newProperties;
+
+	public RelationshipDiffOutput(String operation, String type, Node entity, Map<String, Object> oldProperties, Map<String, Object> newProperties) {
+		this.operation = operation;
+		this.type = type;
+		this.entity = entity;
+		this.oldProperties = oldProperties;
+		this.newProperties = newProperties;
+	}
+}
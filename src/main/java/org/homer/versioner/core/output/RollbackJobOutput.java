@@ -0,0 +1,24 @@
+package org.homer.versioner.core.output;
+
+public class RollbackJobOutput {
+    public Long entities;
+
+    public Long rolledBack;
+
+    public Long skipped;
+
+    public Long batches;
+
+    public Double seconds;
+
+    public Double throughput;
+
+    public RollbackJobOutput(Long entities, Long rolledBack, Long skipped, Long batches, Double seconds, Double throughput) {
+        this.entities = entities;
+        this.rolledBack = rolledBack;
+        this.skipped = skipped;
+        this.batches = batches;
+        this.seconds = seconds;
+        this.throughput = throughput;
+    }
+}
@@ -0,0 +1,24 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.List;
+import java.util.Map;
+
+public class SnapshotOutput {
+    public Node entity;
+
+    public Node state;
+
+    public Map<String, Object> properties;
+
+    public List<Relationship> relationships;
+
+    public SnapshotOutput(Node entity, Node state, Map<String, Object> properties, List<Relationship> relationships) {
+        this.entity = entity;
+        this.state = state;
+        this.properties = properties;
+        this.relationships = relationships;
+    }
+}
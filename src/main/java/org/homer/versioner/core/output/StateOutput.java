@@ -0,0 +1,16 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Node;
+
+import java.util.Map;
+
+public class StateOutput {
+    public Node node;
+
+    public Map<String, Object> properties;
+
+    public StateOutput(Node node, Map<String, Object> properties) {
+        this.node = node;
+        this.properties = properties;
+    }
+}
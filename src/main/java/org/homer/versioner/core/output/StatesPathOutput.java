@@ -0,0 +1,17 @@
+package org.homer.versioner.core.output;
+
+import org.neo4j.graphdb.Path;
+
+import java.util.List;
+import java.util.Map;
+
+public class StatesPathOutput {
+    public Path path;
+
+    public List<Map<String, Object>> properties;
+
+    public StatesPathOutput(Path path, List<Map<String, Object>> properties) {
+        this.path = path;
+        this.properties = properties;
+    }
+}
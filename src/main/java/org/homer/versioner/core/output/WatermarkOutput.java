@@ -0,0 +1,9 @@
+package org.homer.versioner.core.output;
+
+public class WatermarkOutput {
+    public String watermark;
+
+    public WatermarkOutput(String watermark) {
+        this.watermark = watermark;
+    }
+}
@@ -0,0 +1,74 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.diff.StateDiff;
+import org.homer.versioner.core.feed.ChangeFeed;
+import org.homer.versioner.core.output.ChangeOutput;
+import org.homer.versioner.core.output.WatermarkOutput;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.*;
+import static org.neo4j.procedure.Mode.READ;
+import static org.neo4j.procedure.Mode.WRITE;
+
+/**
+ * Changes class, it contains all the Procedures needed to read the new States in the order of the change feed
+ */
+public class Changes extends CoreProcedure {
+
+    @Procedure(value = "graph.versioner.changes.enable", mode = WRITE)
+    @Description("graph.versioner.changes.enable() - Start recording every new State in the change feed, returning the watermark of its last change.")
+    public Stream<WatermarkOutput> enable() {
+
+        ChangeFeed.enable(transaction);
+
+        log.info(LOGGER_TAG + "Change feed enabled");
+
+        return Stream.of(new WatermarkOutput(ChangeFeed.getLastWatermark(transaction)));
+    }
+
+    @Procedure(value = "graph.versioner.changes.since", mode = READ)
+    @Description("graph.versioner.changes.since(watermark, limit, withDiff) - Stream a page of the new States recorded in the change feed after the given watermark, in feed order, optionally with their diff from the previous State.")
+    public Stream<ChangeOutput> since(
+            @Name(value = "watermark", defaultValue = "") String watermark,
+            @Name(value = "limit", defaultValue = "100") long limit,
+            @Name(value = "withDiff", defaultValue = "false") boolean withDiff) {
+
+        Node firstChange = ChangeFeed.getNextChange(transaction, watermark).orElse(null);
+
+        return Stream.iterate(firstChange, Objects::nonNull, change -> ChangeFeed.getNextChange(change).orElse(null))
+                .limit(Math.max(limit, 0))
+                .map(change -> toOutput(change, withDiff));
+    }
+
+    private ChangeOutput toOutput(Node change, boolean withDiff) {
+
+        // The State can have been deleted by a compaction after the change
+        Node state = Optional.ofNullable(change.getSingleRelationship(ChangeFeed.CHANGED, Direction.OUTGOING))
+                .map(Relationship::getEndNode)
+                .orElse(null);
+        Node entity = Optional.ofNullable(state)
+                .map(s -> s.getSingleRelationship(HAS_STATE, Direction.INCOMING))
+                .map(Relationship::getStartNode)
+                .orElse(null);
+        Node previousState = Optional.ofNullable(state)
+                .map(s -> s.getSingleRelationship(PREVIOUS, Direction.OUTGOING))
+                .map(Relationship::getEndNode)
+                .orElse(null);
+
+        return new ChangeOutput((Long) change.getProperty(ChangeFeed.SEQ_PROP), entity, state, previousState,
+                (LocalDateTime) change.getProperty(DATE_PROP),
+                (withDiff && state != null) ? StateDiff.asMaps(StateDiff.fromPrevious(state)) : null,
+                ChangeFeed.encodeWatermark(change));
+    }
+}
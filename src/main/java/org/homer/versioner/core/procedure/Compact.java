@@ -0,0 +1,56 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.compact.CompactionJob;
+import org.homer.versioner.core.compact.StateCompactor;
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.output.CompactJobOutput;
+import org.homer.versioner.core.output.CompactOutput;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * Compact class, it contains all the Procedures needed to shorten the history of Entities
+ */
+public class Compact extends CoreProcedure {
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Procedure(value = "graph.versioner.compact", mode = Mode.WRITE)
+    @Description("graph.versioner.compact(entity, {keepLast, olderThan, granularity}) - Delete, or merge by the given granularity, the old States of the given Entity, keeping the chain consistent. The options must have keepLast, olderThan or both; keepLast defaults to 1 when only olderThan is given.")
+    public Stream<CompactOutput> compact(
+            @Name("entity") Node entity,
+            @Name("options") Map<String, Object> options) {
+
+        transaction.acquireWriteLock(entity);
+        CompactOutput result = StateCompactor.compact(entity, options);
+
+        log.info(LOGGER_TAG + "Compacted Entity with id {}, keeping {} States and reclaiming {} nodes and {} relationships", entity.getId(), result.states, result.nodes, result.relationships);
+
+        return Stream.of(result);
+    }
+
+    @Procedure(value = "graph.versioner.compact.all", mode = Mode.WRITE)
+    @Description("graph.versioner.compact.all(entityLabel, {keepLast, olderThan, granularity}, {name, batchSize, concurrency}) - Compact all the Entities with the given label, in parallel batches committed separately, resuming from the last checkpoint of the job. The options must have keepLast, olderThan or both; keepLast defaults to 1 when only olderThan is given.")
+    public Stream<CompactJobOutput> compactAll(
+            @Name("entityLabel") String entityLabel,
+            @Name("options") Map<String, Object> options,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        CompactJobOutput result = new CompactionJob(db, log, entityLabel, options, config).run(transaction);
+
+        log.info(LOGGER_TAG + "Compacted {} Entities with label {}, reclaiming {} nodes and {} relationships", result.entities, entityLabel, result.nodes, result.relationships);
+
+        return Stream.of(result);
+    }
+}
@@ -0,0 +1,42 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.config.EntityConfig;
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.output.ConfigOutput;
+import org.neo4j.graphdb.Node;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * ConfigProcedure class, it contains all the Procedures needed to read and change the storage options of Entities
+ */
+public class ConfigProcedure extends CoreProcedure {
+
+    @Procedure(value = "graph.versioner.config.get", mode = Mode.READ)
+    @Description("graph.versioner.config.get(entity) - Get the storage options of the given Entity.")
+    public Stream<ConfigOutput> get(
+            @Name("entity") Node entity) {
+
+        return Stream.of(new ConfigOutput(entity, EntityConfig.getOptions(entity)));
+    }
+
+    @Procedure(value = "graph.versioner.config.set", mode = Mode.WRITE)
+    @Description("graph.versioner.config.set(entity, {key:value,...}) - Set the given storage options of the given Entity, a null value restores the default one.")
+    public Stream<ConfigOutput> set(
+            @Name("entity") Node entity,
+            @Name("options") Map<String, Object> options) {
+
+        Map<String, Object> result = EntityConfig.setOptions(entity, options);
+
+        log.info(LOGGER_TAG + "Configured Entity with id {}, options {}", entity.getId(), result);
+
+        return Stream.of(new ConfigOutput(entity, result));
+    }
+}
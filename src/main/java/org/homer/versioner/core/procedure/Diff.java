@@ -1,7 +1,14 @@
 package org.homer.versioner.core.procedure;
 
 import org.homer.versioner.core.Utility;
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.diff.StateDiff;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.index.StateIndex;
 import org.homer.versioner.core.output.DiffOutput;
+import org.homer.versioner.core.output.DiffStepOutput;
+import org.homer.versioner.core.output.ElementDiffOutput;
+import org.homer.versioner.core.output.RelationshipDiffOutput;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -10,7 +17,8 @@ import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
-import java.util.*;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import static org.neo4j.procedure.Mode.DEFAULT;
@@ -18,7 +26,7 @@ import static org.neo4j.procedure.Mode.DEFAULT;
 /**
  * Diff class, it contains all the Procedures needed to diff States nodes in the database
  */
-public class Diff {
+public class Diff extends CoreProcedure {
 
     @Procedure(value = "graph.versioner.diff", mode = DEFAULT)
     @Description("graph.versioner.diff(stateFrom, stateTo) - Get a list of differences that must be applied to stateFrom in order to convert it into stateTo")
@@ -34,8 +42,7 @@ public class Diff {
             @Name("state") Node state) {
 
 		return Optional.ofNullable(state.getSingleRelationship(RelationshipType.withName(Utility.PREVIOUS_TYPE), Direction.OUTGOING))
-				.map(Relationship::getEndNode)
-				.map(sFrom -> diffBetweenStates(sFrom, state))
+				.map(previousRel -> StateDiff.fromPrevious(state).stream())
 				.orElse(Stream.empty());
     }
 
@@ -53,59 +60,96 @@ public class Diff {
 				.orElse(Stream.empty());
 	}
 
+	@Procedure(value = "graph.versioner.diff.elements", mode = DEFAULT)
+	@Description("graph.versioner.diff.elements(stateFrom, stateTo) - Get a list of differences that must be applied to stateFrom in order to convert it into stateTo, with the element level changes of the updated array properties")
+	public Stream<ElementDiffOutput> diffElements(
+			@Name("stateFrom") Node stateFrom,
+			@Name("stateTo") Node stateTo) {
+
+		return StateDiff.elements(stateFrom, stateTo).stream();
+	}
+
+	@Procedure(value = "graph.versioner.diff.relationships", mode = DEFAULT)
+	@Description("graph.versioner.diff.relationships(stateFrom, stateTo) - Get a list of the versioned relationships that must be added, removed or updated in stateFrom in order to convert it into stateTo")
+	public Stream<RelationshipDiffOutput> diffRelationships(
+			@Name("stateFrom") Node stateFrom,
+			@Name("stateTo") Node stateTo) {
+
+		return StateDiff.relationships(stateFrom, stateTo).stream();
+	}
+
+	@Procedure(value = "graph.versioner.diff.range", mode = DEFAULT)
+	@Description("graph.versioner.diff.range(entity, from, to) - Get the differences of each step between the States of the given Entity valid at the given dates, or with the given ordinals, from the newest step.")
+	public Stream<DiffStepOutput> diffRange(
+			@Name("entity") Node entity,
+			@Name("from") Object from,
+			@Name("to") Object to) {
+
+		// If there is no State at the from endpoint, the range starts from the first State
+		Node stateTo = (to == null) ? Utility.getCurrentState(transaction, entity).orElse(null) : findState(entity, to).orElse(null);
+		Node stateFrom = (from == null) ? null : findState(entity, from).orElse(null);
+
+		// The endpoints can be a date and an ordinal, so they are compared by the States they resolve to
+		if (stateFrom != null && !isOnPreviousChain(stateFrom, stateTo)) {
+			throw new VersionerCoreException("The from endpoint of the range must not be after the to one.");
+		}
+
+		return StateDiff.steps(stateTo, stateFrom);
+	}
+
+	@Procedure(value = "graph.versioner.diff.between", mode = DEFAULT)
+	@Description("graph.versioner.diff.between(entity, from, to) - Get the net differences between the States of the given Entity valid at the given dates.")
+	public Stream<DiffOutput> diffBetween(
+			@Name("entity") Node entity,
+			@Name("from") LocalDateTime from,
+			@Name("to") LocalDateTime to) {
+
+		Node stateFrom = StateIndex.findStateAt(transaction, entity, from).orElse(null);
+		Node stateTo = StateIndex.findStateAt(transaction, entity, to).orElse(null);
+
+		return StateDiff.net(stateFrom, stateTo).stream();
+	}
+
 	/**
-	 * It returns a {@link Stream<DiffOutput>} by the given nodes
+	 * It finds the State of the given Entity at the given endpoint, which is a date or an ordinal
 	 *
-	 * @param from
-	 * @param to
-	 * @return a {@link Stream<DiffOutput>}
+	 * @param entity
+	 * @param endpoint
+	 * @return an {@link Optional} containing the State
 	 */
-	private Stream<DiffOutput> diffBetweenStates(Node from, Node to) {
-		List<DiffOutput> diffs = new ArrayList<>();
-
-		Map<String, Object> propertiesFrom = Optional.ofNullable(from).map(Node::getAllProperties).orElse(Collections.emptyMap());
-		Map<String, Object> propertiesTo = Optional.ofNullable(to).map(Node::getAllProperties).orElse(Collections.emptyMap());
-
-		//Getting updated and removed properties
-		propertiesFrom.forEach((key, value) -> {
-			Optional<Object> foundValue = Optional.ofNullable(propertiesTo.get(key));
-			String operation = foundValue.map(val -> compareObj(val, value) ? "" : Utility.DIFF_OPERATION_UPDATE).orElse(Utility.DIFF_OPERATION_REMOVE);
-			if(!operation.isEmpty()){
-				diffs.add(new DiffOutput(operation, key, value, foundValue.orElse(null)));
-			}
-		});
-
-		//Getting added properties
-		propertiesTo.forEach((key, value) -> {
-			if(!propertiesFrom.containsKey(key)) {
-				diffs.add(new DiffOutput(Utility.DIFF_OPERATION_ADD, key, null, value));
-			}
-		});
-
-		return diffs.stream().sorted((a, b) -> Integer.compare(Utility.DIFF_OPERATIONS_SORTING.indexOf(a.operation), Utility.DIFF_OPERATIONS_SORTING.indexOf(b.operation)));
+	private Optional<Node> findState(Node entity, Object endpoint) {
+		if (endpoint instanceof LocalDateTime) {
+			return StateIndex.findStateAt(transaction, entity, (LocalDateTime) endpoint);
+		} else if (endpoint instanceof Long) {
+			return StateIndex.findStateByOrdinal(transaction, entity, (Long) endpoint);
+		}
+		throw new VersionerCoreException("The endpoints of the range must be local date times or ordinals.");
 	}
 
 	/**
-	 * It compares 2 objects and return true if equals, false instead
+	 * It checks if the given State is the newest one or one of the States on its PREVIOUS chain
 	 *
-	 * @param val
-	 * @param value
-	 * @return true if equals, false instead
+	 * @param state
+	 * @param newest
+	 * @return true if the State is reached walking the PREVIOUS chain from the newest one
 	 */
-	private boolean compareObj(Object val, Object value){
-		if(val.getClass().isArray() && value.getClass().isArray()){
-			return (val instanceof boolean[] && value instanceof boolean[] && Arrays.equals((boolean[])val, (boolean[])value))
-					|| (val instanceof byte[] && value instanceof byte[] && Arrays.equals((byte[])val, (byte[])value))
-					|| (val instanceof short[] && value instanceof short[] && Arrays.equals((short[])val, (short[])value))
-					|| (val instanceof int[] && value instanceof int[] && Arrays.equals((int[])val, (int[])value))
-					|| (val instanceof long[] && value instanceof long[] && Arrays.equals((long[])val, (long[])value))
-					|| (val instanceof float[] && value instanceof float[] && Arrays.equals((float[])val, (float[])value))
-					|| (val instanceof double[] && value instanceof double[] && Arrays.equals((double[])val, (double[])value))
-					|| (val instanceof char[] && value instanceof char[] && Arrays.equals((char[])val, (char[])value))
-					|| (val instanceof String[] && value instanceof String[] && Arrays.equals((String[])val, (String[])value));
-		} else {
-			return val.equals(value);
+	private boolean isOnPreviousChain(Node state, Node newest) {
+		Node current = newest;
+		while (current != null && !current.equals(state)) {
+			Relationship previousRel = current.getSingleRelationship(Utility.PREVIOUS, Direction.OUTGOING);
+			current = (previousRel == null) ? null : previousRel.getEndNode();
 		}
+		return current != null;
 	}
-}
 
+	/**
+	 * It returns a {@link Stream<DiffOutput>} by the given nodes
+	 *
+	 * @param from
+	 * @param to
+	 * @return a {@link Stream<DiffOutput>}
+	 */
+	private Stream<DiffOutput> diffBetweenStates(Node from, Node to) {
+		return StateDiff.between(from, to).stream();
+	}
+}
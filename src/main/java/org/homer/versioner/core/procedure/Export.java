@@ -0,0 +1,67 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.importer.HistoryExporter;
+import org.homer.versioner.core.importer.ImportDirectory;
+import org.homer.versioner.core.output.ExportOutput;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * Export class, it contains all the Procedures needed to export the history of Entities to files
+ */
+public class Export extends CoreProcedure {
+
+    private static final List<String> CONFIG = Arrays.asList("keyProperty", "fromId", "toId");
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Procedure(value = "graph.versioner.export.file", mode = Mode.READ)
+    @Description("graph.versioner.export.file(file, entityLabel, {keyProperty, fromId, toId}) - Export the States, dates and versioned relationships of the Entities with the given label, optionally in the given id range, to a binary file which can be imported by graph.versioner.import.file.")
+    public Stream<ExportOutput> exportFile(
+            @Name("file") String file,
+            @Name("entityLabel") String entityLabel,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        for (String key : config.keySet()) {
+            if (!CONFIG.contains(key)) {
+                throw new VersionerCoreException("The export config " + key + " is not valid, the available ones are " + CONFIG + ".");
+            }
+        }
+
+        String keyProperty;
+        long fromId, toId;
+        try {
+            keyProperty = config.containsKey("keyProperty") ? (String) config.get("keyProperty") : "entityKey";
+            fromId = config.containsKey("fromId") ? ((Number) config.get("fromId")).longValue() : 0L;
+            toId = config.containsKey("toId") ? ((Number) config.get("toId")).longValue() : Long.MAX_VALUE;
+        } catch (NullPointerException | ClassCastException e) {
+            throw new VersionerCoreException("The export config is not valid, keyProperty must be a string, fromId and toId integers.");
+        }
+
+        ExportOutput result;
+        try {
+            result = new HistoryExporter(log, entityLabel, keyProperty, fromId, toId).run(transaction, ImportDirectory.resolve(db, file));
+        } catch (IOException e) {
+            throw new VersionerCoreException("Unable to write the file " + file + ": " + e.getMessage());
+        }
+
+        log.info(LOGGER_TAG + "Exported {} Entities with label {} to file {}, {} States in {} bytes", result.entities, entityLabel, file, result.states, result.bytes);
+
+        return Stream.of(result);
+    }
+}
@@ -1,25 +1,44 @@
 package org.homer.versioner.core.procedure;
 
 import org.homer.versioner.core.Utility;
-import org.homer.versioner.core.output.NodeOutput;
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.delta.StateDelta;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.index.StateIndex;
+import org.homer.versioner.core.output.EntityStatePropertiesOutput;
+import org.homer.versioner.core.output.HistoryOutput;
 import org.homer.versioner.core.output.PathOutput;
+import org.homer.versioner.core.output.PropertiesOutput;
+import org.homer.versioner.core.output.SnapshotOutput;
+import org.homer.versioner.core.output.StateOutput;
+import org.homer.versioner.core.output.StatesPathOutput;
 import org.neo4j.graphalgo.impl.util.PathImpl;
 import org.neo4j.graphdb.*;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.neo4j.procedure.Mode.DEFAULT;
 
 /**
- * Get class, it contains all the Procedures needed to retrieve Entities and States nodes from the database
+ * Get class, it contains all the Procedures needed to retrieve Entities and States nodes from the database.
+ * <p>
+ * The returned State nodes are the stored ones, so a State kept as a delta only holds part of its properties: each
+ * Procedure also returns all the properties of the States it streams, rebuilt from the deltas.
  */
-public class Get {
+public class Get extends CoreProcedure {
 
     @Procedure(value = "graph.versioner.get.current.path", mode = DEFAULT)
     @Description("graph.versioner.get.current.path(entity) - Get the current Path (Entity, State and rels) for the given Entity.")
@@ -28,7 +47,7 @@ public class Get {
 
         PathImpl.Builder builder = new PathImpl.Builder(entity);
 
-        builder = Optional.ofNullable(entity.getSingleRelationship(RelationshipType.withName(Utility.CURRENT_TYPE), Direction.OUTGOING))
+        builder = Utility.getCurrentRelationship(transaction, entity)
                 .map(builder::push)
                 .orElse(new PathImpl.Builder(entity));
 
@@ -36,23 +55,22 @@ public class Get {
     }
 
     @Procedure(value = "graph.versioner.get.current.state", mode = DEFAULT)
-    @Description("graph.versioner.get.current.state(entity) - Get the current State node for the given Entity.")
-    public Stream<NodeOutput> getCurrentState(
+    @Description("graph.versioner.get.current.state(entity) - Get the current State node for the given Entity, with its properties.")
+    public Stream<StateOutput> getCurrentState(
             @Name("entity") Node entity) {
 
-        return Stream.of(Optional.ofNullable(entity.getSingleRelationship(RelationshipType.withName(Utility.CURRENT_TYPE), Direction.OUTGOING))
-                .map(Relationship::getEndNode).map(NodeOutput::new).orElse(null));
+        return Stream.of(Utility.getCurrentState(transaction, entity).map(Get::toStateOutput).orElse(null));
     }
 
 
     //fix for error Node[xyz] not connected to this relationship[xyz]
     @Procedure(value = "graph.versioner.get.all", mode = DEFAULT)
-    @Description("graph.versioner.get.all(entity) - Get all the State nodes for the given Entity.")
-    public Stream<PathOutput> getAllState(
+    @Description("graph.versioner.get.all(entity) - Get all the State nodes for the given Entity, with the properties of each State of the path.")
+    public Stream<StatesPathOutput> getAllState(
             @Name("entity") Node entity) {
 
         PathImpl.Builder builder = new PathImpl.Builder(entity)
-                .push(entity.getSingleRelationship(RelationshipType.withName(Utility.CURRENT_TYPE), Direction.OUTGOING));
+                .push(Utility.getCurrentRelationship(transaction, entity).orElse(null));
         builder = StreamSupport.stream(entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.HAS_STATE_TYPE)).spliterator(), false)
                 .reduce(
                         builder,
@@ -60,58 +78,211 @@ public class Get {
                                             .map(build::push)
                                             .orElse(build),
                         (a, b) -> a);
-        return Stream.of(new PathOutput(builder.build()));
+        Path path = builder.build();
+        return Stream.of(new StatesPathOutput(path, getPathProperties(path)));
     }
 
     @Procedure(value = "graph.versioner.get.by.label", mode = DEFAULT)
-    @Description("graph.versioner.get.by.label(entity, label) - Get State nodes with the given label, by the given Entity node")
-    public Stream<NodeOutput> getAllStateByLabel(
+    @Description("graph.versioner.get.by.label(entity, label) - Get State nodes with the given label, by the given Entity node, with their properties")
+    public Stream<StateOutput> getAllStateByLabel(
             @Name("entity") Node entity,
             @Name("label") String label) {
 
         return StreamSupport.stream(entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.HAS_STATE_TYPE)).spliterator(), false)
                 .map(Relationship::getEndNode)
                 .filter(node -> node.hasLabel(Label.label(label)))
-                .map(NodeOutput::new);
+                .map(Get::toStateOutput);
     }
 
     @Procedure(value = "graph.versioner.get.by.date", mode = DEFAULT)
-    @Description("graph.versioner.get.by.date(entity, date) - Get State node by the given Entity node, created at the given date")
-    public Stream<NodeOutput> getStateByDate(
+    @Description("graph.versioner.get.by.date(entity, date) - Get State node by the given Entity node, created at the given date, with its properties")
+    public Stream<StateOutput> getStateByDate(
             @Name("entity") Node entity,
             @Name("date") LocalDateTime date) {
 
         return StreamSupport.stream(entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.HAS_STATE_TYPE)).spliterator(), false)
                 .filter(relationship -> relationship.getProperty(Utility.START_DATE_PROP).equals(date))
                 .map(Relationship::getEndNode)
-                .map(NodeOutput::new);
+                .map(Get::toStateOutput);
+    }
+
+    @Procedure(value = "graph.versioner.get.at", mode = DEFAULT)
+    @Description("graph.versioner.get.at(entity, date) - Get the State node of the given Entity node, which was valid at the given date, with its properties")
+    public Stream<StateOutput> getStateAt(
+            @Name("entity") Node entity,
+            @Name("date") LocalDateTime date) {
+
+        return StateIndex.findStateAt(transaction, entity, date)
+                .map(Get::toStateOutput)
+                .map(Stream::of)
+                .orElse(Stream.empty());
+    }
+
+    @Procedure(value = "graph.versioner.get.batch", mode = DEFAULT)
+    @Description("graph.versioner.get.batch(entities, date) - Get the State node of each of the given Entity nodes, with its properties, which was valid at the given date, or the current one if no date is given.")
+    public Stream<EntityStatePropertiesOutput> getBatch(
+            @Name("entities") List<Node> entities,
+            @Name(value = "date", defaultValue = "null") LocalDateTime date) {
+
+        return entities.stream()
+                .map(entity -> {
+                    Node state = Objects.isNull(date)
+                            ? Utility.getCurrentState(transaction, entity).orElse(null)
+                            : StateIndex.findStateAt(transaction, entity, date).orElse(null);
+                    return new EntityStatePropertiesOutput(entity, state, Optional.ofNullable(state).map(StateDelta::getAllProperties).orElse(null));
+                });
+    }
+
+    @Procedure(value = "graph.versioner.get.snapshot", mode = DEFAULT)
+    @Description("graph.versioner.get.snapshot(entityLabel, date) - Stream every Entity with the given label with its State node valid at the given date (or the current one if no date is given), the properties of that State and the versioned relationships it holds.")
+    public Stream<SnapshotOutput> getSnapshot(
+            @Name("entityLabel") String entityLabel,
+            @Name(value = "date", defaultValue = "null") LocalDateTime date) {
+
+        // The label scan is consumed lazily, one Entity at a time
+        ResourceIterator<Node> entities = transaction.findNodes(Label.label(entityLabel));
+
+        return entities.stream()
+                .map(entity -> {
+                    Node state = Objects.isNull(date)
+                            ? Utility.getCurrentState(transaction, entity).orElse(null)
+                            : StateIndex.findStateAt(transaction, entity, date).orElse(null);
+                    return Optional.ofNullable(state)
+                            .map(s -> new SnapshotOutput(entity, s, StateDelta.getAllProperties(s), Utility.streamOfVersionedRelationships(s).collect(Collectors.toList())))
+                            .orElse(null);
+                })
+                .filter(Objects::nonNull)
+                .onClose(entities::close);
+    }
+
+    @Procedure(value = "graph.versioner.get.history", mode = DEFAULT)
+    @Description("graph.versioner.get.history(entity, cursor, limit) - Stream a page of State nodes of the given Entity, with their properties, from the newest one, starting from the given cursor.")
+    public Stream<HistoryOutput> getHistory(
+            @Name("entity") Node entity,
+            @Name(value = "cursor", defaultValue = "") String cursor,
+            @Name(value = "limit", defaultValue = "100") long limit) {
+
+        // A String parameter can't default to null, so a missing cursor is an empty one
+        Node firstState = (cursor == null || cursor.isEmpty())
+                ? Utility.getCurrentState(transaction, entity).orElse(null)
+                : decodeCursor(entity, cursor);
+
+        // Each step holds its previous State, which is both the next step and the cursor of the row
+        return Stream.iterate(Optional.ofNullable(firstState).map(state -> new HistoryStep(state, StateDelta.getAllProperties(state))).orElse(null), Objects::nonNull, HistoryStep::next)
+                .limit(Math.max(limit, 0))
+                .map(step -> {
+                    Relationship hasState = step.state.getSingleRelationship(RelationshipType.withName(Utility.HAS_STATE_TYPE), Direction.INCOMING);
+                    LocalDateTime startDate = Optional.ofNullable(hasState).map(rel -> (LocalDateTime) rel.getProperty(Utility.START_DATE_PROP, null)).orElse(null);
+                    LocalDateTime endDate = Optional.ofNullable(hasState).map(rel -> (LocalDateTime) rel.getProperty(Utility.END_DATE_PROP, null)).orElse(null);
+                    return new HistoryOutput(step.state, step.properties, startDate, endDate, encodeCursor(step.previous()));
+                });
     }
 
 	@Procedure(value = "graph.versioner.get.nth.state", mode = DEFAULT)
-	@Description("graph.versioner.get.nth.state(entity, nth) - Get the nth State node for the given Entity.")
-	public Stream<NodeOutput> getNthState(
+	@Description("graph.versioner.get.nth.state(entity, nth) - Get the nth State node for the given Entity, with its properties.")
+	public Stream<StateOutput> getNthState(
 			@Name("entity") Node entity,
 			@Name("nth") long nth) {
 
-    	return getCurrentState(entity)
-				.findFirst()
-				.flatMap(currentState -> getNthStateFrom(currentState.node, nth))
-				.map(Utility::streamOfNodes)
+    	return Utility.getCurrentState(transaction, entity)
+				.flatMap(currentState -> StateIndex.findNthState(currentState, nth))
+				.map(Get::toStateOutput)
+				.map(Stream::of)
 				.orElse(Stream.empty());
 	}
 
-	private Optional<Node> getNthStateFrom(Node state, long nth) {
+	@Procedure(value = "graph.versioner.get.properties", mode = DEFAULT)
+	@Description("graph.versioner.get.properties(state) - Get all the properties of the given State node, rebuilding them if it is stored as a delta.")
+	public Stream<PropertiesOutput> getProperties(
+			@Name("state") Node state) {
+
+		return Stream.of(new PropertiesOutput(StateDelta.getAllProperties(state)));
+	}
+
+	private static StateOutput toStateOutput(Node state) {
 
-		return Stream.iterate(Optional.of(state), s -> s.flatMap(this::jumpToPreviousState))
-				.limit(nth + 1)
-				.reduce((a, b) -> b) //get only the last value (apply jumpToPreviousState n times
-				.orElse(Optional.empty());
+		return new StateOutput(state, StateDelta.getAllProperties(state));
 	}
 
-	private Optional<Node> jumpToPreviousState(Node state) {
+	/**
+	 * It rebuilds the properties of each State of the given path, walking it from the Entity, so that a State reached
+	 * through its incoming PREVIOUS relationship is rebuilt from the properties of the State before it
+	 *
+	 * @param path the path starting from the Entity
+	 * @return the properties of the nodes of the path but the Entity, in the path order
+	 */
+	private static List<Map<String, Object>> getPathProperties(Path path) {
+
+		List<Map<String, Object>> properties = new ArrayList<>();
+		Node node = path.startNode();
+		Map<String, Object> props = null;
+		for (Relationship relationship : path.relationships()) {
+			Node next = relationship.getOtherNode(node);
+			props = (props != null && relationship.isType(Utility.PREVIOUS) && relationship.getStartNode().equals(node))
+					? StateDelta.getPreviousProperties(relationship, props)
+					: StateDelta.getAllProperties(next);
+			properties.add(props);
+			node = next;
+		}
+		return properties;
+	}
+
+	/**
+	 * It encodes the cursor pointing to the given State, or null if no State is given
+	 *
+	 * @param state the next State to be returned
+	 * @return the cursor
+	 */
+	private String encodeCursor(Node state) {
+
+		return Optional.ofNullable(state)
+				.map(s -> Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(s.getId()).getBytes(StandardCharsets.UTF_8)))
+				.orElse(null);
+	}
+
+	/**
+	 * It decodes the given cursor into the State it points to, checking that it belongs to the given Entity
+	 *
+	 * @param entity the Entity owning the State
+	 * @param cursor the cursor to decode
+	 * @return the State pointed by the cursor
+	 */
+	private Node decodeCursor(Node entity, String cursor) {
+
+		Node state;
+		try {
+			state = transaction.getNodeById(Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)));
+		} catch (RuntimeException e) {
+			throw new VersionerCoreException("The given cursor is not valid.");
+		}
+		Relationship hasState = state.getSingleRelationship(Utility.HAS_STATE, Direction.INCOMING);
+		if (!state.hasLabel(Utility.STATE) || hasState == null || hasState.getStartNodeId() != entity.getId()) {
+			throw new VersionerCoreException("The given cursor is not valid, it doesn't point to a State of the given Entity.");
+		}
+		return state;
+	}
+
+	/**
+	 * HistoryStep class, it holds a State of the history with its properties, together with the PREVIOUS relationship
+	 * towards its previous State, whose properties are rebuilt from the ones of this State
+	 */
+	private static class HistoryStep {
+		private final Node state;
+		private final Map<String, Object> properties;
+		private final Relationship previousRel;
+
+		private HistoryStep(Node state, Map<String, Object> properties) {
+			this.state = state;
+			this.properties = properties;
+			this.previousRel = state.getSingleRelationship(Utility.PREVIOUS, Direction.OUTGOING);
+		}
+
+		private Node previous() {
+			return (previousRel == null) ? null : previousRel.getEndNode();
+		}
 
-    	return StreamSupport.stream(state.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.PREVIOUS_TYPE)).spliterator(), false)
-				.findFirst()
-				.map(Relationship::getEndNode);
+		private HistoryStep next() {
+			return (previousRel == null) ? null : new HistoryStep(previousRel.getEndNode(), StateDelta.getPreviousProperties(previousRel, properties));
+		}
 	}
 }
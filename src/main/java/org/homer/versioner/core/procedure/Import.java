@@ -0,0 +1,106 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.importer.BinaryHistoryReader;
+import org.homer.versioner.core.importer.CsvHistoryReader;
+import org.homer.versioner.core.importer.HistoryImporter;
+import org.homer.versioner.core.importer.HistorySource;
+import org.homer.versioner.core.importer.ImportDirectory;
+import org.homer.versioner.core.importer.JsonLinesHistoryReader;
+import org.homer.versioner.core.output.ImportOutput;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * Import class, it contains all the Procedures needed to import the history of Entities from files
+ */
+public class Import extends CoreProcedure {
+
+    public static final String CSV_FORMAT = "csv";
+    public static final String JSONL_FORMAT = "jsonl";
+    public static final String BINARY_FORMAT = "binary";
+
+    private static final List<String> CONFIG = Arrays.asList("format", "keyColumn", "keyProperty", "dateColumn", "additionalLabel", "delimiter", "batchSize", "concurrency");
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Procedure(value = "graph.versioner.import.file", mode = Mode.WRITE)
+    @Description("graph.versioner.import.file(file, entityLabel, {format, keyColumn, keyProperty, dateColumn, additionalLabel, delimiter, batchSize, concurrency}) - Import the versions of the Entities with the given label from a CSV, JSON Lines or binary file of (entityKey, date, props) rows, in parallel batches committed separately.")
+    public Stream<ImportOutput> importFile(
+            @Name("file") String file,
+            @Name("entityLabel") String entityLabel,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        for (String key : config.keySet()) {
+            if (!CONFIG.contains(key)) {
+                throw new VersionerCoreException("The import config " + key + " is not valid, the available ones are " + CONFIG + ".");
+            }
+        }
+
+        String format, keyColumn, keyProperty, dateColumn, additionalLabel, delimiter;
+        int batchSize, concurrency;
+        try {
+            format = config.containsKey("format") ? (String) config.get("format") : getDefaultFormat(file);
+            keyColumn = config.containsKey("keyColumn") ? (String) config.get("keyColumn") : "entityKey";
+            keyProperty = config.containsKey("keyProperty") ? (String) config.get("keyProperty") : keyColumn;
+            dateColumn = config.containsKey("dateColumn") ? (String) config.get("dateColumn") : "date";
+            additionalLabel = (String) config.get("additionalLabel");
+            delimiter = config.containsKey("delimiter") ? (String) config.get("delimiter") : ",";
+            batchSize = config.containsKey("batchSize") ? ((Number) config.get("batchSize")).intValue() : 1000;
+            concurrency = config.containsKey("concurrency") ? ((Number) config.get("concurrency")).intValue() : Runtime.getRuntime().availableProcessors();
+        } catch (NullPointerException | ClassCastException e) {
+            throw new VersionerCoreException("The import config is not valid, batchSize and concurrency must be integers, the other ones strings.");
+        }
+
+        if (delimiter.length() != 1) {
+            throw new VersionerCoreException("The CSV delimiter must be a single character.");
+        }
+
+        Path path = ImportDirectory.resolve(db, file);
+        HistorySource source = createSource(path, format, keyColumn, dateColumn, delimiter.charAt(0));
+        ImportOutput result = new HistoryImporter(db, log, entityLabel, keyProperty, additionalLabel, batchSize, concurrency).run(source);
+
+        log.info(LOGGER_TAG + "Imported file {}, {} rows at {} rows per second", file, result.rows, result.throughput);
+
+        return Stream.of(result);
+    }
+
+    private static String getDefaultFormat(String file) {
+
+        String name = file.toLowerCase();
+        if (name.endsWith(".csv")) {
+            return CSV_FORMAT;
+        }
+        return name.endsWith(".bin") ? BINARY_FORMAT : JSONL_FORMAT;
+    }
+
+    private HistorySource createSource(Path path, String format, String keyColumn, String dateColumn, char delimiter) {
+
+        switch (format.toLowerCase()) {
+            case CSV_FORMAT:
+                return () -> new CsvHistoryReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), keyColumn, dateColumn, delimiter);
+            case JSONL_FORMAT:
+                return () -> new JsonLinesHistoryReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), keyColumn, dateColumn);
+            case BINARY_FORMAT:
+                return () -> new BinaryHistoryReader(path);
+            default:
+                throw new VersionerCoreException("The format " + format + " is not valid, it must be csv, jsonl or binary.");
+        }
+    }
+}
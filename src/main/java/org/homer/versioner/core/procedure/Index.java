@@ -0,0 +1,32 @@
+package org.homer.versioner.core.procedure;
+
+import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.index.StateIndex;
+import org.homer.versioner.core.output.IndexOutput;
+import org.neo4j.graphdb.Node;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.stream.Stream;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * Index class, it contains all the Procedures needed to maintain the State index of Entities
+ */
+public class Index extends CoreProcedure {
+
+    @Procedure(value = "graph.versioner.index.rebuild", mode = Mode.WRITE)
+    @Description("graph.versioner.index.rebuild(entity) - Build (or rebuild) the State index of the given Entity, used to upgrade Entities created without it.")
+    public Stream<IndexOutput> rebuild(
+            @Name("entity") Node entity) {
+
+        IndexOutput result = StateIndex.rebuildIndex(entity);
+
+        log.info(LOGGER_TAG + "Indexed Entity with id {}, {} States and {} skips", entity.getId(), result.states, result.skips);
+
+        return Stream.of(result);
+    }
+}
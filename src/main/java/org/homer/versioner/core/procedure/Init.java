@@ -1,23 +1,22 @@
 package org.homer.versioner.core.procedure;
 
+import org.homer.versioner.core.Utility;
 import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.output.EntityIdOutput;
+import org.homer.versioner.core.output.IdOutput;
 import org.homer.versioner.core.output.NodeOutput;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.RelationshipType;
-import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Mode;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
 import java.time.LocalDateTime;
-import java.util.Calendar;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Stream;
 
-import static java.util.Collections.singletonList;
 import static org.homer.versioner.core.Utility.*;
 
 /**
@@ -34,33 +33,93 @@ public class Init extends CoreProcedure {
             @Name(value = "additionalLabel", defaultValue = "") String additionalLabel,
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
-        Node entity = createNode(entityProps, singletonList(entityLabel), transaction);
-
-        Node state = createNode(stateProps, getStateLabels(additionalLabel), transaction);
-
-        connectWithCurrentRelationship(entity, state, date);
+        Node entity = initEntity(Label.label(entityLabel), entityProps, stateProps, asStateLabels(additionalLabel), defaultToNow(date));
 
         log.info(LOGGER_TAG + "Created a new Entity with label {} and id {}", entityLabel, entity.getId());
 
-        createRNodeAndAssociateTo(entity, transaction);
-
         return streamOfNodes(entity);
     }
 
-    private Node createNode(Map<String, Object> properties, List<String> labels, Transaction transaction)  {
+    @Procedure(value = "graph.versioner.init.batch", mode = Mode.WRITE)
+    @Description("graph.versioner.init.batch(entityLabel, [{entityProps, stateProps, additionalLabel, date},...]) - Create an Entity node with its initial State for each of the given items.")
+    public Stream<EntityIdOutput> initBatch(
+            @Name("entityLabel") String entityLabel,
+            @Name("items") List<Map<String, Object>> items) {
 
-        return setProperties(transaction.createNode(asLabels(labels)), properties);
+        return initEntities(entityLabel, items).stream().map(entity -> new EntityIdOutput(entity, entity.getId()));
     }
 
-    private void connectWithCurrentRelationship(Node entity, Node state, LocalDateTime date) {
+    @Procedure(value = "graph.versioner.init.batch.ids", mode = Mode.WRITE)
+    @Description("graph.versioner.init.batch.ids(entityLabel, [{entityProps, stateProps, additionalLabel, date},...]) - Create an Entity node with its initial State for each of the given items, returning only their ids.")
+    public Stream<IdOutput> initBatchIds(
+            @Name("entityLabel") String entityLabel,
+            @Name("items") List<Map<String, Object>> items) {
 
-        LocalDateTime instantDate = (date == null) ? convertEpochToLocalDateTime(Calendar.getInstance().getTimeInMillis()) : date;
-        addCurrentState(state, entity, instantDate);
+        return initEntities(entityLabel, items).stream().map(entity -> new IdOutput(entity.getId()));
     }
 
-    private void createRNodeAndAssociateTo(Node entity, Transaction transaction) {
+    private List<Node> initEntities(String entityLabel, List<Map<String, Object>> items) {
+
+        // Everything shared by the items is resolved once
+        Label label = Label.label(entityLabel);
+        Map<String, Label[]> stateLabels = new HashMap<>();
+        LocalDateTime now = defaultToNow(null);
+
+        List<Node> entities = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            InitItem item = new InitItem(i, items.get(i));
+            entities.add(initEntity(label, item.entityProps, item.stateProps,
+                    stateLabels.computeIfAbsent(item.additionalLabel, Utility::asStateLabels), item.date == null ? now : item.date));
+        }
+
+        log.info(LOGGER_TAG + "Created {} new Entities with label {} in batch", entities.size(), entityLabel);
+
+        return entities;
+    }
+
+    private Node initEntity(Label entityLabel, Map<String, Object> entityProps, Map<String, Object> stateProps, Label[] stateLabels, LocalDateTime date) {
+
+        Node entity = setProperties(transaction.createNode(entityLabel), entityProps);
+        Node state = setProperties(transaction.createNode(stateLabels), stateProps);
+        addCurrentState(transaction, state, entity, date);
+        transaction.createNode(R).createRelationshipTo(entity, FOR);
+        return entity;
+    }
 
-        Node rNode = transaction.createNode(Label.label("R"));
-        rNode.createRelationshipTo(entity, RelationshipType.withName("FOR"));
+    /**
+     * InitItem class, a single {entityProps, stateProps, additionalLabel, date} item of a batch
+     */
+    private static class InitItem {
+        private static final List<String> KEYS = Arrays.asList("entityProps", "stateProps", "additionalLabel", DATE_PROP);
+        private static final Map<String, Class<?>> KEY_TYPES = Map.of("entityProps", Map.class, "stateProps", Map.class, "additionalLabel", String.class, DATE_PROP, LocalDateTime.class);
+
+        private final Map<String, Object> entityProps;
+        private final Map<String, Object> stateProps;
+        private final String additionalLabel;
+        private final LocalDateTime date;
+
+        @SuppressWarnings("unchecked")
+        private InitItem(int index, Map<String, Object> item) {
+            if (item == null) {
+                throw invalidItem(index);
+            }
+            for (Map.Entry<String, Object> entry : item.entrySet()) {
+                Class<?> type = KEY_TYPES.get(entry.getKey());
+                if (type == null) {
+                    throw new VersionerCoreException("The batch item at index " + index + " has the unknown key " + entry.getKey() + ", the available ones are " + KEYS + ".");
+                }
+                if (entry.getValue() != null && !type.isInstance(entry.getValue())) {
+                    throw invalidItem(index);
+                }
+            }
+            this.entityProps = item.get("entityProps") == null ? Collections.emptyMap() : (Map<String, Object>) item.get("entityProps");
+            this.stateProps = item.get("stateProps") == null ? Collections.emptyMap() : (Map<String, Object>) item.get("stateProps");
+            this.additionalLabel = item.get("additionalLabel") == null ? "" : (String) item.get("additionalLabel");
+            this.date = (LocalDateTime) item.get(DATE_PROP);
+        }
+
+        private static VersionerCoreException invalidItem(int index) {
+            return new VersionerCoreException("The batch item at index " + index + " is not valid, it needs optional entityProps, stateProps, additionalLabel and date.");
+        }
     }
 }
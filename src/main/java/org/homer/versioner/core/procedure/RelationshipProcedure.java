@@ -1,11 +1,13 @@
 package org.homer.versioner.core.procedure;
 
-import org.apache.commons.lang3.StringUtils;
 import org.homer.versioner.core.builders.UpdateBuilder;
+import org.homer.versioner.core.config.EntityConfig;
 import org.homer.versioner.core.core.CoreProcedure;
 import org.homer.versioner.core.exception.VersionerCoreException;
 import org.homer.versioner.core.output.BooleanOutput;
+import org.homer.versioner.core.output.RelationshipBatchOutput;
 import org.homer.versioner.core.output.RelationshipOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -68,6 +70,9 @@ public class RelationshipProcedure extends CoreProcedure {
                 Map<String, Object> filteredProps = props.entrySet().stream().filter(map -> !map.getKey().equals(labelProp))
                         .collect(Collectors.toMap(map -> map.getKey(), map -> map.getValue()));
                 String type = props.get(labelProp) instanceof String ? props.get(labelProp).toString() : "LABEL_UNDEFINED";
+                if (EntityConfig.isSkipUnchanged(entitySource) && findVersionedRelationship(entitySource, destinationRNode.get(), type).isPresent()) {
+                    return Stream.<RelationshipOutput>empty();
+                }
                 Optional<Node> sourceCurrentState = createNewSourceState(entitySource, defaultToNow(date));
                 boolean exists = StreamSupport.stream(sourceCurrentState.get().getRelationships(Direction.OUTGOING, RelationshipType.withName(type)).spliterator(), false).anyMatch(relationship -> relationship.getEndNode().getId() == destinationRNode.get().getId());
                 if (exists) {
@@ -112,8 +117,15 @@ public class RelationshipProcedure extends CoreProcedure {
         isEntityOrThrowException(entitySource);
         isEntityOrThrowException(entityDestination);
 
-        Optional<Node> sourceCurrentState = createNewSourceState(entitySource, defaultToNow(date));
         Optional<Node> destinationRNode = getRNode(entityDestination);
+        if (destinationRNode.isPresent() && EntityConfig.isSkipUnchanged(entitySource)) {
+            Optional<Relationship> existing = findVersionedRelationship(entitySource, destinationRNode.get(), type);
+            if (existing.isPresent()) {
+                return streamOfRelationships(existing.get());
+            }
+        }
+
+        Optional<Node> sourceCurrentState = createNewSourceState(entitySource, defaultToNow(date));
 
         boolean exists = StreamSupport.stream(sourceCurrentState.get().getRelationships(Direction.OUTGOING, RelationshipType.withName(type)).spliterator(), true).anyMatch(relationship -> relationship.getEndNode().getId() == destinationRNode.get().getId());
         if (exists) {
@@ -135,7 +147,7 @@ public class RelationshipProcedure extends CoreProcedure {
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
 
-        Optional<Node> sourceCurrentState = getCurrentState(entitySource);
+        Optional<Node> sourceCurrentState = getCurrentState(transaction, entitySource);
         entityDestinations.stream().map((entityDestination) -> {
             return getBooleanOutputStream(entitySource, type, sourceCurrentState, entityDestination, date);
         });
@@ -148,8 +160,11 @@ public class RelationshipProcedure extends CoreProcedure {
 
         if (sourceCurrentState.isPresent() && destinationRNode.isPresent()) {
             final long destId = destinationRNode.get().getId();
-            updateProcedure.update(entitySource, sourceCurrentState.get().getAllProperties(), "", date);
-            getCurrentRelationship(entitySource).ifPresent(rel -> rel.getEndNode().getRelationships(Direction.OUTGOING, RelationshipType.withName(type)).forEach(rel2 -> {
+            if (EntityConfig.isSkipUnchanged(entitySource) && !findVersionedRelationship(entitySource, destinationRNode.get(), type).isPresent()) {
+                return Stream.of(new BooleanOutput(Boolean.FALSE));
+            }
+            updateProcedure.copyCurrentState(entitySource, date);
+            getCurrentRelationship(transaction, entitySource).ifPresent(rel -> RelationshipSet.materialize(rel.getEndNode()).getRelationships(Direction.OUTGOING, RelationshipType.withName(type)).forEach(rel2 -> {
                 if (rel2.getEndNode().getId() == destId) {
                     rel2.delete();
                 }
@@ -160,6 +175,82 @@ public class RelationshipProcedure extends CoreProcedure {
         }
     }
 
+    @Procedure(value = "graph.versioner.relationships.batch", mode = Mode.WRITE)
+    @Description("graph.versioner.relationships.batch(changes, date) - Create and delete many relationships, creating a single new State for each of the source Entities, for the specified date. Each change is a map with the source and destination Entities, the type of the relationship, its optional props and an optional delete flag.")
+    public Stream<RelationshipBatchOutput> relationshipsBatch(
+            @Name("changes") List<Map<String, Object>> changes,
+            @Name(value = "date", defaultValue = "null") LocalDateTime date) {
+
+        // Grouping the changes by source, in id order, so that concurrent batches lock the sources in the same order
+        Map<Node, List<RelationshipChange>> changesBySource = new TreeMap<>(Comparator.comparing(Node::getId));
+        for (Map<String, Object> change : changes) {
+            RelationshipChange relationshipChange = new RelationshipChange(change);
+            // All the destinations are checked before the first new State is created
+            isEntityOrThrowException(relationshipChange.destination);
+            relationshipChange.destinationRNode = getRNode(relationshipChange.destination)
+                    .orElseThrow(() -> new VersionerCoreException("The destination Entity with id " + relationshipChange.destination.getId() + " has no R node, so it can't be the destination of a versioned relationship."));
+            changesBySource.computeIfAbsent(relationshipChange.source, source -> new ArrayList<>()).add(relationshipChange);
+        }
+
+        changesBySource.keySet().forEach(transaction::acquireWriteLock);
+
+        LocalDateTime instantDate = defaultToNow(date);
+        List<RelationshipBatchOutput> result = new ArrayList<>(changesBySource.size());
+        changesBySource.forEach((source, sourceChanges) -> result.add(applyChanges(source, sourceChanges, instantDate)));
+        return result.stream();
+    }
+
+    /**
+     * Applies the given changes of a source Entity, in order, on a single new State; when the skipUnchanged option
+     * is enabled, the State is created only if the changes together alter its versioned relationships
+     */
+    private RelationshipBatchOutput applyChanges(Node entitySource, List<RelationshipChange> changes, LocalDateTime date) {
+
+        isEntityOrThrowException(entitySource);
+
+        if (EntityConfig.isSkipUnchanged(entitySource)) {
+            Optional<Node> currentState = getCurrentState(transaction, entitySource);
+            Set<RelationshipKey> currentKeys = currentState.map(RelationshipProcedure::indexVersionedRelationships).orElseGet(HashMap::new).keySet();
+            Set<RelationshipKey> keys = new HashSet<>(currentKeys);
+            for (RelationshipChange change : changes) {
+                RelationshipKey key = new RelationshipKey(change.type, change.destinationRNode.getId());
+                if (change.delete) {
+                    keys.remove(key);
+                } else {
+                    keys.add(key);
+                }
+            }
+            if (keys.equals(currentKeys)) {
+                return new RelationshipBatchOutput(entitySource, currentState.orElse(null), 0L, 0L);
+            }
+        }
+
+        Node state = createNewSourceState(entitySource, date).get();
+        Map<RelationshipKey, List<Relationship>> relationships = indexVersionedRelationships(state);
+        long created = 0;
+        long deleted = 0;
+        for (RelationshipChange change : changes) {
+            RelationshipKey key = new RelationshipKey(change.type, change.destinationRNode.getId());
+            if (change.delete) {
+                List<Relationship> existing = relationships.remove(key);
+                if (existing != null) {
+                    existing.forEach(Relationship::delete);
+                    deleted += existing.size();
+                }
+            } else if (!relationships.containsKey(key)) {
+                Relationship relationship = createRelationship(state, change.destinationRNode, change.type, change.props);
+                relationships.put(key, new ArrayList<>(Collections.singletonList(relationship)));
+                created++;
+            }
+        }
+        return new RelationshipBatchOutput(entitySource, state, created, deleted);
+    }
+
+    private static Map<RelationshipKey, List<Relationship>> indexVersionedRelationships(Node state) {
+        return streamOfVersionedRelationships(state)
+                .collect(Collectors.groupingBy(rel -> new RelationshipKey(rel.getType().name(), rel.getEndNodeId())));
+    }
+
     @Procedure(value = "graph.versioner.relationship.delete", mode = Mode.WRITE)
     @Description("graph.versioner.relationship.delete(entityA, entityB, type, date) - Delete a custom type relationship from entitySource's current State to entityDestination for the specified date.")
     public Stream<BooleanOutput> relationshipDelete(
@@ -174,7 +265,7 @@ public class RelationshipProcedure extends CoreProcedure {
             throw new VersionerCoreException("It's not possible to delete a System Relationship like " + type + ".");
         }
 
-        Optional<Node> sourceCurrentState = getCurrentState(entitySource);
+        Optional<Node> sourceCurrentState = getCurrentState(transaction, entitySource);
         return getBooleanOutputStream(entitySource, type, sourceCurrentState, entityDestination, date);
     }
 
@@ -193,8 +284,80 @@ public class RelationshipProcedure extends CoreProcedure {
     private Optional<Node> createNewSourceState(Node entitySource, LocalDateTime date) {
 
         Update updateProcedure = new UpdateBuilder().withLog(log).withTransaction(transaction).build().orElseThrow(() -> new VersionerCoreException("Unable to initialize update procedure"));
-        return updateProcedure.patch(entitySource, Collections.emptyMap(), StringUtils.EMPTY, date)
-                .map(n -> n.node)
-                .findFirst();
+        // The new State is going to change its relationships, so it can't share them
+        return Optional.of(RelationshipSet.materialize(updateProcedure.copyCurrentState(entitySource, date)));
+    }
+
+    private Optional<Relationship> findVersionedRelationship(Node entitySource, Node destinationRNode, String type) {
+        return getCurrentState(transaction, entitySource)
+                .flatMap(state -> streamOfVersionedRelationships(state)
+                        .filter(rel -> rel.isType(RelationshipType.withName(type)) && rel.getEndNodeId() == destinationRNode.getId())
+                        .findFirst());
+    }
+
+    /**
+     * RelationshipChange class, it holds a single change of a relationships batch
+     */
+    private static class RelationshipChange {
+        private static final List<String> KEYS = Arrays.asList("source", "destination", "type", "props", "delete");
+
+        private final Node source;
+        private final Node destination;
+        private final String type;
+        private final Map<String, Object> props;
+        private final boolean delete;
+        private Node destinationRNode;
+
+        @SuppressWarnings("unchecked")
+        private RelationshipChange(Map<String, Object> change) {
+
+            for (String key : change.keySet()) {
+                if (!KEYS.contains(key)) {
+                    throw new VersionerCoreException("The relationship change key " + key + " is not valid, the available ones are " + KEYS + ".");
+                }
+            }
+            try {
+                this.source = (Node) Objects.requireNonNull(change.get("source"));
+                this.destination = (Node) Objects.requireNonNull(change.get("destination"));
+                this.type = (String) Objects.requireNonNull(change.get("type"));
+                this.props = change.containsKey("props") ? (Map<String, Object>) Objects.requireNonNull(change.get("props")) : Collections.emptyMap();
+                this.delete = change.containsKey("delete") && (Boolean) change.get("delete");
+            } catch (NullPointerException | ClassCastException e) {
+                throw new VersionerCoreException("The relationship change " + change + " is not valid, source and destination must be nodes and type a string.");
+            }
+            if (isSystemType(type)) {
+                throw new VersionerCoreException("It's not possible to change a System Relationship like " + type + ".");
+            }
+        }
+    }
+
+    /**
+     * RelationshipKey class, it identifies a versioned relationship of a State by its type and the R node it points to
+     */
+    private static class RelationshipKey {
+        private final String type;
+        private final long rNodeId;
+
+        private RelationshipKey(String type, long rNodeId) {
+            this.type = type;
+            this.rNodeId = rNodeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RelationshipKey that = (RelationshipKey) o;
+            return rNodeId == that.rNodeId && type.equals(that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, rNodeId);
+        }
     }
 }
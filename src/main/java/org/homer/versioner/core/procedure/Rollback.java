@@ -2,24 +2,29 @@ package org.homer.versioner.core.procedure;
 
 import org.homer.versioner.core.builders.GetBuilder;
 import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.delta.StateDelta;
 import org.homer.versioner.core.Utility;
+import org.homer.versioner.core.exception.VersionerCoreException;
 import org.homer.versioner.core.output.NodeOutput;
+import org.homer.versioner.core.output.RollbackJobOutput;
+import org.homer.versioner.core.rollback.RollbackJob;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 
 import java.time.LocalDateTime;
-import java.util.Calendar;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Spliterator;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
 import static org.homer.versioner.core.Utility.defaultToNow;
 import static org.homer.versioner.core.procedure.Update.connectStateToRs;
 import static org.neo4j.procedure.Mode.WRITE;
@@ -29,6 +34,9 @@ import static org.neo4j.procedure.Mode.WRITE;
  */
 public class Rollback extends CoreProcedure {
 
+    @Context
+    public GraphDatabaseService db;
+
     @Procedure(value = "graph.versioner.rollback", mode = WRITE)
     @Description("graph.versioner.rollback(entity, date) - Rollback the given Entity to its previous State")
     public Stream<NodeOutput> rollback(
@@ -38,40 +46,19 @@ public class Rollback extends CoreProcedure {
         LocalDateTime instantDate = defaultToNow(date);
 
         // Getting the CURRENT rel if it exists
-        Spliterator<Relationship> currentRelIterator = entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.CURRENT_TYPE)).spliterator();
-        Optional<Relationship> currentRelationshipOptional = StreamSupport.stream(currentRelIterator, false).filter(Objects::nonNull).findFirst();
-
-        Optional<Node> newState = currentRelationshipOptional.map(currentRelationship -> {
-
-            Node currentState = currentRelationship.getEndNode();
-
-            return getFirstAvailableRollbackNode(currentState).map(rollbackState -> {
-                LocalDateTime currentDate = (LocalDateTime) currentRelationship.getProperty("date");
-
-                // Creating the rollback state, from the previous one
-                Node result = Utility.cloneNode(transaction, rollbackState);
-
-                //Creating ROLLBACK_TYPE relationship
-                result.createRelationshipTo(rollbackState, RelationshipType.withName(Utility.ROLLBACK_TYPE));
-
-                // Updating CURRENT state
-                result = Utility.currentStateUpdate(entity, instantDate, currentRelationship, currentState, currentDate, result);
-
-                //Copy all the relationships
-                connectStateToRs(rollbackState, result);
-
-                log.info(Utility.LOGGER_TAG + "Rollback executed for Entity with id {}, adding a State with id {}", entity.getId(), result.getId());
-                return Optional.of(result);
-            }).orElseGet(() -> {
-                log.info(Utility.LOGGER_TAG + "Failed rollback for Entity with id {}, only one CURRENT State available", entity.getId());
-                return Optional.empty();
-            });
-        }).orElseGet(() -> {
+        Relationship currentRelationship = Utility.findCurrentRelationship(transaction, entity);
+        if (currentRelationship == null) {
             log.info(Utility.LOGGER_TAG + "Failed rollback for Entity with id {}, there is no CURRENT State available", entity.getId());
-            return Optional.empty();
-        });
+            return Stream.empty();
+        }
 
-        return newState.map(Utility::streamOfNodes).orElse(Stream.empty());
+        Node rollbackState = getFirstAvailableRollbackNode(currentRelationship.getEndNode());
+        if (rollbackState == null) {
+            log.info(Utility.LOGGER_TAG + "Failed rollback for Entity with id {}, only one CURRENT State available", entity.getId());
+            return Stream.empty();
+        }
+
+        return Utility.streamOfNodes(createRollbackState(entity, currentRelationship, rollbackState, instantDate));
     }
 
     @Procedure(value = "graph.versioner.rollback.to", mode = WRITE)
@@ -82,64 +69,116 @@ public class Rollback extends CoreProcedure {
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
         LocalDateTime instantDate = defaultToNow(date);
-        Optional<Node> newState = Optional.empty();
 
         Utility.checkRelationship(entity, state);
 
-        // If the given State is the CURRENT one, null must be returned
-        Spliterator<Relationship> currentRelIterator = state.getRelationships(Direction.INCOMING, RelationshipType.withName(Utility.CURRENT_TYPE)).spliterator();
-        Optional<Relationship> currentRelationshipOptional = StreamSupport.stream(currentRelIterator, false).filter(Objects::nonNull).findFirst();
-        if (!currentRelationshipOptional.isPresent()) {
-            // If the given State already has a ROLLBACK relationship, null must be returned
-            Spliterator<Relationship> rollbackRelIterator = state.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.ROLLBACK_TYPE)).spliterator();
-            Optional<Relationship> rollbackRelationshipOptional = StreamSupport.stream(rollbackRelIterator, false).filter(Objects::nonNull).findFirst();
-            if (!rollbackRelationshipOptional.isPresent()) {
-                // Otherwise, the node can be rolled back
-                currentRelIterator = entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.CURRENT_TYPE)).spliterator();
-                currentRelationshipOptional = StreamSupport.stream(currentRelIterator, false).filter(Objects::nonNull).findFirst();
-
-                newState = currentRelationshipOptional.map(currentRelationship -> {
-                    Node currentState = currentRelationship.getEndNode();
-                    LocalDateTime currentDate = (LocalDateTime) currentRelationship.getProperty("date");
-
-                    // Creating the rollback state, from the previous one
-                    Node result = Utility.cloneNode(transaction, state);
-
-                    //Creating ROLLBACK_TYPE relationship
-                    result.createRelationshipTo(state, RelationshipType.withName(Utility.ROLLBACK_TYPE));
-
-                    // Updating CURRENT state
-                    result = Utility.currentStateUpdate(entity, instantDate, currentRelationship, currentState, currentDate, result);
-
-                    //Copy all the relationships
-                    connectStateToRs(state, result);
-
-                    log.info(Utility.LOGGER_TAG + "Rollback executed for Entity with id {}, adding a State with id {}", entity.getId(), result.getId());
-
-                    return Optional.of(result);
-                }).orElseGet(() -> {
-                    log.info(Utility.LOGGER_TAG + "Failed rollback for Entity with id {}, there is no CURRENT State available", entity.getId());
-                    return Optional.empty();
-                });
+        // If the given State is the CURRENT one, or it already has a ROLLBACK relationship, nothing must be returned
+        if (state.hasRelationship(Direction.INCOMING, Utility.CURRENT) || state.hasRelationship(Direction.OUTGOING, Utility.ROLLBACK)) {
+            return Stream.empty();
+        }
+
+        // Otherwise, the node can be rolled back
+        Relationship currentRelationship = Utility.findCurrentRelationship(transaction, entity);
+        if (currentRelationship == null) {
+            log.info(Utility.LOGGER_TAG + "Failed rollback for Entity with id {}, there is no CURRENT State available", entity.getId());
+            return Stream.empty();
+        }
+
+        return Utility.streamOfNodes(createRollbackState(entity, currentRelationship, state, instantDate));
+    }
+
+    /**
+     * Creates the new CURRENT State of the given Entity, as a copy of the given State to rollback to
+     *
+     * @param entity              the Entity to rollback
+     * @param currentRelationship the CURRENT relationship of the Entity
+     * @param rollbackState       the State to rollback to
+     * @param instantDate         the date of the new State
+     * @return the new rollback State
+     */
+    private Node createRollbackState(Node entity, Relationship currentRelationship, Node rollbackState, LocalDateTime instantDate) {
+
+        Node currentState = currentRelationship.getEndNode();
+        LocalDateTime currentDate = (LocalDateTime) currentRelationship.getProperty("date");
+
+        // Creating the rollback state, from the previous one, rebuilding it if it is stored as a delta
+        Node result = StateDelta.isDelta(rollbackState)
+                ? Utility.setProperties(transaction.createNode(Utility.asLabels(rollbackState.getLabels())), StateDelta.getAllProperties(rollbackState))
+                : Utility.cloneNode(transaction, rollbackState);
+
+        //Creating ROLLBACK_TYPE relationship, and the ROLLBACK_TARGET one if the rolled back State is a rollback too
+        result.createRelationshipTo(rollbackState, Utility.ROLLBACK);
+        Node rollbackTarget = getRollbackChainEnd(rollbackState);
+        if (!rollbackTarget.equals(rollbackState)) {
+            result.createRelationshipTo(rollbackTarget, Utility.ROLLBACK_TARGET);
+        }
+
+        // Updating CURRENT state
+        result = Utility.currentStateUpdate(transaction, entity, instantDate, currentRelationship, currentState, currentDate, result);
+
+        //Copy all the relationships
+        connectStateToRs(entity, rollbackState, result);
+
+        log.info(Utility.LOGGER_TAG + "Rollback executed for Entity with id {}, adding a State with id {}", entity.getId(), result.getId());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Procedure(value = "graph.versioner.rollback.all.to", mode = WRITE)
+    @Description("graph.versioner.rollback.all.to(entities, date, {batchSize, concurrency}) - Rollback all the Entities with the given label, or the given Entities, to their States valid at the given date, in parallel batches committed separately.")
+    public Stream<RollbackJobOutput> rollbackAllTo(
+            @Name("entities") Object entities,
+            @Name("date") LocalDateTime date,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        RollbackJob job = new RollbackJob(db, log, date, defaultToNow(null), config);
+
+        RollbackJobOutput result;
+        if (entities instanceof String) {
+            // The label scan is consumed lazily, while the batches are rolled back
+            try (ResourceIterator<Node> scan = transaction.findNodes(Label.label((String) entities))) {
+                result = job.run(scan.stream().map(Node::getId).iterator());
             }
+        } else if (entities instanceof List && ((List<Object>) entities).stream().allMatch(entity -> entity instanceof Node)) {
+            result = job.run(((List<Node>) entities).stream().map(Node::getId).iterator());
+        } else {
+            throw new VersionerCoreException("The entities to rollback must be given as a label or as a list of Entity nodes.");
         }
 
-        return newState.map(Utility::streamOfNodes).orElse(Stream.empty());
+        log.info(LOGGER_TAG + "Rolled back {} Entities to {}, {} skipped", result.rolledBack, date, result.skipped);
+
+        return Stream.of(result);
     }
 
     /**
      * This method returns the first available State node, by a given State node to rollback
      *
      * @param state state to rollback
-     * @return the first available rollback node
+     * @return the first available rollback node, or null if there isn't any
      */
-    private Optional<Node> getFirstAvailableRollbackNode(Node state) {
-        return StreamSupport.stream(state.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.ROLLBACK_TYPE)).spliterator(), false).findFirst()
-                // Recursive iteration for ROLLBACKed State node
-                .map(e -> getFirstAvailableRollbackNode(e.getEndNode()))
-                // No ROLLBACK relationship found
-                .orElse(StreamSupport.stream(state.getRelationships(Direction.OUTGOING, RelationshipType.withName(Utility.PREVIOUS_TYPE)).spliterator(), false)
-                        .findFirst().map(Relationship::getEndNode));
+    private Node getFirstAvailableRollbackNode(Node state) {
+        // No ROLLBACK relationship found at the end of the chain
+        Relationship previousRel = getRollbackChainEnd(state).getSingleRelationship(Utility.PREVIOUS, Direction.OUTGOING);
+        return (previousRel == null) ? null : previousRel.getEndNode();
+    }
+
+    /**
+     * This method follows the ROLLBACK relationships from the given State node up to the first one without it.
+     * A ROLLBACK_TARGET relationship, recorded when a rollback State is created, points straight to the end of the
+     * chain of its ROLLBACK one, so the end is found in a constant number of hops; without it, the chain is walked.
+     *
+     * @param state the State node to start from
+     * @return the first State node without a ROLLBACK relationship, which can be the given one
+     */
+    public static Node getRollbackChainEnd(Node state) {
+        Node current = state;
+        Relationship rollbackRel = current.getSingleRelationship(Utility.ROLLBACK, Direction.OUTGOING);
+        while (rollbackRel != null) {
+            Relationship targetRel = current.getSingleRelationship(Utility.ROLLBACK_TARGET, Direction.OUTGOING);
+            current = (targetRel != null) ? targetRel.getEndNode() : rollbackRel.getEndNode();
+            rollbackRel = current.getSingleRelationship(Utility.ROLLBACK, Direction.OUTGOING);
+        }
+        return current;
     }
 
     @Procedure(value = "graph.versioner.rollback.nth", mode = WRITE)
@@ -151,7 +190,7 @@ public class Rollback extends CoreProcedure {
 
         LocalDateTime instantDate = defaultToNow(date);
 
-        return new GetBuilder().build()
+        return new GetBuilder().withTransaction(transaction).withLog(log).build()
                 .flatMap(get -> get.getNthState(entity, nthState).findFirst())
                 .map(state -> rollbackTo(entity, state.node, instantDate))
                 .orElse(Stream.empty());
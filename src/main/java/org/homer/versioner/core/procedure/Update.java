@@ -1,8 +1,12 @@
 package org.homer.versioner.core.procedure;
 
+import org.homer.versioner.core.config.EntityConfig;
 import org.homer.versioner.core.core.CoreProcedure;
+import org.homer.versioner.core.delta.StateDelta;
 import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.output.EntityStateOutput;
 import org.homer.versioner.core.output.NodeOutput;
+import org.homer.versioner.core.relationship.RelationshipSet;
 import org.neo4j.graphdb.*;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Mode;
@@ -11,9 +15,8 @@ import org.neo4j.procedure.Procedure;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static org.homer.versioner.core.Utility.*;
 
@@ -23,7 +26,6 @@ import static org.homer.versioner.core.Utility.*;
 public class Update extends CoreProcedure {
 
     public static final String DATE_FIELD = "date";
-    public static final String R_LABEL = "R";
 
     @Procedure(value = "graph.versioner.update", mode = Mode.WRITE)
     @Description("graph.versioner.update(entity, {key:value,...}, additionalLabel, date) - Add a new State to the given Entity.")
@@ -33,42 +35,23 @@ public class Update extends CoreProcedure {
             @Name(value = "additionalLabel", defaultValue = "") String additionalLabel,
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
-        // Creating the new State
-        List<String> labelNames = new ArrayList<>(Collections.singletonList(STATE_LABEL));
-        if (!additionalLabel.isEmpty()) {
-            labelNames.add(additionalLabel);
-        }
-        Node result = setProperties(transaction.createNode(asLabels(labelNames)), stateProps);
+        Node result = updateEntity(entity, stateProps, additionalLabel, date);
 
-        LocalDateTime instantDate = defaultToNow(date);
-
-        // Getting the CURRENT rel if it exist
-        Spliterator<Relationship> currentRelIterator = entity.getRelationships(Direction.OUTGOING, RelationshipType.withName(CURRENT_TYPE)).spliterator();
-        StreamSupport.stream(currentRelIterator, false).forEach(currentRel -> {
-            Node currentState = currentRel.getEndNode();
-
-            LocalDateTime currentDate = (LocalDateTime) currentRel.getProperty(DATE_FIELD);
-
-            // Creating PREVIOUS relationship between the current and the new State
-            result.createRelationshipTo(currentState, RelationshipType.withName(PREVIOUS_TYPE)).setProperty(DATE_PROP, currentDate);
-
-            // Updating the HAS_STATE rel for the current node, adding endDate
-            currentState.getRelationships(Direction.INCOMING, RelationshipType.withName(HAS_STATE_TYPE))
-                    .forEach(hasStatusRel -> hasStatusRel.setProperty(END_DATE_PROP, instantDate));
+        log.info(LOGGER_TAG + "Updated Entity with id {}, adding a State with id {}", entity.getId(), result.getId());
 
-            // Refactoring current relationship and adding the new ones
-            currentRel.delete();
+        return Stream.of(new NodeOutput(result));
+    }
 
-            // Connecting the new current state to Rs
-            connectStateToRs(currentState, result);
-        });
+    @Procedure(value = "graph.versioner.update.batch", mode = Mode.WRITE)
+    @Description("graph.versioner.update.batch([{entity, stateProps, additionalLabel, date},...]) - Add a new State to each of the given Entities.")
+    public Stream<EntityStateOutput> updateBatch(
+            @Name("updates") List<Map<String, Object>> updates) {
 
-        // Connecting the new current state to the Entity
-        addCurrentState(result, entity, instantDate);
+        List<EntityStateOutput> results = applyBatch(updates, item -> updateEntity(item.entity, item.stateProps, item.additionalLabel, item.date));
 
-        log.info(LOGGER_TAG + "Updated Entity with id {}, adding a State with id {}", entity.getId(), result.getId());
+        log.info(LOGGER_TAG + "Updated {} Entities in batch", results.size());
 
-        return Stream.of(new NodeOutput(result));
+        return results.stream();
     }
 
     @Procedure(value = "graph.versioner.patch", mode = Mode.WRITE)
@@ -79,27 +62,25 @@ public class Update extends CoreProcedure {
             @Name(value = "additionalLabel", defaultValue = "") String additionalLabel,
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
-        List<String> labelNames = getStateLabels(additionalLabel);
-        LocalDateTime instantDate = defaultToNow(date);
-        Optional<Relationship> currentRelationshipOpt = getCurrentRelationship(entity);
-
-        // Creating the new current state
-        Node newState = currentRelationshipOpt
-                .map(currentRelationship -> createPatchedState(stateProps, labelNames, instantDate, currentRelationship))
-                .orElseGet(() -> {
-                    Node result = setProperties(transaction.createNode(asLabels(labelNames)), stateProps);
-                    addCurrentState(result, entity, instantDate);
-                    return result;
-                });
-
-        //Copy all the relationships
-        currentRelationshipOpt.ifPresent(rel -> connectStateToRs(rel.getEndNode(), newState));
+        Node newState = patchEntity(entity, stateProps, additionalLabel, date);
 
         log.info(LOGGER_TAG + "Patched Entity with id {}, adding a State with id {}", entity.getId(), newState.getId());
 
         return Stream.of(new NodeOutput(newState));
     }
 
+    @Procedure(value = "graph.versioner.patch.batch", mode = Mode.WRITE)
+    @Description("graph.versioner.patch.batch([{entity, stateProps, additionalLabel, date},...]) - Add a new State to each of the given Entities, starting from their previous one. It will update all the properties, not asLabels.")
+    public Stream<EntityStateOutput> patchBatch(
+            @Name("patches") List<Map<String, Object>> patches) {
+
+        List<EntityStateOutput> results = applyBatch(patches, item -> patchEntity(item.entity, item.stateProps, item.additionalLabel, item.date));
+
+        log.info(LOGGER_TAG + "Patched {} Entities in batch", results.size());
+
+        return results.stream();
+    }
+
     @Procedure(value = "graph.versioner.patch.from", mode = Mode.WRITE)
     @Description("graph.versioner.patch.from(entity, state, useCurrentRel, date) - Add a new State to the given Entity, starting from the given one. It will update all the properties, not asLabels. If useCurrentRel is false, it will replace the current rels to Rs with the state ones.")
     public Stream<NodeOutput> patchFrom(
@@ -109,21 +90,21 @@ public class Update extends CoreProcedure {
             @Name(value = "date", defaultValue = "null") LocalDateTime date) {
 
         LocalDateTime instantDate = defaultToNow(date);
-        List<String> labels = streamOfIterable(state.getLabels()).map(Label::name).collect(Collectors.toList());
+        Label[] labels = asLabels(state.getLabels());
 
         checkRelationship(entity, state);
 
-        Optional<Relationship> currentRelationshipOpt = getCurrentRelationship(entity);
+        Optional<Relationship> currentRelationshipOpt = getCurrentRelationship(transaction, entity);
 
         Node newState = currentRelationshipOpt
-                .map(currentRelationship -> createPatchedState(state.getAllProperties(), labels, instantDate, currentRelationship))
+                .map(currentRelationship -> createPatchedState(StateDelta.getAllProperties(state), labels, instantDate, currentRelationship))
                 .orElseThrow(() -> new VersionerCoreException("Can't find any current State node for the given entity."));
 
         //Copy all the relationships
         if (Boolean.TRUE.equals(useCurrentRel)) {
-            currentRelationshipOpt.ifPresent(rel -> connectStateToRs(rel.getEndNode()   , newState));
+            currentRelationshipOpt.ifPresent(rel -> connectStateToRs(entity, rel.getEndNode(), newState));
         } else {
-            connectStateToRs(state, newState);
+            connectStateToRs(entity, state, newState);
         }
 
         log.info(LOGGER_TAG + "Patched Entity with id {}, adding a State with id {}", entity.getId(), newState.getId());
@@ -131,24 +112,177 @@ public class Update extends CoreProcedure {
         return Stream.of(new NodeOutput(newState));
     }
 
-    private Node createPatchedState(Map<String, Object> stateProps, List<String> labels, LocalDateTime instantDate, Relationship currentRelationship) {
+    /**
+     * Adds a new current State to the given Entity, copying the properties of the current one. Unlike a patch without
+     * properties, the new State is always created, so it can be used to change the versioned relationships.
+     *
+     * @param entity a {@link Node} representing the Entity
+     * @param date   the date of the new State, or null for now
+     * @return the new current State
+     */
+    public Node copyCurrentState(Node entity, LocalDateTime date) {
+
+        return patchEntity(entity, Collections.emptyMap(), asStateLabels(null), defaultToNow(date), findCurrentRelationship(transaction, entity));
+    }
+
+    private Node updateEntity(Node entity, Map<String, Object> stateProps, String additionalLabel, LocalDateTime date) {
+
+        Label[] labels = asStateLabels(additionalLabel);
+
+        // Getting the CURRENT rel if it exist
+        Relationship currentRel = findCurrentRelationship(transaction, entity);
+        if (isUnchanged(entity, currentRel, labels, stateProps, true)) {
+            return currentRel.getEndNode();
+        }
+
+        // Creating the new State
+        Node result = setProperties(transaction.createNode(labels), stateProps);
+
+        LocalDateTime instantDate = defaultToNow(date);
+
+        if (currentRel == null) {
+            addCurrentState(transaction, result, entity, instantDate);
+            return result;
+        }
+
+        Node currentState = currentRel.getEndNode();
+        currentStateUpdate(transaction, entity, instantDate, currentRel, currentState, (LocalDateTime) currentRel.getProperty(DATE_FIELD), result);
+
+        // Connecting the new current state to Rs
+        connectStateToRs(entity, currentState, result);
+
+        return result;
+    }
+
+    private Node patchEntity(Node entity, Map<String, Object> stateProps, String additionalLabel, LocalDateTime date) {
+
+        Label[] labels = asStateLabels(additionalLabel);
+        Relationship currentRelationship = findCurrentRelationship(transaction, entity);
+        if (isUnchanged(entity, currentRelationship, labels, stateProps, false)) {
+            return currentRelationship.getEndNode();
+        }
+
+        return patchEntity(entity, stateProps, labels, defaultToNow(date), currentRelationship);
+    }
+
+    private Node patchEntity(Node entity, Map<String, Object> stateProps, Label[] labels, LocalDateTime instantDate, Relationship currentRelationship) {
+
+        // Creating the new current state
+        if (currentRelationship == null) {
+            Node result = setProperties(transaction.createNode(labels), stateProps);
+            addCurrentState(transaction, result, entity, instantDate);
+            return result;
+        }
+
+        Node currentState = currentRelationship.getEndNode();
+        Node newState = createPatchedState(stateProps, labels, instantDate, currentRelationship);
+
+        //Copy all the relationships
+        connectStateToRs(entity, currentState, newState);
+
+        return newState;
+    }
+
+    /**
+     * Checks if the new State would be equal to the current one, when the Entity skips the unchanged States
+     *
+     * @param entity     a {@link Node} representing the Entity
+     * @param currentRel the CURRENT {@link Relationship} of the Entity, if any
+     * @param labels     the labels of the new State
+     * @param stateProps the properties of the new State
+     * @param replace    true for an update, false for a patch
+     * @return true if no new State has to be created
+     */
+    private boolean isUnchanged(Node entity, Relationship currentRel, Label[] labels, Map<String, Object> stateProps, boolean replace) {
+
+        if (currentRel == null || !EntityConfig.isSkipUnchanged(entity) || !isSameState(currentRel.getEndNode(), labels, stateProps, replace)) {
+            return false;
+        }
+        log.debug(LOGGER_TAG + "Entity with id {} unchanged, keeping the State with id {}", entity.getId(), currentRel.getEndNodeId());
+        return true;
+    }
+
+    /**
+     * Applies the given operation to each item of a batch, in the given order. The write locks of all the Entities
+     * are taken upfront, in ascending id order, so that concurrent batches touching the same Entities can't deadlock.
+     *
+     * @param items     a {@link List} of {entity, stateProps, additionalLabel, date} maps
+     * @param operation the operation creating the new State of a single item
+     * @return a {@link List} of {@link EntityStateOutput}, in the given order
+     */
+    private List<EntityStateOutput> applyBatch(List<Map<String, Object>> items, Function<BatchItem, Node> operation) {
+
+        List<BatchItem> batchItems = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            batchItems.add(new BatchItem(i, items.get(i)));
+        }
+
+        Map<Long, Node> entitiesById = new TreeMap<>();
+        batchItems.forEach(item -> entitiesById.putIfAbsent(item.entity.getId(), item.entity));
+        entitiesById.values().forEach(transaction::acquireWriteLock);
+
+        List<EntityStateOutput> results = new ArrayList<>(batchItems.size());
+        for (BatchItem item : batchItems) {
+            Node newState = operation.apply(item);
+            log.debug(LOGGER_TAG + "Batch item {}: Entity with id {}, adding a State with id {}", item.index, item.entity.getId(), newState.getId());
+            results.add(new EntityStateOutput(item.entity, newState));
+        }
+        return results;
+    }
+
+    private Node createPatchedState(Map<String, Object> stateProps, Label[] labels, LocalDateTime instantDate, Relationship currentRelationship) {
 
         Node currentState = currentRelationship.getEndNode();
         LocalDateTime currentDate = (LocalDateTime) currentRelationship.getProperty(DATE_FIELD);
         Node entity = currentRelationship.getStartNode();
 
         // Patching the current node into the new one.
-        Map<String, Object> patchedProps = currentState.getAllProperties();
-        patchedProps.putAll(stateProps);
-        Node newStateToElaborate = setProperties(transaction.createNode(asLabels(labels)), patchedProps);
+        Node newStateToElaborate = setProperties(copyProperties(currentState, transaction.createNode(labels)), stateProps);
 
         // Updating CURRENT state
-        return currentStateUpdate(entity, instantDate, currentRelationship, currentState, currentDate, newStateToElaborate);
+        return currentStateUpdate(transaction, entity, instantDate, currentRelationship, currentState, currentDate, newStateToElaborate);
+    }
+
+    protected static void connectStateToRs(Node entity, Node sourceState, Node newState) {
+        RelationshipSet.connect(entity, sourceState, newState);
     }
 
-    protected static void connectStateToRs(Node sourceState, Node newState) {
-        streamOfIterable(sourceState.getRelationships(Direction.OUTGOING))
-                .filter(rel -> rel.getEndNode().hasLabel(Label.label(R_LABEL)))
-                .forEach(rel -> RelationshipProcedure.createRelationship(newState, rel.getEndNode(), rel.getType().name(), rel.getAllProperties()));
+    /**
+     * BatchItem class, a single {entity, stateProps, additionalLabel, date} item of a batch
+     */
+    private static class BatchItem {
+        private static final List<String> KEYS = Arrays.asList("entity", "stateProps", "additionalLabel", DATE_FIELD);
+        private static final Map<String, Class<?>> KEY_TYPES = Map.of("entity", Node.class, "stateProps", Map.class, "additionalLabel", String.class, DATE_FIELD, LocalDateTime.class);
+
+        private final int index;
+        private final Node entity;
+        private final Map<String, Object> stateProps;
+        private final String additionalLabel;
+        private final LocalDateTime date;
+
+        @SuppressWarnings("unchecked")
+        private BatchItem(int index, Map<String, Object> item) {
+            this.index = index;
+            if (item == null || !(item.get("entity") instanceof Node)) {
+                throw invalidItem(index);
+            }
+            for (Map.Entry<String, Object> entry : item.entrySet()) {
+                Class<?> type = KEY_TYPES.get(entry.getKey());
+                if (type == null) {
+                    throw new VersionerCoreException("The batch item at index " + index + " has the unknown key " + entry.getKey() + ", the available ones are " + KEYS + ".");
+                }
+                if (entry.getValue() != null && !type.isInstance(entry.getValue())) {
+                    throw invalidItem(index);
+                }
+            }
+            this.entity = (Node) item.get("entity");
+            this.stateProps = item.get("stateProps") == null ? Collections.emptyMap() : (Map<String, Object>) item.get("stateProps");
+            this.additionalLabel = item.get("additionalLabel") == null ? "" : (String) item.get("additionalLabel");
+            this.date = (LocalDateTime) item.get(DATE_FIELD);
+        }
+
+        private static VersionerCoreException invalidItem(int index) {
+            return new VersionerCoreException("The batch item at index " + index + " is not valid, it needs an entity node and optional stateProps, additionalLabel and date.");
+        }
     }
 }
@@ -0,0 +1,104 @@
+package org.homer.versioner.core.relationship;
+
+import org.homer.versioner.core.config.EntityConfig;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import static org.homer.versioner.core.Utility.*;
+
+/**
+ * RelationshipSet class, it handles the relationships from States to R nodes, also known as versioned relationships.
+ * <p>
+ * By default, each new State gets a copy of the versioned relationships of the State it comes from. If the Entity
+ * has the {@link EntityConfig#SHARED_RELATIONSHIPS} option enabled, the new State gets a single {@code SHARES_RELS}
+ * relationship to the State owning the relationship set instead. A State owning a relationship set is never changed
+ * anymore, so the sets are copied (materialized) only when a State needs to change its own relationships.
+ * SHARES_RELS relationships always point to the owner, so resolving a set takes a single hop.
+ */
+public class RelationshipSet {
+
+    private RelationshipSet() {
+    }
+
+    /**
+     * Gives the versioned relationships of the source State to the new one, by sharing or copying them
+     *
+     * @param entity      a {@link Node} representing the Entity owning the States
+     * @param sourceState a {@link Node} representing the State to take the relationships from
+     * @param newState    a {@link Node} representing the new State
+     */
+    public static void connect(Node entity, Node sourceState, Node newState) {
+
+        Node owner = getOwner(sourceState);
+        if (EntityConfig.isSharedRelationships(entity)) {
+            newState.createRelationshipTo(owner, SHARES_RELS);
+        } else {
+            copy(owner, newState);
+        }
+    }
+
+    /**
+     * Returns the State owning the versioned relationships of the given one, which can be the State itself
+     *
+     * @param state a {@link Node} representing the State
+     * @return the owner State
+     */
+    public static Node getOwner(Node state) {
+
+        Relationship sharesRels = state.getSingleRelationship(SHARES_RELS, Direction.OUTGOING);
+        return (sharesRels == null) ? state : sharesRels.getEndNode();
+    }
+
+    /**
+     * Makes the given State the owner of its versioned relationships, copying them from the shared set if needed.
+     * It must be called before changing the versioned relationships of a State.
+     *
+     * @param state a {@link Node} representing the State
+     * @return the given State
+     */
+    public static Node materialize(Node state) {
+
+        Relationship sharesRels = state.getSingleRelationship(SHARES_RELS, Direction.OUTGOING);
+        if (sharesRels != null) {
+            copy(sharesRels.getEndNode(), state);
+            sharesRels.delete();
+        }
+        return state;
+    }
+
+    /**
+     * Hands the relationship set owned by the given State over to one of its sharing States, which is materialized,
+     * while all the other sharing States are pointed to it. It must be called before deleting an owner State.
+     *
+     * The SHARES_RELS relationships towards the given owner are all deleted.
+     *
+     * @param owner    a {@link Node} representing the State owning the relationship set
+     * @param newOwner a {@link Node} representing a State sharing the relationship set, which will own it
+     * @return the number of created relationships
+     */
+    public static long transfer(Node owner, Node newOwner) {
+
+        long created = copy(owner, newOwner);
+        newOwner.getSingleRelationship(SHARES_RELS, Direction.OUTGOING).delete();
+        for (Relationship sharesRels : owner.getRelationships(Direction.INCOMING, SHARES_RELS)) {
+            sharesRels.getStartNode().createRelationshipTo(newOwner, SHARES_RELS);
+            sharesRels.delete();
+            created++;
+        }
+        return created;
+    }
+
+    private static long copy(Node owner, Node newState) {
+
+        long copied = 0;
+        for (Relationship rel : owner.getRelationships(Direction.OUTGOING)) {
+            Node rNode = rel.getEndNode();
+            if (rNode.hasLabel(R)) {
+                copyProperties(rel, newState.createRelationshipTo(rNode, rel.getType()));
+                copied++;
+            }
+        }
+        return copied;
+    }
+}
@@ -0,0 +1,146 @@
+package org.homer.versioner.core.rollback;
+
+import org.homer.versioner.core.Utility;
+import org.homer.versioner.core.batch.BatchRunner;
+import org.homer.versioner.core.builders.RollbackBuilder;
+import org.homer.versioner.core.exception.VersionerCoreException;
+import org.homer.versioner.core.index.StateIndex;
+import org.homer.versioner.core.output.RollbackJobOutput;
+import org.homer.versioner.core.procedure.Rollback;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.homer.versioner.core.Utility.LOGGER_TAG;
+
+/**
+ * RollbackJob class, it rolls back many Entities to the States they had at a given date, as
+ * {@link Rollback#rollbackTo(Node, Node, LocalDateTime)} does for a single Entity.
+ * <p>
+ * The Entities are split into batches, which are rolled back by a bounded pool of workers, each batch in its own
+ * transaction. The State valid at the date is resolved through the index; if it is a rollback State, the Entity is
+ * rolled back to the State it was cloned from, found at the end of its ROLLBACK chain. An Entity whose current State
+ * already has the content of that State, or which had no State at the date, is skipped, so a job stopped before its
+ * end can simply be started again.
+ */
+public class RollbackJob {
+
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String CONCURRENCY = "concurrency";
+
+    private static final List<String> CONFIG = Arrays.asList(BATCH_SIZE, CONCURRENCY);
+
+    private final GraphDatabaseService db;
+    private final Log log;
+    private final LocalDateTime date;
+    private final LocalDateTime rollbackDate;
+    private final int batchSize;
+    private final int concurrency;
+
+    private long entities;
+    private long rolledBack;
+    private long skipped;
+
+    /**
+     * Constructor method
+     *
+     * @param db           the {@link GraphDatabaseService} used to open the batch transactions
+     * @param log          the {@link Log} used to report the progress
+     * @param date         the date whose States are restored
+     * @param rollbackDate the date of the new rollback States
+     * @param config       a {@link Map} with the optional batchSize and concurrency of the job
+     */
+    public RollbackJob(GraphDatabaseService db, Log log, LocalDateTime date, LocalDateTime rollbackDate, Map<String, Object> config) {
+
+        for (String key : config.keySet()) {
+            if (!CONFIG.contains(key)) {
+                throw new VersionerCoreException("The rollback job config " + key + " is not valid, the available ones are " + CONFIG + ".");
+            }
+        }
+        if (date == null) {
+            throw new VersionerCoreException("The date to rollback the Entities to is mandatory.");
+        }
+
+        this.db = db;
+        this.log = log;
+        this.date = date;
+        this.rollbackDate = rollbackDate;
+        try {
+            this.batchSize = config.containsKey(BATCH_SIZE) ? ((Number) config.get(BATCH_SIZE)).intValue() : 1000;
+            this.concurrency = config.containsKey(CONCURRENCY) ? ((Number) config.get(CONCURRENCY)).intValue() : Runtime.getRuntime().availableProcessors();
+        } catch (NullPointerException | ClassCastException e) {
+            throw new VersionerCoreException("The rollback job config is not valid, batchSize and concurrency must be integers.");
+        }
+        if (this.batchSize < 1 || this.concurrency < 1) {
+            throw new VersionerCoreException("The batchSize and concurrency of the rollback job must be at least 1.");
+        }
+    }
+
+    /**
+     * Runs the job, returning once all the given Entities have been rolled back
+     *
+     * @param ids an {@link Iterator} over the ids of the Entities to rollback, consumed lazily
+     * @return a {@link RollbackJobOutput} with the totals of the job
+     */
+    public RollbackJobOutput run(Iterator<Long> ids) {
+
+        long start = System.nanoTime();
+        BatchRunner runner = new BatchRunner(log, "Rollback job to " + date, "versioner-rollback", concurrency);
+        long batches = runner.submitBatches(ids, batchSize, (batch, sequence) -> {
+            long batchRolledBack = runner.withRetries("starting at id " + batch.get(0), () -> rollbackBatch(batch));
+            completeBatch(batch.size(), batchRolledBack);
+        });
+        try {
+            runner.await();
+        } catch (RuntimeException e) {
+            log.error(LOGGER_TAG + "Rollback job to {} failed after rolling back {} Entities, it can be started again", date, rolledBack);
+            throw e;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(LOGGER_TAG + "Rollback job to {} completed: {} Entities rolled back and {} skipped in {} seconds", date, rolledBack, skipped, seconds);
+        return new RollbackJobOutput(entities, rolledBack, skipped, batches, seconds, seconds > 0 ? entities / seconds : 0d);
+    }
+
+    /**
+     * Rolls back the given batch of Entities in a new transaction
+     *
+     * @param batch the ids of the Entities
+     * @return the number of Entities rolled back
+     */
+    private long rollbackBatch(List<Long> batch) {
+
+        long batchRolledBack = 0;
+        try (Transaction tx = db.beginTx()) {
+            List<Node> batchEntities = BatchRunner.lockEntities(tx, batch);
+            Rollback rollback = new RollbackBuilder().withTransaction(tx).withLog(log).build()
+                    .orElseThrow(() -> new VersionerCoreException("The rollback procedure can't be instantiated."));
+            for (Node entity : batchEntities) {
+                Optional<Node> target = StateIndex.findStateAt(tx, entity, date).map(Rollback::getRollbackChainEnd);
+                Optional<Node> current = Utility.getCurrentState(tx, entity).map(Rollback::getRollbackChainEnd);
+                if (target.isPresent() && !target.equals(current)
+                        && rollback.rollbackTo(entity, target.get(), rollbackDate).findFirst().isPresent()) {
+                    batchRolledBack++;
+                }
+            }
+            tx.commit();
+        }
+        return batchRolledBack;
+    }
+
+    private synchronized void completeBatch(int size, long batchRolledBack) {
+
+        entities += size;
+        rolledBack += batchRolledBack;
+        skipped += size - batchRolledBack;
+        log.info(LOGGER_TAG + "Rollback job to {}: {} Entities processed, {} rolled back", date, entities, rolledBack);
+    }
+}
@@ -0,0 +1,99 @@
+package org.homer.versioner.core.cache;
+
+import org.homer.versioner.core.procedure.Get;
+import org.homer.versioner.core.procedure.Init;
+import org.homer.versioner.core.procedure.Update;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
+import org.neo4j.driver.*;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.io.IOException;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * CurrentStateCacheTest class, it contains all the method used to test the CurrentStateCache consistency
+ */
+public class CurrentStateCacheTest {
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Get.class).withProcedure(Update.class).withProcedure(Init.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldGetTheNewCurrentStateAfterACommittedUpdate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:0})");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node").consume();
+
+            // When
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:1}) YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity)-[c:CURRENT]->(s:State) DELETE c WITH e, s CREATE (e)-[:CURRENT {date:localdatetime()}]->(s)").consume();
+            Result result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node");
+
+            // Then
+            assertThat(result.single().get("node").asNode().get("version").asLong(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void shouldGetTheOldCurrentStateAfterARolledBackUpdate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:0})");
+
+            // When
+            try (Transaction transaction = session.beginTransaction()) {
+                transaction.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:1}) YIELD node RETURN node").consume();
+                Result uncommittedResult = transaction.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node");
+                assertThat(uncommittedResult.single().get("node").asNode().get("version").asLong(), equalTo(1L));
+                transaction.rollback();
+            }
+            Result result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node");
+
+            // Then
+            assertThat(result.single().get("node").asNode().get("version").asLong(), equalTo(0L));
+        }
+    }
+
+    @Test
+    public void shouldGiveEachDatabaseItsOwnCache() throws IOException {
+        // Given
+        DatabaseManagementService otherManagementService = new DatabaseManagementServiceBuilder(folder.newFolder().toPath()).build();
+        GraphDatabaseService otherDatabase = otherManagementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
+
+        try (org.neo4j.graphdb.Transaction transaction = neo4j.defaultDatabaseService().beginTx();
+             org.neo4j.graphdb.Transaction sameDatabaseTransaction = neo4j.defaultDatabaseService().beginTx()) {
+            CurrentStateCache cache = CurrentStateCache.of(transaction);
+            CurrentStateCache otherCache;
+            try (org.neo4j.graphdb.Transaction otherTransaction = otherDatabase.beginTx()) {
+                otherCache = CurrentStateCache.of(otherTransaction);
+            }
+
+            // When
+            otherManagementService.shutdown();
+
+            // Then
+            assertThat(cache == null, equalTo(false));
+            assertThat(CurrentStateCache.of(sameDatabaseTransaction) == cache, equalTo(true));
+            assertThat(otherCache == null || otherCache == cache, equalTo(false));
+        }
+    }
+}
+
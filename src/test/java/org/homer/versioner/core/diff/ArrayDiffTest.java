@@ -0,0 +1,123 @@
+package org.homer.versioner.core.diff;
+
+import org.homer.versioner.core.output.ElementDiffOutput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * ArrayDiffTest class, it contains all the method used to test the ArrayDiff hunks
+ */
+public class ArrayDiffTest {
+
+    @Test
+    public void shouldReplaceASingleElementOfALongArray() {
+        // Given
+        long[] from = new long[10000];
+        Arrays.setAll(from, i -> i);
+        long[] to = from.clone();
+        to[5000] = -1L;
+
+        // When
+        List<ElementDiffOutput> hunks = ArrayDiff.between("values", from, to);
+
+        // Then
+        assertThat(hunks.size(), is(1));
+        assertThat(hunks.get(0).operation, is("REPLACE"));
+        assertThat(hunks.get(0).label, is("values"));
+        assertThat(hunks.get(0).index, is(5000L));
+        assertThat(hunks.get(0).oldValue, is(new long[]{5000L}));
+        assertThat(hunks.get(0).newValue, is(new long[]{-1L}));
+    }
+
+    @Test
+    public void shouldDescribeInsertionsAndDeletionsWithTheirSlices() {
+        // Given
+        String[] from = {"a", "b", "c", "d", "e"};
+        String[] to = {"x", "a", "b", "d", "e", "y", "z"};
+
+        // When
+        List<ElementDiffOutput> hunks = ArrayDiff.between("tags", from, to);
+
+        // Then
+        assertThat(hunks.stream().map(hunk -> hunk.operation + ":" + hunk.index).collect(Collectors.toList()),
+                is(Arrays.asList("INSERT:0", "DELETE:2", "INSERT:5")));
+        assertThat(hunks.get(0).oldValue, is(nullValue()));
+        assertThat(hunks.get(0).newValue, is(new String[]{"x"}));
+        assertThat(hunks.get(1).oldValue, is(new String[]{"c"}));
+        assertThat(hunks.get(1).newValue, is(nullValue()));
+        assertThat(hunks.get(2).newValue, is(new String[]{"y", "z"}));
+    }
+
+    @Test
+    public void shouldNotDiffArraysOfDifferentTypes() {
+        assertThat(ArrayDiff.between("values", new long[]{1L}, new double[]{1d}), is(nullValue()));
+        assertThat(ArrayDiff.between("values", new long[]{1L}, 1L), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGetAMinimalEditScriptRebuildingTheNewArray() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            // Given
+            long[] from = randomArray(random);
+            long[] to = randomArray(random);
+
+            // When
+            List<ElementDiffOutput> hunks = ArrayDiff.between("values", from, to);
+
+            // Then
+            assertThat(apply(from, hunks), is(to));
+            long edits = hunks.stream()
+                    .mapToLong(hunk -> (hunk.oldValue == null ? 0 : ((long[]) hunk.oldValue).length) + (hunk.newValue == null ? 0 : ((long[]) hunk.newValue).length))
+                    .sum();
+            assertThat(edits, is((long) (from.length + to.length - 2 * lcs(from, to))));
+        }
+    }
+
+    private long[] randomArray(Random random) {
+        long[] array = new long[random.nextInt(30)];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt(4);
+        }
+        return array;
+    }
+
+    private long[] apply(long[] from, List<ElementDiffOutput> hunks) {
+        List<Long> result = new ArrayList<>();
+        int i = 0;
+        for (ElementDiffOutput hunk : hunks) {
+            while (i < hunk.index) {
+                result.add(from[i++]);
+            }
+            if (hunk.oldValue != null) {
+                i += ((long[]) hunk.oldValue).length;
+            }
+            if (hunk.newValue != null) {
+                Arrays.stream((long[]) hunk.newValue).forEach(result::add);
+            }
+        }
+        while (i < from.length) {
+            result.add(from[i++]);
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private int lcs(long[] a, long[] b) {
+        int[][] lengths = new int[a.length + 1][b.length + 1];
+        for (int i = 1; i <= a.length; i++) {
+            for (int j = 1; j <= b.length; j++) {
+                lengths[i][j] = (a[i - 1] == b[j - 1]) ? lengths[i - 1][j - 1] + 1 : Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+            }
+        }
+        return lengths[a.length][b.length];
+    }
+}
@@ -0,0 +1,170 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * ChangesTest class, it contains all the method used to test Changes class methods
+ */
+public class ChangesTest {
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Changes.class).withProcedure(Init.class).withProcedure(Update.class).withProcedure(Rollback.class);
+
+    /*------------------------------*/
+    /*         changes.since        */
+    /*------------------------------*/
+
+    @Test
+    public void shouldStreamTheNewStatesInCommitOrderFromTheWatermark() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.changes.enable() YIELD watermark RETURN watermark");
+            session.run("CALL graph.versioner.init('Entity', {key:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("CALL graph.versioner.init('Entity', {key:'b'}, {version:0}, '', localdatetime('2000-01-05T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (e:Entity {key:'a'}) WITH e CALL graph.versioner.update(e, {version:1, name:'a'}, '', localdatetime('2000-01-02T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (e:Entity {key:'a'}) WITH e CALL graph.versioner.rollback(e, localdatetime('2000-01-03T00:00:00')) YIELD node RETURN node");
+            awaitSequencer(session);
+
+            // When
+            List<Record> firstPage = session.run("CALL graph.versioner.changes.since(null, 2) YIELD seq, entity, date, watermark RETURN seq, entity.key as key, date, watermark").list();
+            String watermark = firstPage.get(1).get("watermark").asString();
+            List<Record> secondPage = session.run("CALL graph.versioner.changes.since($watermark, 10, true) YIELD seq, entity, state, previousState, diff, watermark RETURN seq, entity.key as key, state.version as version, previousState.version as previousVersion, diff, watermark",
+                    Values.parameters("watermark", watermark)).list();
+            String lastWatermark = secondPage.get(1).get("watermark").asString();
+            Result emptyResult = session.run("CALL graph.versioner.changes.since($watermark) YIELD seq RETURN seq", Values.parameters("watermark", lastWatermark));
+
+            // Then
+            assertThat(firstPage.size(), equalTo(2));
+            assertThat(firstPage.get(0).get("seq").asLong(), equalTo(1L));
+            assertThat(firstPage.get(0).get("key").asString(), equalTo("a"));
+            assertThat(firstPage.get(1).get("key").asString(), equalTo("b"));
+            assertThat(firstPage.get(1).get("date").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 5, 0, 0)));
+            assertThat(secondPage.size(), equalTo(2));
+            assertThat(secondPage.get(0).get("seq").asLong(), equalTo(3L));
+            assertThat(secondPage.get(0).get("version").asLong(), equalTo(1L));
+            assertThat(secondPage.get(0).get("previousVersion").asLong(), equalTo(0L));
+            List<Object> diff = secondPage.get(0).get("diff").asList(value -> value.get("operation").asString() + ":" + value.get("label").asString());
+            assertThat(diff, equalTo(Arrays.asList("UPDATE:version", "ADD:name")));
+            assertThat(secondPage.get(1).get("seq").asLong(), equalTo(4L));
+            assertThat(secondPage.get(1).get("version").asLong(), equalTo(0L));
+            assertThat(emptyResult.hasNext(), equalTo(false));
+        }
+    }
+
+    @Test
+    public void shouldNotRecordTheNewStatesIfTheFeedIsNotEnabled() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+
+            // When
+            Result result = session.run("CALL graph.versioner.changes.since() YIELD seq RETURN seq");
+            Record enableResult = session.run("CALL graph.versioner.changes.enable() YIELD watermark RETURN watermark").single();
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:1}) YIELD node RETURN node");
+            awaitSequencer(session);
+            Result nextResult = session.run("CALL graph.versioner.changes.since() YIELD seq, state RETURN seq, state.version as version");
+
+            // Then
+            assertThat(result.hasNext(), equalTo(false));
+            assertThat(enableResult.get("watermark").isNull(), equalTo(true));
+            Record next = nextResult.single();
+            assertThat(next.get("seq").asLong(), equalTo(1L));
+            assertThat(next.get("version").asLong(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void shouldNotMakeTheWritingTransactionsWaitForEachOther() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session();
+             Session firstSession = driver.session(); Session secondSession = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.changes.enable() YIELD watermark RETURN watermark");
+            session.run("UNWIND ['a', 'b'] AS key CALL graph.versioner.init('Entity', {key:key}, {version:0}) YIELD node RETURN node");
+            awaitSequencer(session);
+
+            // When
+            try (Transaction first = firstSession.beginTransaction(); Transaction second = secondSession.beginTransaction()) {
+                first.run("MATCH (e:Entity {key:'a'}) WITH e CALL graph.versioner.update(e, {version:1}) YIELD node RETURN node").consume();
+                second.run("MATCH (e:Entity {key:'b'}) WITH e CALL graph.versioner.update(e, {version:1}) YIELD node RETURN node").consume();
+                second.commit();
+                first.commit();
+            }
+            awaitSequencer(session);
+            List<Record> result = session.run("CALL graph.versioner.changes.since() YIELD seq, entity, state RETURN seq, entity.key AS key, state.version AS version").list();
+
+            // Then
+            assertThat(result.size(), equalTo(4));
+            for (int i = 0; i < 4; i++) {
+                assertThat(result.get(i).get("seq").asLong(), equalTo(i + 1L));
+            }
+            assertThat(result.get(2).get("version").asLong(), equalTo(1L));
+            assertThat(result.get(3).get("version").asLong(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void shouldNotReadTheFeedFromAWatermarkPointingToAnotherNode() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.changes.enable() YIELD watermark RETURN watermark");
+            session.run("CALL graph.versioner.init('Entity', {key:'a'}, {version:0}) YIELD node RETURN node");
+            awaitSequencer(session);
+            long changeId = session.run("MATCH (c:Change) RETURN id(c) AS id").single().get("id").asLong();
+            String watermark = Base64.getUrlEncoder().withoutPadding().encodeToString(("2:" + changeId).getBytes(StandardCharsets.UTF_8));
+
+            // When
+            try {
+                session.run("CALL graph.versioner.changes.since($watermark) YIELD seq RETURN seq", Values.parameters("watermark", watermark)).list();
+                fail();
+            } catch (ClientException e) {
+                // Then
+                assertThat(e.getMessage(), containsString("doesn't point to a change of the feed"));
+            }
+        }
+    }
+
+    /**
+     * Waits until the changes committed so far have been numbered by the sequencer, which runs after the commit
+     */
+    private void awaitSequencer(Session session) {
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (session.run("MATCH (c:PendingChange) RETURN count(c) AS pending").single().get("pending").asLong() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("The pending changes haven't been sequenced");
+            }
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail();
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * CompactTest class, it contains all the method used to test Compact class methods
+ */
+public class CompactTest {
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Compact.class).withProcedure(Init.class).withProcedure(Update.class).withProcedure(Get.class)
+            .withProcedure(Rollback.class).withProcedure(Diff.class).withProcedure(RelationshipProcedure.class)
+            .withProcedure(ConfigProcedure.class);
+
+    /*------------------------------*/
+    /*            compact           */
+    /*------------------------------*/
+
+    @Test
+    public void shouldDeleteTheOldStatesKeepingTheLastOnes() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            for (int i = 1; i <= 9; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            // When
+            Record result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.compact(e, {keepLast:3}) YIELD states, nodes, relationships RETURN states, nodes, relationships").single();
+            Result atResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-08T12:00:00')) YIELD node RETURN node");
+            Result tooOldResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-05T00:00:00')) YIELD node RETURN node");
+            Result ordinalResult = session.run("MATCH (:Entity)-[r:CURRENT]->(:State)<-[h:HAS_STATE]-(:Entity) RETURN h.ordinal as ordinal");
+            Result rollbackResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.rollback(e) YIELD node RETURN node");
+
+            // Then
+            assertThat(result.get("states").asLong(), equalTo(3L));
+            assertThat(result.get("nodes").asLong(), equalTo(7L));
+            assertThat(result.get("relationships").asLong(), equalTo(19L));
+            assertThat(atResult.single().get("node").asNode().get("version").asLong(), equalTo(7L));
+            assertThat(tooOldResult.hasNext(), equalTo(false));
+            assertThat(ordinalResult.single().get("ordinal").asLong(), equalTo(3L));
+            assertThat(rollbackResult.single().get("node").asNode().get("version").asLong(), equalTo(8L));
+        }
+    }
+
+    @Test
+    public void shouldMergeTheOldStatesByGranularity() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            String[] dates = {"2000-01-10T00:00:00", "2000-01-20T00:00:00", "2000-02-05T00:00:00", "2000-02-15T00:00:00", "2000-03-01T00:00:00"};
+            for (int i = 0; i < dates.length; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime($date)) YIELD node RETURN node",
+                        Values.parameters("version", i + 1, "date", dates[i]));
+            }
+
+            // When
+            Record result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.compact(e, {keepLast:1, granularity:'MONTH'}) YIELD states, nodes RETURN states, nodes").single();
+            Result atResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-05T00:00:00')) YIELD node RETURN node");
+            Result startDateResult = session.run("MATCH (:Entity)-[h:HAS_STATE]->(:State {version:4}) RETURN h.startDate as startDate");
+            Result diffResult = session.run("MATCH (:Entity)-[:CURRENT]->(s:State) WITH s CALL graph.versioner.diff.from.previous(s) YIELD operation, label, oldValue, newValue RETURN oldValue, newValue");
+
+            // Then
+            assertThat(result.get("states").asLong(), equalTo(3L));
+            assertThat(result.get("nodes").asLong(), equalTo(3L));
+            assertThat(atResult.single().get("node").asNode().get("version").asLong(), equalTo(2L));
+            assertThat(startDateResult.single().get("startDate").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 2, 5, 0, 0)));
+            assertThat(diffResult.single().get("oldValue").asLong(), equalTo(4L));
+        }
+    }
+
+    @Test
+    public void shouldCompactOnlyTheStatesOlderThanTheGivenDateMovingTheirRollbacks() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            for (int i = 1; i <= 5; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+            session.run("MATCH (e:Entity)-[:HAS_STATE]->(s:State {version:1}) WITH e, s CALL graph.versioner.rollback.to(e, s, localdatetime('2000-01-07T00:00:00')) YIELD node RETURN node");
+
+            // When
+            Record result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.compact(e, {olderThan:localdatetime('2000-01-04T00:00:00'), granularity:'YEAR'}) YIELD states, nodes RETURN states, nodes").single();
+            Result rollbackResult = session.run("MATCH (:State)-[:ROLLBACK]->(s:State) RETURN s");
+            Result startDateResult = session.run("MATCH (:Entity)-[h:HAS_STATE]->(:State {version:2}) RETURN h.startDate as startDate");
+
+            // Then
+            assertThat(result.get("states").asLong(), equalTo(5L));
+            assertThat(result.get("nodes").asLong(), equalTo(2L));
+            assertThat(rollbackResult.single().get("s").asNode().get("version").asLong(), equalTo(2L));
+            assertThat(startDateResult.single().get("startDate").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 1, 0, 0)));
+        }
+    }
+
+    @Test
+    public void shouldKeepTheDeltasAndTheSharedRelationshipsConsistent() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {name:'A'}, {name:'wide', version:0}) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {keyframeInterval:10, sharedRelationships:true}) YIELD options RETURN options");
+            session.run("CALL graph.versioner.init('Entity', {name:'B'}) YIELD node RETURN node");
+            session.run("MATCH (a:Entity {name:'A'}), (b:Entity {name:'B'}) CALL graph.versioner.relationship.create(a, b, 'LINKED') YIELD relationship RETURN relationship");
+            for (int i = 1; i <= 5; i++) {
+                session.run("MATCH (e:Entity {name:'A'}) WITH e CALL graph.versioner.patch(e, {version:$version}) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            long relationshipsBefore = session.run("MATCH ()-[r]->() RETURN count(r) AS count").single().get("count").asLong();
+
+            // When
+            Record result = session.run("MATCH (e:Entity {name:'A'}) WITH e CALL graph.versioner.compact(e, {keepLast:2}) YIELD states, nodes, relationships RETURN states, nodes, relationships").single();
+            long relationshipsAfter = session.run("MATCH ()-[r]->() RETURN count(r) AS count").single().get("count").asLong();
+            Result oldestResult = session.run("MATCH (:Entity {name:'A'})-[:HAS_STATE]->(s:State) WHERE NOT (s)-[:PREVIOUS]->() " +
+                    "CALL graph.versioner.get.properties(s) YIELD properties RETURN properties");
+            Result linkedResult = session.run("MATCH (:Entity {name:'A'})-[:CURRENT]->(:State)-[:SHARES_RELS]->(:State)-[:LINKED]->(:R)-[:FOR]->(b:Entity) RETURN b");
+
+            // Then
+            assertThat(result.get("states").asLong(), equalTo(2L));
+            assertThat(result.get("nodes").asLong(), equalTo(5L));
+            assertThat(result.get("relationships").asLong(), equalTo(relationshipsBefore - relationshipsAfter));
+            Value oldest = oldestResult.single().get("properties");
+            assertThat(oldest.get("name").asString(), equalTo("wide"));
+            assertThat(oldest.get("version").asLong(), equalTo(4L));
+            assertThat(linkedResult.single().get("b").asNode().get("name").asString(), equalTo("B"));
+        }
+    }
+
+    @Test(expected = ClientException.class)
+    public void shouldFailWithAnInvalidGranularity() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0}) YIELD node RETURN node");
+
+            // When
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.compact(e, {keepLast:1, granularity:'CENTURY'}) YIELD states RETURN states").single();
+        }
+    }
+
+    @Test
+    public void shouldNotCompactWithoutKeepLastOrOlderThan() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0}) YIELD node " +
+                    "CALL graph.versioner.update(node, {version:1}) YIELD node AS updated RETURN updated");
+
+            // When
+            try {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.compact(e, {}) YIELD states RETURN states").consume();
+                fail("The compaction should fail without keepLast or olderThan");
+            } catch (ClientException e) {
+                assertThat(e.getMessage().contains("must have keepLast, olderThan or both"), equalTo(true));
+            }
+            Result statesResult = session.run("MATCH (:Entity)-[:HAS_STATE]->(s:State) RETURN count(s) as states");
+
+            // Then
+            assertThat(statesResult.single().get("states").asLong(), equalTo(2L));
+        }
+    }
+
+    /*------------------------------*/
+    /*          compact.all         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldCompactAllTheEntitiesInParallelBatches() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            for (int i = 0; i < 5; i++) {
+                session.run("CALL graph.versioner.init('Entity', {}, {version:0}) YIELD node " +
+                        "CALL graph.versioner.update(node, {version:1}) YIELD node AS first " +
+                        "CALL graph.versioner.update(node, {version:2}) YIELD node AS second RETURN second");
+            }
+
+            // When
+            Record result = session.run("CALL graph.versioner.compact.all('Entity', {keepLast:2}, {batchSize:2, concurrency:2}) " +
+                    "YIELD entities, nodes, batches RETURN entities, nodes, batches").single();
+            Result statesResult = session.run("MATCH (:Entity)-[:HAS_STATE]->(s:State) RETURN count(s) as states");
+            Result checkpointResult = session.run("MATCH (j:CompactionJob) RETURN j");
+
+            // Then
+            assertThat(result.get("entities").asLong(), equalTo(5L));
+            assertThat(result.get("nodes").asLong(), equalTo(5L));
+            assertThat(result.get("batches").asLong(), equalTo(3L));
+            assertThat(statesResult.single().get("states").asLong(), equalTo(10L));
+            assertThat(checkpointResult.hasNext(), equalTo(false));
+        }
+    }
+
+    @Test
+    public void shouldResumeTheCompactionJobFromItsCheckpoint() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            for (int i = 0; i < 4; i++) {
+                session.run("CALL graph.versioner.init('Entity', {index:$index}, {version:0}) YIELD node " +
+                        "CALL graph.versioner.update(node, {version:1}) YIELD node AS updated RETURN updated", Values.parameters("index", i));
+            }
+            session.run("MATCH (e:Entity {index:1}) CREATE (:CompactionJob {name:'nightly', lastId:id(e)})");
+
+            // When
+            Record result = session.run("CALL graph.versioner.compact.all('Entity', {keepLast:1}, {name:'nightly'}) YIELD entities RETURN entities").single();
+            Result statesResult = session.run("MATCH (e:Entity)-[:HAS_STATE]->(s:State) RETURN e.index as index, count(s) as states ORDER BY index");
+
+            // Then
+            assertThat(result.get("entities").asLong(), equalTo(2L));
+            assertThat(statesResult.list(record -> record.get("states").asLong()), equalTo(Arrays.asList(2L, 2L, 1L, 1L)));
+        }
+    }
+}
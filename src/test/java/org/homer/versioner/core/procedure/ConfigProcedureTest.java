@@ -0,0 +1,322 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.types.Node;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * ConfigProcedureTest class, it contains all the method used to test ConfigProcedure class methods
+ */
+public class ConfigProcedureTest extends GenericProcedureTest {
+
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(ConfigProcedure.class).withProcedure(Update.class).withProcedure(RelationshipProcedure.class)
+            .withProcedure(Rollback.class).withProcedure(Get.class).withProcedure(Init.class).withProcedure(Diff.class);
+
+    /*------------------------------*/
+    /*       config.get / set       */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheDefaultOptions() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entity = initEntity(session);
+
+            // When
+            Record result = session.run("MATCH (e:Entity) WHERE id(e) = $id CALL graph.versioner.config.get(e) YIELD options RETURN options",
+                    Values.parameters("id", entity.id())).single();
+
+            // Then
+            assertThat(result.get("options").asMap()).containsEntry("sharedRelationships", false);
+        }
+    }
+
+    @Test
+    public void shouldSetAndResetAnOption() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entity = initEntity(session);
+
+            // When
+            Record setResult = session.run("MATCH (e:Entity) WHERE id(e) = $id CALL graph.versioner.config.set(e, {sharedRelationships: true}) YIELD options RETURN options",
+                    Values.parameters("id", entity.id())).single();
+            Record resetResult = session.run("MATCH (e:Entity) WHERE id(e) = $id CALL graph.versioner.config.set(e, {sharedRelationships: null}) YIELD options RETURN options",
+                    Values.parameters("id", entity.id())).single();
+
+            // Then
+            assertThat(setResult.get("options").asMap()).containsEntry("sharedRelationships", true);
+            assertThat(resetResult.get("options").asMap()).containsEntry("sharedRelationships", false);
+            assertThat(session.run("MATCH (r:R) WHERE exists(r.sharedRelationships) RETURN r").list()).isEmpty();
+        }
+    }
+
+    @Test
+    public void shouldNotSetAnUnknownOption() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entity = initEntity(session);
+
+            // When
+            Throwable thrown = catchThrowable(() -> session.run("MATCH (e:Entity) WHERE id(e) = $id CALL graph.versioner.config.set(e, {unknown: true}) YIELD options RETURN options",
+                    Values.parameters("id", entity.id())).consume());
+
+            // Then
+            assertThat(thrown).isInstanceOf(ClientException.class).hasMessageContaining("Unknown option unknown");
+        }
+    }
+
+    /*------------------------------*/
+    /*     sharedRelationships      */
+    /*------------------------------*/
+
+    @Test
+    public void shouldShareTheRelationshipsBetweenConsecutiveStates() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            session.run("MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.config.set(a, {sharedRelationships: true}) YIELD options RETURN options",
+                    Values.parameters("id", entityA.id())).consume();
+            session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b CALL graph.versioner.relationship.create(a, b, 'testType') YIELD relationship RETURN relationship",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).consume();
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                session.run("MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.patch(a, {version: $version}) YIELD node RETURN node",
+                        Values.parameters("id", entityA.id(), "version", i)).consume();
+            }
+            List<Record> snapshot = session.run("CALL graph.versioner.get.snapshot('Entity') YIELD entity, relationships WHERE id(entity) = $id RETURN relationships",
+                    Values.parameters("id", entityA.id())).list();
+
+            // Then
+            assertThat(session.run("MATCH (:State)-[rel:testType]->(:R) RETURN rel").list()).hasSize(1);
+            assertThat(session.run("MATCH (:State)-[rel:SHARES_RELS]->(:State) RETURN rel").list()).hasSize(3);
+            assertThat(snapshot.get(0).get("relationships").asList()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void shouldMaterializeTheRelationshipsOnlyWhenTheyChange() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            Node entityC = initEntity(session);
+            session.run("MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.config.set(a, {sharedRelationships: true}) YIELD options RETURN options",
+                    Values.parameters("id", entityA.id())).consume();
+            session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b CALL graph.versioner.relationship.create(a, b, 'testType') YIELD relationship RETURN relationship",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).consume();
+            session.run("MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.patch(a, {version: 1}) YIELD node RETURN node",
+                    Values.parameters("id", entityA.id())).consume();
+
+            // When
+            session.run("MATCH (a:Entity), (c:Entity) WHERE id(a) = $a AND id(c) = $c CALL graph.versioner.relationship.create(a, c, 'testType') YIELD relationship RETURN relationship",
+                    Values.parameters("a", entityA.id(), "c", entityC.id())).consume();
+            session.run("MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.rollback(a) YIELD node RETURN node",
+                    Values.parameters("id", entityA.id())).consume();
+
+            // Then
+            String currentRelsQuery = "MATCH (a:Entity) WHERE id(a) = $id CALL graph.versioner.get.snapshot('Entity') YIELD entity, relationships WHERE entity = a RETURN size(relationships) AS rels";
+            assertThat(session.run("MATCH (a:Entity)-[:CURRENT]->(:State)-[:PREVIOUS]->(s:State)-[rel:testType]->(:R) WHERE id(a) = $id RETURN rel",
+                    Values.parameters("id", entityA.id())).list()).hasSize(2);
+            assertThat(session.run(currentRelsQuery, Values.parameters("id", entityA.id())).single().get("rels").asLong()).isEqualTo(1L);
+        }
+    }
+
+    /*------------------------------*/
+    /*       keyframeInterval       */
+    /*------------------------------*/
+
+    @Test
+    public void shouldStoreDeltasBetweenKeyframesAndRebuildThem() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {name: 'wide', version: 0}) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {keyframeInterval: 3}) YIELD options RETURN options").consume();
+            session.run("MATCH (s:State) SET s.tags = ['a', 'b']").consume();
+
+            // When
+            for (int i = 1; i <= 6; i++) {
+                session.run("MATCH (e:Entity) CALL graph.versioner.patch(e, {version: $version}) YIELD node RETURN node",
+                        Values.parameters("version", i)).consume();
+            }
+            Record nthState = session.run("MATCH (e:Entity) CALL graph.versioner.get.nth.state(e, 5) YIELD node, properties RETURN node, properties").single();
+            Record properties = session.run("MATCH (e:Entity) CALL graph.versioner.get.nth.state(e, 4) YIELD node " +
+                    "CALL graph.versioner.get.properties(node) YIELD properties RETURN properties").single();
+            List<Record> diff = session.run("MATCH (e:Entity) CALL graph.versioner.get.nth.state(e, 2) YIELD node " +
+                    "CALL graph.versioner.diff.from.previous(node) YIELD operation, label, oldValue, newValue RETURN operation, label, oldValue, newValue").list();
+
+            // Then
+            assertThat(session.run("MATCH (s:State) WHERE exists(s.name) RETURN s").list()).hasSize(3);
+            assertThat(session.run("MATCH (:State)-[p:PREVIOUS {delta: true}]->(:State) RETURN p").list()).hasSize(4);
+            assertThat(nthState.get("node").asNode().asMap()).containsOnly(entry("version", 1L));
+            assertThat(nthState.get("properties").get("name").asString()).isEqualTo("wide");
+            assertThat(nthState.get("properties").get("tags").asList()).containsExactly("a", "b");
+            assertThat(nthState.get("properties").get("version").asLong()).isEqualTo(1L);
+            assertThat(properties.get("properties").asMap()).containsEntry("name", "wide").containsEntry("version", 2L);
+            assertThat(diff).hasSize(1);
+            assertThat(diff.get(0).get("operation").asString()).isEqualTo("UPDATE");
+            assertThat(diff.get(0).get("label").asString()).isEqualTo("version");
+            assertThat(diff.get(0).get("oldValue").asLong()).isEqualTo(3L);
+            assertThat(diff.get(0).get("newValue").asLong()).isEqualTo(4L);
+        }
+    }
+
+    @Test
+    public void shouldRebuildRemovedAndAddedKeysOnRollback() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {a: 1, b: 2}) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {keyframeInterval: 10}) YIELD options RETURN options").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 1}) YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 1, c: 3}) YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 2, c: 3}) YIELD node RETURN node").consume();
+
+            // When
+            Record firstState = session.run("MATCH (e:Entity) CALL graph.versioner.get.nth.state(e, 3) YIELD node, properties RETURN node, properties").single();
+            Record secondState = session.run("MATCH (e:Entity) CALL graph.versioner.get.nth.state(e, 2) YIELD node, properties RETURN node, properties").single();
+            session.run("MATCH (e:Entity)-[:HAS_STATE]->(s:State) WHERE id(s) = $id CALL graph.versioner.rollback.to(e, s) YIELD node RETURN node",
+                    Values.parameters("id", firstState.get("node").asNode().id())).consume();
+            Node current = session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) RETURN s").single().get("s").asNode();
+
+            // Then
+            assertThat(firstState.get("properties").asMap()).containsOnly(entry("a", 1L), entry("b", 2L));
+            assertThat(secondState.get("properties").asMap()).containsOnly(entry("a", 1L));
+            assertThat(current.asMap()).containsOnly(entry("a", 1L), entry("b", 2L));
+        }
+    }
+
+    /*------------------------------*/
+    /*        skipUnchanged         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldSkipUnchangedUpdatesAndPatches() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entity = session.run("CALL graph.versioner.init('Entity', {}, {a: 1, b: 2}, 'Label') YIELD node " +
+                    "CALL graph.versioner.config.set(node, {skipUnchanged: true}) YIELD entity RETURN entity").single().get("entity").asNode();
+            Node current = session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) RETURN s").single().get("s").asNode();
+
+            // When
+            Node patched = session.run("MATCH (e:Entity) CALL graph.versioner.patch(e, {a: 1}, 'Label') YIELD node RETURN node").single().get("node").asNode();
+            Node updated = session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 1, b: 2}, 'Label') YIELD node RETURN node").single().get("node").asNode();
+            session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 1}, 'Label') YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.patch(e, {a: 1}) YIELD node RETURN node").consume();
+
+            // Then
+            assertThat(patched.id()).isEqualTo(current.id());
+            assertThat(updated.id()).isEqualTo(current.id());
+            assertThat(session.run("MATCH (e:Entity)-[:HAS_STATE]->(s:State) WHERE id(e) = $id RETURN s",
+                    Values.parameters("id", entity.id())).list()).hasSize(3);
+        }
+    }
+
+    @Test
+    public void shouldSkipUnchangedRelationships() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = session.run("CALL graph.versioner.init('Entity', {name: 'A'}) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {skipUnchanged: true}) YIELD entity RETURN entity").single().get("entity").asNode();
+            Node entityB = session.run("CALL graph.versioner.init('Entity', {name: 'B'}) YIELD node RETURN node").single().get("node").asNode();
+            String statesQuery = "MATCH (e:Entity)-[:HAS_STATE]->(s:State) WHERE id(e) = $id RETURN s";
+
+            // When
+            session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b " +
+                    "CALL graph.versioner.relationship.create(a, b, 'LINKED') YIELD relationship RETURN relationship",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).consume();
+            Record repeated = session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b " +
+                    "CALL graph.versioner.relationship.create(a, b, 'LINKED') YIELD relationship RETURN relationship",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).single();
+            session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b " +
+                    "CALL graph.versioner.relationship.delete(a, b, 'LINKED') YIELD result RETURN result",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).consume();
+            boolean deletedAgain = session.run("MATCH (a:Entity), (b:Entity) WHERE id(a) = $a AND id(b) = $b " +
+                    "CALL graph.versioner.relationship.delete(a, b, 'LINKED') YIELD result RETURN result",
+                    Values.parameters("a", entityA.id(), "b", entityB.id())).single().get("result").asBoolean();
+
+            // Then
+            assertThat(repeated.get("relationship").asRelationship().type()).isEqualTo("LINKED");
+            assertThat(deletedAgain).isFalse();
+            assertThat(session.run(statesQuery, Values.parameters("id", entityA.id())).list()).hasSize(3);
+            assertThat(session.run("MATCH (:State)-[r:LINKED]->(:R) RETURN r").list()).hasSize(1);
+        }
+    }
+
+    /*------------------------------*/
+    /*          storeDiffs          */
+    /*------------------------------*/
+
+    @Test
+    public void shouldServeTheStoredDiffsWithoutReadingTheStates() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {a: 1, b: 2}) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {storeDiffs: true, keyframeInterval: 10}) YIELD entity RETURN entity").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {a: 1, c: 3}) YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity) CALL graph.versioner.patch(e, {a: 5}) YIELD node RETURN node").consume();
+
+            // When
+            Record stored = session.run("MATCH (:Entity)-[:CURRENT]->(:State)-[:PREVIOUS]->(:State)-[p:PREVIOUS]->(:State) RETURN p").single();
+            session.run("MATCH (s:State) SET s = {}").consume();
+            List<String> fromPrevious = session.run("MATCH (:Entity)-[:CURRENT]->(s:State) CALL graph.versioner.diff.from.previous(s) YIELD operation, label, oldValue, newValue " +
+                    "RETURN operation, label, oldValue, newValue").list(record -> record.get("operation").asString() + ":" + record.get("label").asString()
+                    + ":" + record.get("oldValue").asObject() + ":" + record.get("newValue").asObject());
+            List<Record> steps = session.run("MATCH (e:Entity) CALL graph.versioner.diff.range(e, null, null) YIELD diff " +
+                    "RETURN [d IN diff | d.operation + ':' + d.label] as diff").list();
+
+            // Then
+            assertThat(stored.get("p").asRelationship().get("removedKeys").asList()).containsExactly("b");
+            assertThat(stored.get("p").asRelationship().get("addedKeys").asList()).containsExactly("c");
+            assertThat(stored.get("p").asRelationship().get("old.b").asLong()).isEqualTo(2L);
+            assertThat(fromPrevious).containsExactly("UPDATE:a:1:5");
+            assertThat(steps).hasSize(3);
+            assertThat(steps.get(0).get("diff").asList()).containsExactly("UPDATE:a");
+            assertThat(steps.get(1).get("diff").asList()).containsExactly("REMOVE:b", "ADD:c");
+        }
+    }
+}
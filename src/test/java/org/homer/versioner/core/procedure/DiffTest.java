@@ -4,11 +4,17 @@ import org.homer.versioner.core.Utility;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -20,7 +26,7 @@ public class DiffTest {
     public Neo4jRule neo4j = new Neo4jRule()
 
             // This is the function we want to test
-            .withProcedure(Diff.class);
+            .withProcedure(Diff.class).withProcedure(Init.class).withProcedure(Update.class).withProcedure(ConfigProcedure.class).withProcedure(RelationshipProcedure.class);
 
     /*--------------------------*/
     /*           diff           */
@@ -216,4 +222,228 @@ public class DiffTest {
         }
     }
 
+    /*---------------------------------------*/
+    /*             diff.elements             */
+    /*---------------------------------------*/
+
+    @Test
+    public void shouldDiffElementsGetTheChangedSlicesOfTheArrayProperties() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (:State:From {version:0, name:'a'}), (:State:To {version:0, code:'x'}) " +
+                    "WITH 1 as one MATCH (f:From), (t:To) SET f.values = range(0, 999), t.values = range(0, 499) + [-1] + range(501, 999) + [1000, 1001]").consume();
+
+            // When
+            List<Record> diffs = session.run("MATCH (f:From), (t:To) WITH f, t CALL graph.versioner.diff.elements(f, t) YIELD operation, label, index, oldValue, newValue " +
+                    "RETURN operation, label, index, oldValue, newValue").list();
+
+            // Then
+            assertThat(diffs.size(), is(4));
+            assertThat(diffs.get(0).get("operation").asString(), is("REMOVE"));
+            assertThat(diffs.get(0).get("index").isNull(), is(true));
+            assertThat(diffs.get(1).get("operation").asString(), is("REPLACE"));
+            assertThat(diffs.get(1).get("label").asString(), is("values"));
+            assertThat(diffs.get(1).get("index").asLong(), is(500L));
+            assertThat(diffs.get(1).get("oldValue").asList(), is(Collections.singletonList(500L)));
+            assertThat(diffs.get(1).get("newValue").asList(), is(Collections.singletonList(-1L)));
+            assertThat(diffs.get(2).get("operation").asString(), is("INSERT"));
+            assertThat(diffs.get(2).get("index").asLong(), is(1000L));
+            assertThat(diffs.get(2).get("oldValue").isNull(), is(true));
+            assertThat(diffs.get(2).get("newValue").asList(), is(Arrays.asList(1000L, 1001L)));
+            assertThat(diffs.get(3).get("operation").asString(), is("ADD"));
+            assertThat(diffs.get(3).get("label").asString(), is("code"));
+        }
+    }
+
+    /*---------------------------------------*/
+    /*          diff.relationships           */
+    /*---------------------------------------*/
+
+    @Test
+    public void shouldDiffRelationshipsGetTheAddedRemovedAndUpdatedRelationships() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("UNWIND ['a', 'b', 'c', 'd'] as name CALL graph.versioner.init('Entity', {name:name}, {}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node").consume();
+            session.run("MATCH (a:Entity {name:'a'}), (b:Entity {name:'b'}) WITH a, b CALL graph.versioner.relationship.create(a, b, 'LIKES', {weight:1}, localdatetime('2000-01-02T00:00:00')) YIELD relationship RETURN relationship").consume();
+            session.run("MATCH (a:Entity {name:'a'}), (c:Entity {name:'c'}) WITH a, c CALL graph.versioner.relationship.create(a, c, 'KNOWS', {}, localdatetime('2000-01-03T00:00:00')) YIELD relationship RETURN relationship").consume();
+            long before = session.run("MATCH (:Entity {name:'a'})-[:CURRENT]->(s:State) RETURN id(s) as id").single().get("id").asLong();
+            session.run("MATCH (a:Entity {name:'a'}), (c:Entity {name:'c'}) WITH a, c CALL graph.versioner.relationship.delete(a, c, 'KNOWS', localdatetime('2000-01-04T00:00:00')) YIELD result RETURN result").consume();
+            session.run("MATCH (a:Entity {name:'a'}), (b:Entity {name:'b'}) WITH a, b CALL graph.versioner.relationship.delete(a, b, 'LIKES', localdatetime('2000-01-05T00:00:00')) YIELD result RETURN result").consume();
+            session.run("MATCH (a:Entity {name:'a'}), (b:Entity {name:'b'}) WITH a, b CALL graph.versioner.relationship.create(a, b, 'LIKES', {weight:2}, localdatetime('2000-01-06T00:00:00')) YIELD relationship RETURN relationship").consume();
+            session.run("MATCH (a:Entity {name:'a'}), (d:Entity {name:'d'}) WITH a, d CALL graph.versioner.relationship.create(a, d, 'OWNS', {}, localdatetime('2000-01-07T00:00:00')) YIELD relationship RETURN relationship").consume();
+
+            // When
+            List<Record> diffs = session.run(String.format("MATCH (:Entity {name:'a'})-[:CURRENT]->(current:State), (s:State) WHERE id(s) = %d WITH s, current CALL graph.versioner.diff.relationships(s, current) YIELD operation, type, entity, oldProperties, newProperties " +
+                    "RETURN operation, type, entity.name as name, oldProperties, newProperties", before)).list();
+            long unchanged = session.run("MATCH (:Entity {name:'a'})-[:CURRENT]->(current:State)-[:PREVIOUS]->(previous:State) WITH previous, current CALL graph.versioner.diff.relationships(previous, previous) YIELD operation RETURN count(*) as count").single().get("count").asLong();
+
+            // Then
+            assertThat(diffs.size(), is(3));
+            assertThat(diffs.get(0).get("operation").asString() + ":" + diffs.get(0).get("type").asString() + ":" + diffs.get(0).get("name").asString(), is("REMOVE:KNOWS:c"));
+            assertThat(diffs.get(0).get("newProperties").isNull(), is(true));
+            assertThat(diffs.get(1).get("operation").asString() + ":" + diffs.get(1).get("type").asString() + ":" + diffs.get(1).get("name").asString(), is("UPDATE:LIKES:b"));
+            assertThat(diffs.get(1).get("oldProperties").get("weight").asLong(), is(1L));
+            assertThat(diffs.get(1).get("newProperties").get("weight").asLong(), is(2L));
+            assertThat(diffs.get(2).get("operation").asString() + ":" + diffs.get(2).get("type").asString() + ":" + diffs.get(2).get("name").asString(), is("ADD:OWNS:d"));
+            assertThat(diffs.get(2).get("oldProperties").isNull(), is(true));
+            assertThat(unchanged, is(0L));
+        }
+    }
+
+    /*---------------------------------------*/
+    /*               diff.range              */
+    /*---------------------------------------*/
+
+    @Test
+    public void shouldDiffRangeGetTheDiffOfEachStepBetweenTwoDates() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createHistory(session);
+
+            // When
+            List<Record> steps = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.range(e, localdatetime('2000-01-02T12:00:00'), localdatetime('2000-01-04T00:00:00')) YIELD state, previousState, date, diff " +
+                    "RETURN state.version as version, previousState.version as previousVersion, date, [d IN diff | d.operation + ':' + d.label] as diff").list();
+
+            // Then
+            assertThat(steps.size(), is(2));
+            assertThat(steps.get(0).get("version").asLong(), is(3L));
+            assertThat(steps.get(0).get("previousVersion").asLong(), is(2L));
+            assertThat(steps.get(0).get("date").asLocalDateTime().getDayOfMonth(), is(4));
+            assertThat(steps.get(0).get("diff").asList(), is(Arrays.asList("REMOVE:name", "UPDATE:version")));
+            assertThat(steps.get(1).get("version").asLong(), is(2L));
+            assertThat(sorted(steps.get(1).get("diff")), is(Arrays.asList("UPDATE:name", "UPDATE:version")));
+        }
+    }
+
+    @Test
+    public void shouldDiffRangeRebuildTheDeltaEncodedStatesBetweenTwoOrdinals() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createHistory(session);
+
+            // When
+            List<Record> steps = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.range(e, 1, 3) YIELD state, diff " +
+                    "RETURN state.version as version, [d IN diff | d.operation + ':' + d.label + ':' + coalesce(d.newValue, '')] as diff").list();
+            List<Record> allSteps = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.range(e, null, null) YIELD previousState, diff " +
+                    "RETURN previousState, [d IN diff | d.operation + ':' + d.label] as diff").list();
+
+            // Then
+            assertThat(steps.size(), is(2));
+            assertThat(sorted(steps.get(0).get("diff")), is(Arrays.asList("UPDATE:name:c", "UPDATE:version:2")));
+            assertThat(steps.get(1).get("diff").asList(), is(Arrays.asList("UPDATE:version:1", "ADD:name:b")));
+            assertThat(allSteps.size(), is(4));
+            assertThat(allSteps.get(3).get("previousState").isNull(), is(true));
+            assertThat(allSteps.get(3).get("diff").asList(), is(Arrays.asList("ADD:version")));
+        }
+    }
+
+    @Test
+    public void shouldDiffRangeFailIfTheFromOrdinalIsAfterTheToDate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createHistory(session);
+
+            // When
+            ClientException thrown = null;
+            try {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.range(e, 3, localdatetime('2000-01-02T12:00:00')) YIELD state RETURN state").consume();
+            } catch (ClientException e) {
+                thrown = e;
+            }
+            List<Record> steps = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.range(e, 2, localdatetime('2000-01-03T12:00:00')) YIELD state " +
+                    "RETURN state.version as version").list();
+
+            // Then
+            assertThat(thrown.getMessage(), containsString("The from endpoint of the range must not be after the to one."));
+            assertThat(steps.size(), is(1));
+            assertThat(steps.get(0).get("version").asLong(), is(2L));
+        }
+    }
+
+    /*---------------------------------------*/
+    /*              diff.between             */
+    /*---------------------------------------*/
+
+    @Test
+    public void shouldDiffBetweenFoldTheDeltasBetweenTwoDates() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createHistory(session);
+
+            // When
+            List<String> whole = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.between(e, localdatetime('2000-01-01T12:00:00'), localdatetime('2000-01-04T12:00:00')) YIELD operation, label, oldValue, newValue " +
+                    "RETURN operation, label, oldValue, newValue").list(this::describe);
+            List<String> middle = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.between(e, localdatetime('2000-01-02T12:00:00'), localdatetime('2000-01-03T12:00:00')) YIELD operation, label, oldValue, newValue " +
+                    "RETURN operation, label, oldValue, newValue").list(this::describe);
+            Record beforeHistory = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.between(e, localdatetime('1999-01-01T00:00:00'), localdatetime('2000-01-02T12:00:00')) YIELD operation, label " +
+                    "RETURN collect(operation + ':' + label) as diff").single();
+
+            // Then
+            assertThat(whole, is(Arrays.asList("UPDATE:version:0:3")));
+            assertThat(middle.stream().sorted().collect(Collectors.toList()), is(Arrays.asList("UPDATE:name:b:c", "UPDATE:version:1:2")));
+            assertThat(sorted(beforeHistory.get("diff")), is(Arrays.asList("ADD:name", "ADD:version")));
+        }
+    }
+
+    @Test
+    public void shouldDiffBetweenGetTheSameDiffOfTheStatesValidAtTwoDates() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {}, {version:0, code:'x'}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node").consume();
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:2, name:'c'}, '', localdatetime('2000-01-03T00:00:00')) YIELD node RETURN node").consume();
+
+            // When
+            List<String> between = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.between(e, localdatetime('2000-01-02T00:00:00'), localdatetime('2000-01-05T00:00:00')) YIELD operation, label " +
+                    "RETURN operation + ':' + label as diff").list(record -> record.get("diff").asString());
+            List<String> diff = session.run("MATCH (s:State {version:2}), (p:State {version:0}) WITH s, p CALL graph.versioner.diff(p, s) YIELD operation, label " +
+                    "RETURN operation + ':' + label as diff").list(record -> record.get("diff").asString());
+
+            // Then
+            assertThat(between, is(Arrays.asList("REMOVE:code", "UPDATE:version", "ADD:name")));
+            assertThat(between, is(diff));
+        }
+    }
+
+    @Test
+    public void shouldDiffBetweenFailWithoutADate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createHistory(session);
+
+            // When
+            ClientException thrown = null;
+            try {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.diff.between(e, null, localdatetime('2000-01-03T12:00:00')) YIELD operation RETURN operation").consume();
+            } catch (ClientException e) {
+                thrown = e;
+            }
+
+            // Then
+            assertThat(thrown.getMessage(), containsString("is mandatory"));
+        }
+    }
+
+    private String describe(Record diff) {
+        return diff.get("operation").asString() + ":" + diff.get("label").asString() + ":" + diff.get("oldValue").asObject() + ":" + diff.get("newValue").asObject();
+    }
+
+    private List<String> sorted(Value diff) {
+        return diff.asList(Value::asString).stream().sorted().collect(Collectors.toList());
+    }
+
+    private void createHistory(Session session) {
+        session.run("CALL graph.versioner.init('Entity', {}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node " +
+                "WITH node CALL graph.versioner.config.set(node, {keyframeInterval:10}) YIELD options RETURN options").consume();
+        session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:1, name:'b'}, '', localdatetime('2000-01-02T00:00:00')) YIELD node RETURN node").consume();
+        session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:2, name:'c'}, '', localdatetime('2000-01-03T00:00:00')) YIELD node RETURN node").consume();
+        session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:3}, '', localdatetime('2000-01-04T00:00:00')) YIELD node RETURN node").consume();
+    }
 }
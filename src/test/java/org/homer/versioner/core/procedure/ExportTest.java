@@ -0,0 +1,139 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * ExportTest class, it contains all the method used to test Export class methods
+ */
+public class ExportTest {
+
+    private static final Path IMPORT_DIR = createImportDir();
+
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Export.class).withProcedure(Import.class).withProcedure(Init.class).withProcedure(Update.class)
+            .withProcedure(Get.class).withProcedure(RelationshipProcedure.class)
+            .withConfig(GraphDatabaseSettings.load_csv_file_url_root, IMPORT_DIR);
+
+    /*------------------------------*/
+    /*          export.file         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldExportAndImportAgainTheHistoryOfTheEntities() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {entityKey:'a'}, {name:'first', day:date('2000-01-01')}, 'Draft', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (:Entity {entityKey:'a'})-[:CURRENT]->(s:State) SET s.tags = ['x', 'y']");
+            session.run("CALL graph.versioner.init('Entity', {entityKey:'b'}, {name:'other'}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (a:Entity {entityKey:'a'}) WITH a CALL graph.versioner.update(a, {name:'second', score:1.5}, '', localdatetime('2000-01-02T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (a:Entity {entityKey:'a'}), (b:Entity {entityKey:'b'}) WITH a, b CALL graph.versioner.relationship.create(a, b, 'LINKED', {weight:2}, localdatetime('2000-01-03T00:00:00')) YIELD relationship RETURN relationship");
+
+            // When
+            Record exportResult = session.run("CALL graph.versioner.export.file('history.bin', 'Entity') YIELD entities, states, relationships, bytes RETURN entities, states, relationships, bytes").single();
+            session.run("MATCH (n) DETACH DELETE n");
+            ImportTest.createKeyIndex(session, "entityKey");
+            Record importResult = session.run("CALL graph.versioner.import.file('history.bin', 'Entity', {batchSize:1}) YIELD rows, entities, relationships RETURN rows, entities, relationships").single();
+            Result firstResult = session.run("MATCH (e:Entity {entityKey:'a'}) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-01T12:00:00')) YIELD node RETURN node, labels(node) as labels");
+            Result secondResult = session.run("MATCH (e:Entity {entityKey:'a'}) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-02T12:00:00')) YIELD node RETURN node");
+            Result relationshipResult = session.run("MATCH (:Entity {entityKey:'a'})-[:CURRENT]->(:State)-[r:LINKED]->(:R)-[:FOR]->(b:Entity) RETURN r.weight as weight, b.entityKey as key");
+            Result countResult = session.run("MATCH (:Entity {entityKey:'a'})-[:HAS_STATE]->(s:State) RETURN count(s) as count");
+
+            // Then
+            assertThat(exportResult.get("entities").asLong(), equalTo(2L));
+            assertThat(exportResult.get("states").asLong(), equalTo(4L));
+            assertThat(exportResult.get("relationships").asLong(), equalTo(1L));
+            assertThat(importResult.get("rows").asLong(), equalTo(4L));
+            assertThat(importResult.get("entities").asLong(), equalTo(2L));
+            assertThat(importResult.get("relationships").asLong(), equalTo(1L));
+            Record first = firstResult.single();
+            assertThat(first.get("node").asNode().get("tags").asList(), equalTo(Arrays.asList("x", "y")));
+            assertThat(first.get("node").asNode().get("day").asLocalDate(), equalTo(LocalDate.of(2000, 1, 1)));
+            assertThat(first.get("labels").asList(), equalTo(Arrays.asList("State", "Draft")));
+            assertThat(secondResult.single().get("node").asNode().get("score").asDouble(), equalTo(1.5d));
+            Record relationship = relationshipResult.single();
+            assertThat(relationship.get("weight").asLong(), equalTo(2L));
+            assertThat(relationship.get("key").asString(), equalTo("b"));
+            assertThat(countResult.single().get("count").asLong(), equalTo(3L));
+        }
+    }
+
+    @Test
+    public void shouldImportTheRelationshipsOfStatesWithTheSameDate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {entityKey:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("CALL graph.versioner.init('Entity', {entityKey:'b'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (a:Entity {entityKey:'a'}), (b:Entity {entityKey:'b'}) WITH a, b CALL graph.versioner.relationship.create(a, b, 'LINKED', {}, localdatetime('2000-01-01T00:00:00')) YIELD relationship RETURN relationship");
+            session.run("MATCH (a:Entity {entityKey:'a'}), (b:Entity {entityKey:'b'}) WITH a, b CALL graph.versioner.relationship.delete(a, b, 'LINKED', localdatetime('2000-01-01T00:00:00')) YIELD result RETURN result");
+            session.run("CALL graph.versioner.export.file('same-date.bin', 'Entity') YIELD entities RETURN entities").consume();
+            session.run("MATCH (n) DETACH DELETE n");
+            ImportTest.createKeyIndex(session, "entityKey");
+
+            // When
+            session.run("CALL graph.versioner.import.file('same-date.bin', 'Entity') YIELD rows RETURN rows").consume();
+            Result linksResult = session.run("MATCH (:Entity {entityKey:'a'})-[:CURRENT]->(c:State) MATCH path = (c)-[:PREVIOUS*0..]->(s:State) " +
+                    "RETURN length(path) as depth, size((s)-[:LINKED]->(:R)) as links ORDER BY depth");
+
+            // Then
+            assertThat(linksResult.list(record -> record.get("links").asLong()), equalTo(Arrays.asList(0L, 1L, 0L)));
+        }
+    }
+
+    @Test
+    public void shouldExportOnlyTheEntitiesInTheGivenRange() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            for (int i = 0; i < 4; i++) {
+                session.run("CALL graph.versioner.init('Entity', {entityKey:$key}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node",
+                        Values.parameters("key", i));
+            }
+            long splitId = session.run("MATCH (e:Entity {entityKey:2}) RETURN id(e) as id").single().get("id").asLong();
+
+            // When
+            Record firstResult = session.run("CALL graph.versioner.export.file('first.bin', 'Entity', {toId:$id}) YIELD entities RETURN entities", Values.parameters("id", splitId)).single();
+            Record secondResult = session.run("CALL graph.versioner.export.file('second.bin', 'Entity', {fromId:$id}) YIELD entities RETURN entities", Values.parameters("id", splitId)).single();
+            session.run("MATCH (n) DETACH DELETE n");
+            ImportTest.createKeyIndex(session, "entityKey");
+            session.run("CALL graph.versioner.import.file('second.bin', 'Entity') YIELD rows RETURN rows").consume();
+            Result keysResult = session.run("MATCH (e:Entity) RETURN e.entityKey as key ORDER BY key");
+
+            // Then
+            assertThat(firstResult.get("entities").asLong(), equalTo(2L));
+            assertThat(secondResult.get("entities").asLong(), equalTo(2L));
+            assertThat(keysResult.list(record -> record.get("key").asLong()), equalTo(Arrays.asList(2L, 3L)));
+        }
+    }
+
+    private static Path createImportDir() {
+        try {
+            return Files.createTempDirectory("versioner-export");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -6,14 +6,19 @@ import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Path;
 import org.neo4j.driver.types.Relationship;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -28,7 +33,7 @@ public class GetTest extends GenericProcedureTest{
     public Neo4jRule neo4j = new Neo4jRule()
 
             // This is the function we want to test
-            .withProcedure(Get.class).withProcedure(Update.class);
+            .withProcedure(Get.class).withProcedure(Update.class).withProcedure(Init.class).withProcedure(RelationshipProcedure.class).withProcedure(ConfigProcedure.class);
 
     /*------------------------------*/
     /*       get.current.path       */
@@ -323,4 +328,259 @@ public class GetTest extends GenericProcedureTest{
             }
         }
     }
+
+    /*------------------------------*/
+    /*            get.at            */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheStateValidAtTheGivenDate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            for (int i = 1; i <= 20; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            // When
+            Result beforeResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('1999-12-31T00:00:00')) YIELD node RETURN node");
+            Result startResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            Result middleResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-06T12:00:00')) YIELD node RETURN node");
+            Result currentResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2001-01-01T00:00:00')) YIELD node RETURN node");
+            Result skipResult = session.run("MATCH (:State)-[r:SKIP]->(:State) RETURN count(r) as skips");
+
+            // Then
+            assertThat(beforeResult.hasNext(), equalTo(false));
+            assertThat(startResult.single().get("node").asNode().get("version").asLong(), equalTo(0L));
+            assertThat(middleResult.single().get("node").asNode().get("version").asLong(), equalTo(5L));
+            assertThat(currentResult.single().get("node").asNode().get("version").asLong(), equalTo(20L));
+            assertThat(skipResult.single().get("skips").asLong(), equalTo(14L));
+        }
+    }
+
+    @Test
+    public void shouldGetTheStateValidAtTheGivenDateOnANotIndexedEntity() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'immutableValue'})-[:CURRENT {date:localdatetime('1988-10-27T00:00:00')}]->(s:State {key:'initialValue'})");
+            session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) CREATE (e)-[:HAS_STATE {startDate:localdatetime('1988-10-27T00:00:00')}]->(s)");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {key:'newValue'}, '', localdatetime('1988-10-28T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {key:'newerValue'}, '', localdatetime('1988-10-29T00:00:00')) YIELD node RETURN node");
+
+            // When
+            Result result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('1988-10-28T12:00:00')) YIELD node RETURN node");
+            Result skipResult = session.run("MATCH ()-[r:SKIP]->() RETURN count(r) as skips");
+
+            // Then
+            assertThat(result.single().get("node").asNode().get("key").asString(), equalTo("newValue"));
+            assertThat(skipResult.single().get("skips").asLong(), equalTo(0L));
+        }
+    }
+
+    /*------------------------------*/
+    /*          get.history         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheHistoryPageByPage() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            for (int i = 1; i <= 4; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            // When
+            List<Record> firstPage = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e, null, 2) YIELD state, startDate, endDate, cursor RETURN state, startDate, endDate, cursor").list();
+            String firstCursor = firstPage.get(1).get("cursor").asString();
+            List<Record> secondPage = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e, $cursor, 2) YIELD state, cursor RETURN state, cursor", Values.parameters("cursor", firstCursor)).list();
+            String secondCursor = secondPage.get(1).get("cursor").asString();
+            List<Record> lastPage = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e, $cursor, 2) YIELD state, cursor RETURN state, cursor", Values.parameters("cursor", secondCursor)).list();
+            List<Record> defaultPage = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e) YIELD state RETURN state").list();
+
+            // Then
+            assertThat(firstPage.size(), equalTo(2));
+            assertThat(firstPage.get(0).get("state").asNode().get("version").asLong(), equalTo(4L));
+            assertThat(firstPage.get(0).get("endDate").isNull(), equalTo(true));
+            assertThat(firstPage.get(1).get("state").asNode().get("version").asLong(), equalTo(3L));
+            assertThat(firstPage.get(1).get("startDate").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 4, 0, 0)));
+            assertThat(firstPage.get(1).get("endDate").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 5, 0, 0)));
+            assertThat(secondPage.get(0).get("state").asNode().get("version").asLong(), equalTo(2L));
+            assertThat(secondPage.get(1).get("state").asNode().get("version").asLong(), equalTo(1L));
+            assertThat(lastPage.size(), equalTo(1));
+            assertThat(lastPage.get(0).get("state").asNode().get("version").asLong(), equalTo(0L));
+            assertThat(lastPage.get(0).get("cursor").isNull(), equalTo(true));
+            assertThat(defaultPage.size(), equalTo(5));
+            assertThat(defaultPage.get(0).get("state").asNode().get("version").asLong(), equalTo(4L));
+        }
+    }
+
+    @Test(expected = ClientException.class)
+    public void shouldNotGetTheHistoryWithAnInvalidCursor() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+
+            // When
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e, 'notACursor') YIELD state RETURN state").list();
+        }
+    }
+
+    @Test
+    public void shouldNotGetTheHistoryWithTheCursorOfAnotherEntity() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            session.run("CALL graph.versioner.init('Entity', {key:'b'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            session.run("MATCH (e:Entity {key:'a'}) WITH e CALL graph.versioner.update(e, {version:1}, '', localdatetime('2000-01-02T00:00:00')) YIELD node RETURN node");
+            String cursor = session.run("MATCH (e:Entity {key:'a'}) WITH e CALL graph.versioner.get.history(e, null, 1) YIELD cursor RETURN cursor").single().get("cursor").asString();
+
+            // When
+            try {
+                session.run("MATCH (e:Entity {key:'b'}) WITH e CALL graph.versioner.get.history(e, $cursor) YIELD state RETURN state", Values.parameters("cursor", cursor)).list();
+                fail();
+            } catch (ClientException e) {
+                // Then
+                assertThat(e.getMessage(), CoreMatchers.containsString("doesn't point to a State of the given Entity"));
+            }
+        }
+    }
+
+    /*------------------------------*/
+    /*           get.batch          */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheCurrentStateOfManyEntities() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("UNWIND range(1, 3) AS number CALL graph.versioner.init('Entity', {number:number}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:e.number}, '', localdatetime('2000-02-01T00:00:00')) YIELD node RETURN node");
+            session.run("CREATE (:Entity {number:4})");
+
+            // When
+            List<Record> result = session.run("MATCH (e:Entity) WITH e ORDER BY e.number WITH collect(e) AS entities CALL graph.versioner.get.batch(entities) YIELD entity, state RETURN entity.number AS number, state.version AS version").list();
+
+            // Then
+            assertThat(result.size(), equalTo(4));
+            for (int i = 0; i < 3; i++) {
+                assertThat(result.get(i).get("number").asLong(), equalTo(i + 1L));
+                assertThat(result.get(i).get("version").asLong(), equalTo(i + 1L));
+            }
+            assertThat(result.get(3).get("version").isNull(), equalTo(true));
+        }
+    }
+
+    @Test
+    public void shouldGetTheStateValidAtTheGivenDateOfManyEntities() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("UNWIND range(1, 3) AS number CALL graph.versioner.init('Entity', {number:number}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:e.number}, '', localdatetime('2000-02-01T00:00:00')) YIELD node RETURN node");
+
+            // When
+            List<Record> result = session.run("MATCH (e:Entity) WITH collect(e) AS entities CALL graph.versioner.get.batch(entities, localdatetime('2000-01-15T00:00:00')) YIELD entity, state RETURN entity.number AS number, state.version AS version").list();
+
+            // Then
+            assertThat(result.size(), equalTo(3));
+            result.forEach(record -> assertThat(record.get("version").asLong(), equalTo(0L)));
+        }
+    }
+
+    /*------------------------------*/
+    /*         get.snapshot         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheSnapshotOfAllEntitiesAtTheGivenDate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Person', {name:'Alice'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            session.run("CALL graph.versioner.init('Person', {name:'Bob'}, {version:0}, '', localdatetime('2000-01-01T00:00:00'))");
+            session.run("CALL graph.versioner.init('City', {name:'Rome'}, {}, '', localdatetime('2000-01-01T00:00:00'))");
+            session.run("MATCH (p:Person {name:'Alice'}), (c:City) CALL graph.versioner.relationship.create(p, c, 'LIVES_IN', {}, localdatetime('2000-02-01T00:00:00')) YIELD relationship RETURN relationship");
+            session.run("CREATE (:Person {name:'NotVersioned'})");
+
+            // When
+            List<Record> pastResult = session.run("CALL graph.versioner.get.snapshot('Person', localdatetime('2000-01-15T00:00:00')) YIELD entity, state, relationships RETURN entity.name AS name, size(relationships) AS relationships ORDER BY name").list();
+            List<Record> currentResult = session.run("CALL graph.versioner.get.snapshot('Person') YIELD entity, state, relationships RETURN entity.name AS name, [rel IN relationships | type(rel)] AS types ORDER BY name").list();
+
+            // Then
+            assertThat(pastResult.size(), equalTo(2));
+            assertThat(pastResult.get(0).get("name").asString(), equalTo("Alice"));
+            assertThat(pastResult.get(0).get("relationships").asLong(), equalTo(0L));
+            assertThat(pastResult.get(1).get("name").asString(), equalTo("Bob"));
+            assertThat(currentResult.size(), equalTo(2));
+            assertThat(currentResult.get(0).get("types").asList(), equalTo(Collections.singletonList("LIVES_IN")));
+            assertThat(currentResult.get(1).get("types").asList(), equalTo(Collections.emptyList()));
+        }
+    }
+
+    /*------------------------------*/
+    /*         delta States         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldGetTheRebuiltPropertiesOfDeltaStates() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {name:'wide', version:0}, 'Keyframe', localdatetime('2000-01-01T00:00:00')) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {keyframeInterval:10}) YIELD options RETURN options");
+            for (int i = 1; i <= 3; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.patch(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            // When
+            Record all = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.all(e) YIELD path, properties RETURN [s IN nodes(path)[1..] | s.version] AS versions, properties").single();
+            List<Record> history = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.history(e) YIELD state, properties RETURN state, properties").list();
+            Record at = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-03T12:00:00')) YIELD node, properties RETURN node, properties").single();
+            Record byLabel = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.by.label(e, 'Keyframe') YIELD properties RETURN properties").single();
+            Record batch = session.run("MATCH (e:Entity) WITH collect(e) AS entities CALL graph.versioner.get.batch(entities, localdatetime('2000-01-02T12:00:00')) YIELD properties RETURN properties").single();
+            Record snapshot = session.run("CALL graph.versioner.get.snapshot('Entity', localdatetime('2000-01-02T12:00:00')) YIELD properties RETURN properties").single();
+
+            // Then
+            List<Object> versions = all.get("versions").asList();
+            List<Object> allProperties = all.get("properties").asList();
+            assertThat(allProperties.size(), equalTo(4));
+            for (int i = 0; i < 4; i++) {
+                assertThat(((Map<?, ?>) allProperties.get(i)).get("name"), equalTo("wide"));
+                assertThat(((Map<?, ?>) allProperties.get(i)).get("version"), equalTo(versions.get(i)));
+            }
+            assertThat(history.size(), equalTo(4));
+            for (int i = 0; i < 4; i++) {
+                assertThat(history.get(i).get("properties").get("name").asString(), equalTo("wide"));
+                assertThat(history.get(i).get("properties").get("version").asLong(), equalTo(3L - i));
+            }
+            assertThat(history.get(1).get("state").asNode().containsKey("name"), equalTo(false));
+            assertThat(at.get("node").asNode().containsKey("name"), equalTo(false));
+            assertThat(at.get("properties").get("name").asString(), equalTo("wide"));
+            assertThat(at.get("properties").get("version").asLong(), equalTo(2L));
+            assertThat(byLabel.get("properties").get("version").asLong(), equalTo(0L));
+            assertThat(batch.get("properties").get("name").asString(), equalTo("wide"));
+            assertThat(batch.get("properties").get("version").asLong(), equalTo(1L));
+            assertThat(snapshot.get("properties").get("name").asString(), equalTo("wide"));
+            assertThat(snapshot.get("properties").get("version").asLong(), equalTo(1L));
+        }
+    }
 }
@@ -0,0 +1,205 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * ImportTest class, it contains all the method used to test Import class methods
+ */
+public class ImportTest {
+
+    private static final Path IMPORT_DIR = createImportDir();
+
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Import.class).withProcedure(Init.class).withProcedure(Update.class).withProcedure(Get.class)
+            .withProcedure(Rollback.class).withProcedure(ConfigProcedure.class)
+            .withConfig(GraphDatabaseSettings.load_csv_file_url_root, IMPORT_DIR);
+
+    /*------------------------------*/
+    /*          import.file         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldImportTheStateChainsFromACsvFile() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createKeyIndex(session, "entityKey");
+            writeFile("chains.csv",
+                    "entityKey:long,date,name,price:double",
+                    "1,2000-01-01T00:00:00,first,1.5",
+                    "2,2000-01-01,other,",
+                    "1,2000-01-02T00:00:00,\"first, renamed\",2.5",
+                    "1,2000-01-03T00:00:00,last,3.5");
+
+            // When
+            Record result = session.run("CALL graph.versioner.import.file('chains.csv', 'Entity', {batchSize:1, concurrency:2}) YIELD rows, entities RETURN rows, entities").single();
+            Result currentResult = session.run("MATCH (e:Entity {entityKey:1}) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node");
+            Result atResult = session.run("MATCH (e:Entity {entityKey:1}) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-02T12:00:00')) YIELD node RETURN node");
+            Result previousResult = session.run("MATCH (:Entity {entityKey:1})-[:CURRENT]->(:State)-[p:PREVIOUS]->(:State)-[p2:PREVIOUS]->(s:State) RETURN p.date as date, p2.date as date2, s.name as name");
+            Result otherResult = session.run("MATCH (e:Entity {entityKey:2})-[:HAS_STATE]->(s:State) RETURN s");
+
+            // Then
+            assertThat(result.get("rows").asLong(), equalTo(4L));
+            assertThat(result.get("entities").asLong(), equalTo(2L));
+            assertThat(currentResult.single().get("node").asNode().get("price").asDouble(), equalTo(3.5d));
+            assertThat(atResult.single().get("node").asNode().get("name").asString(), equalTo("first, renamed"));
+            Record previous = previousResult.single();
+            assertThat(previous.get("date").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 2, 0, 0)));
+            assertThat(previous.get("date2").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 1, 0, 0)));
+            assertThat(previous.get("name").asString(), equalTo("first"));
+            assertThat(otherResult.single().get("s").asNode().containsKey("price"), equalTo(false));
+        }
+    }
+
+    @Test
+    public void shouldAppendTheImportedStatesToAnExistingEntity() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createKeyIndex(session, "code");
+            session.run("CALL graph.versioner.init('Entity', {code:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node RETURN node");
+            writeFile("append.jsonl",
+                    "{\"code\":\"a\",\"at\":\"2000-01-02T00:00:00\",\"version\":1,\"tags\":[\"x\",\"y\"]}",
+                    "{\"code\":\"a\",\"at\":\"2000-01-03T00:00:00\",\"version\":2,\"scores\":[1,2]}");
+
+            // When
+            Record result = session.run("CALL graph.versioner.import.file('append.jsonl', 'Entity', {keyColumn:'code', dateColumn:'at'}) YIELD rows, entities RETURN rows, entities").single();
+            Result countResult = session.run("MATCH (:Entity {code:'a'})-[:HAS_STATE]->(s:State) RETURN count(s) as count");
+            Result atResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.at(e, localdatetime('2000-01-02T12:00:00')) YIELD node RETURN node");
+            Result currentResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.current.state(e) YIELD node RETURN node");
+            Result rollbackResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.rollback(e) YIELD node RETURN node");
+
+            // Then
+            assertThat(result.get("rows").asLong(), equalTo(2L));
+            assertThat(result.get("entities").asLong(), equalTo(0L));
+            assertThat(countResult.single().get("count").asLong(), equalTo(3L));
+            assertThat(atResult.single().get("node").asNode().get("tags").asList(), equalTo(Arrays.asList("x", "y")));
+            List<Object> scores = currentResult.single().get("node").asNode().get("scores").asList();
+            assertThat(scores, equalTo(Arrays.asList(1L, 2L)));
+            assertThat(rollbackResult.single().get("node").asNode().get("version").asLong(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void shouldSkipTheUnchangedRowsOfAnExistingEntityWithSkipUnchanged() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createKeyIndex(session, "entityKey");
+            session.run("CALL graph.versioner.init('Entity', {entityKey:'a'}, {version:0}, '', localdatetime('2000-01-01T00:00:00')) YIELD node " +
+                    "CALL graph.versioner.config.set(node, {skipUnchanged: true}) YIELD entity RETURN entity");
+            writeFile("unchanged.csv",
+                    "entityKey,date,version:long",
+                    "a,2000-01-02T00:00:00,0",
+                    "a,2000-01-03T00:00:00,1",
+                    "a,2000-01-04T00:00:00,1");
+
+            // When
+            session.run("CALL graph.versioner.import.file('unchanged.csv', 'Entity') YIELD rows RETURN rows").consume();
+            Result statesResult = session.run("MATCH (:Entity {entityKey:'a'})-[h:HAS_STATE]->(s:State) RETURN s.version as version, h.startDate as date ORDER BY date");
+
+            // Then
+            List<Record> states = statesResult.list();
+            assertThat(states.size(), equalTo(2));
+            assertThat(states.get(1).get("version").asLong(), equalTo(1L));
+            assertThat(states.get(1).get("date").asLocalDateTime(), equalTo(LocalDateTime.of(2000, 1, 3, 0, 0)));
+        }
+    }
+
+    @Test(expected = ClientException.class)
+    public void shouldNotImportRowsOlderThanTheCurrentState() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            createKeyIndex(session, "entityKey");
+            writeFile("unordered.csv",
+                    "entityKey,date,name",
+                    "a,2000-01-02T00:00:00,second",
+                    "a,2000-01-01T00:00:00,first");
+
+            // When
+            session.run("CALL graph.versioner.import.file('unordered.csv', 'Entity') YIELD rows RETURN rows").consume();
+        }
+    }
+
+    @Test(expected = ClientException.class)
+    public void shouldNotImportAFileOutsideTheImportDirectory() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // When
+            session.run("CALL graph.versioner.import.file('../outside.csv', 'Entity') YIELD rows RETURN rows").consume();
+        }
+    }
+
+    @Test
+    public void shouldNotImportWithoutAnIndexOnTheKeyProperty() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            writeFile("unindexed.csv",
+                    "entityKey,date,name",
+                    "a,2000-01-01T00:00:00,first");
+
+            // When
+            try {
+                session.run("CALL graph.versioner.import.file('unindexed.csv', 'Entity') YIELD rows RETURN rows").consume();
+                fail("The import should fail without an index on the key property");
+            } catch (ClientException e) {
+                assertThat(e.getMessage().contains("online index on the entityKey property of the Entity nodes"), equalTo(true));
+            }
+            Result countResult = session.run("MATCH (n) RETURN count(n) as count");
+
+            // Then
+            assertThat(countResult.single().get("count").asLong(), equalTo(0L));
+        }
+    }
+
+    static void createKeyIndex(Session session, String keyProperty) {
+        session.run("CREATE INDEX FOR (e:Entity) ON (e." + keyProperty + ")").consume();
+        session.run("CALL db.awaitIndexes()").consume();
+    }
+
+    private static Path createImportDir() {
+        try {
+            return Files.createTempDirectory("versioner-import");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFile(String name, String... lines) {
+        try {
+            Files.write(IMPORT_DIR.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.homer.versioner.core.procedure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.harness.junit.rule.Neo4jRule;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * IndexTest class, it contains all the method used to test Index class methods
+ */
+public class IndexTest {
+    @Rule
+    public Neo4jRule neo4j = new Neo4jRule()
+
+            // This is the function we want to test
+            .withProcedure(Index.class).withProcedure(Get.class).withProcedure(Update.class);
+
+    /*------------------------------*/
+    /*         index.rebuild        */
+    /*------------------------------*/
+
+    @Test
+    public void shouldIndexAnEntityCreatedWithoutIndex() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'immutableValue'})-[:CURRENT {date:localdatetime('2000-01-01T00:00:00')}]->(s:State {version:0})");
+            session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) CREATE (e)-[:HAS_STATE {startDate:localdatetime('2000-01-01T00:00:00')}]->(s)");
+            for (int i = 1; i <= 16; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+
+            // When
+            Record result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.index.rebuild(e) YIELD states, skips RETURN states, skips").single();
+            Result ordinalResult = session.run("MATCH (:Entity)-[r:HAS_STATE]->(:State {version:16}) RETURN r.ordinal as ordinal");
+            Result skipResult = session.run("MATCH (:State {version:15})-[r:SKIP {distance:8}]->(s:State) RETURN s");
+
+            // Then
+            assertThat(result.get("states").asLong(), equalTo(17L));
+            assertThat(result.get("skips").asLong(), equalTo(11L));
+            assertThat(ordinalResult.single().get("ordinal").asLong(), equalTo(17L));
+            assertThat(skipResult.single().get("s").asNode().get("version").asLong(), equalTo(7L));
+        }
+    }
+
+    @Test
+    public void shouldKeepTheIndexUpdatedAfterRebuild() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'immutableValue'})-[:CURRENT {date:localdatetime('2000-01-01T00:00:00')}]->(s:State {version:0})");
+            session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) CREATE (e)-[:HAS_STATE {startDate:localdatetime('2000-01-01T00:00:00')}]->(s)");
+            session.run("MATCH (e:Entity) WITH e CALL graph.versioner.index.rebuild(e) YIELD states RETURN states");
+
+            // When
+            for (int i = 1; i <= 15; i++) {
+                session.run("MATCH (e:Entity) WITH e CALL graph.versioner.update(e, {version:$version}, '', localdatetime('2000-01-01T00:00:00') + duration({days:$version})) YIELD node RETURN node",
+                        Values.parameters("version", i));
+            }
+            Result nthResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.nth.state(e, 13) YIELD node RETURN node");
+            Result tooFarResult = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.get.nth.state(e, 16) YIELD node RETURN node");
+            Result skipResult = session.run("MATCH (:State {version:15})-[r:SKIP {distance:16}]->(s:State) RETURN s");
+
+            // Then
+            assertThat(nthResult.single().get("node").asNode().get("version").asLong(), equalTo(2L));
+            assertThat(tooFarResult.hasNext(), equalTo(false));
+            assertThat(skipResult.hasNext(), equalTo(false));
+        }
+    }
+}
@@ -4,9 +4,13 @@ import org.assertj.core.api.Assertions;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.driver.types.Node;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.util.List;
+
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.homer.versioner.core.Utility.convertEpochToLocalDateTime;
 import static org.junit.Assert.assertThat;
@@ -153,4 +157,80 @@ public class InitTest {
                     .allMatch(path -> path.get("rPath").asPath().length() == 1);
         }
     }
-}
\ No newline at end of file
+
+    /*------------------------------*/
+    /*          init.batch          */
+    /*------------------------------*/
+
+    @Test
+    public void shouldCreateAnEntityForEachItemOfTheBatch() throws Throwable {
+
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // When
+            Result result = session.run("CALL graph.versioner.init.batch('Entity', [" +
+                    "{entityProps:{key:'first'}, stateProps:{value:1}}, " +
+                    "{entityProps:{key:'second'}, stateProps:{value:2}, additionalLabel:'Error', date:localdatetime('1988-10-27T02:46:40')}]) " +
+                    "YIELD entity, id RETURN entity.key as key, id");
+            Result stateResult = session.run("MATCH (r:R)-[:FOR]->(e:Entity)-[:CURRENT]->(s:State)<-[h:HAS_STATE]-(e) " +
+                    "RETURN e.key as key, s.value as value, labels(s) as labels, h.startDate as date, h.ordinal as ordinal ORDER BY key");
+
+            // Then
+            Assertions.assertThat(result.list(record -> record.get("key").asString())).containsExactly("first", "second");
+            List<Record> states = stateResult.list();
+            Assertions.assertThat(states).hasSize(2);
+            Assertions.assertThat(states.get(0).get("value").asLong()).isEqualTo(1L);
+            Assertions.assertThat(states.get(0).get("ordinal").asLong()).isEqualTo(1L);
+            Assertions.assertThat(states.get(1).get("labels").asList()).containsExactlyInAnyOrder("State", "Error");
+            Assertions.assertThat(states.get(1).get("date").asLocalDateTime()).isEqualTo(convertEpochToLocalDateTime(593920000000L));
+        }
+    }
+
+    @Test
+    public void shouldNotCreateAnyEntityIfAnItemOfTheBatchIsNull() throws Throwable {
+
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // When
+            Throwable thrown = Assertions.catchThrowable(() -> session.run("CALL graph.versioner.init.batch('Entity', [{entityProps:{key:'first'}}, null]) YIELD id RETURN id").consume());
+            Result countResult = session.run("MATCH (e:Entity) RETURN count(e) as count");
+
+            // Then
+            Assertions.assertThat(thrown).isInstanceOf(ClientException.class).hasMessageContaining("The batch item at index 1 is not valid");
+            Assertions.assertThat(countResult.single().get("count").asLong()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void shouldRejectAnUnknownKeyInAnItemOfTheBatch() throws Throwable {
+
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // When
+            Throwable thrown = Assertions.catchThrowable(() -> session.run("CALL graph.versioner.init.batch('Entity', [{entityProps:{key:'first'}, stateprops:{value:1}}]) YIELD id RETURN id").consume());
+
+            // Then
+            Assertions.assertThat(thrown).isInstanceOf(ClientException.class).hasMessageContaining("has the unknown key stateprops");
+        }
+    }
+
+    /*------------------------------*/
+    /*        init.batch.ids        */
+    /*------------------------------*/
+
+    @Test
+    public void shouldReturnOnlyTheIdsOfTheCreatedEntities() throws Throwable {
+
+        try (Driver driver = GraphDatabase.driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // When
+            Result result = session.run("UNWIND range(1, 3) AS i WITH collect({entityProps:{index:i}}) AS items " +
+                    "CALL graph.versioner.init.batch.ids('Entity', items) YIELD id RETURN id");
+            Result idsResult = session.run("MATCH (e:Entity)-[:CURRENT]->(:State) RETURN id(e) as id ORDER BY e.index");
+
+            // Then
+            Assertions.assertThat(result.list(record -> record.get("id").asLong()))
+                    .containsExactlyElementsOf(idsResult.list(record -> record.get("id").asLong()));
+        }
+    }
+}
@@ -4,10 +4,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.internal.InternalRelationship;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,7 +25,7 @@ public class RelationshipProcedureTest extends GenericProcedureTest {
     public Neo4jRule neo4j = new Neo4jRule()
 
             // This is the function we want to test
-            .withProcedure(RelationshipProcedure.class);
+            .withProcedure(RelationshipProcedure.class).withProcedure(ConfigProcedure.class);
 
     /*-------------------------------------------*/
     /*            relationship.create            */
@@ -229,4 +231,177 @@ public class RelationshipProcedureTest extends GenericProcedureTest {
                     .containsExactlyInAnyOrder(expectedRelationship1, expectedRelationship2);
         }
     }
+
+    /*-------------------------------------------*/
+    /*            relationships.batch            */
+    /*-------------------------------------------*/
+
+    @Test
+    public void shouldCreateASingleStatePerSourceForABatchOfRelationships() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            Node entityC = initEntity(session);
+            Node entityD = initEntity(session);
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity), (c:Entity), (d:Entity) WHERE id(a) = %d AND id(b) = %d AND id(c) = %d AND id(d) = %d " +
+                    "WITH [{source: a, destination: b, type: 'KNOWS', props: {since: 1988}}, {source: a, destination: c, type: 'KNOWS'}, " +
+                    "{source: a, destination: d, type: 'LIKES'}, {source: d, destination: a, type: 'KNOWS'}] AS changes " +
+                    "CALL graph.versioner.relationships.batch(changes) YIELD entity, created, deleted RETURN id(entity) AS id, created, deleted";
+            List<Record> result = session.run(String.format(query, entityA.id(), entityB.id(), entityC.id(), entityD.id())).list();
+
+            // Then
+            assertThat(result).extracting(r -> r.get("id").asLong() + ":" + r.get("created").asLong() + ":" + r.get("deleted").asLong())
+                    .containsExactly(entityA.id() + ":3:0", entityD.id() + ":1:0");
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) = %d RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id())).single().get("states").asLong()).isEqualTo(2L);
+            assertThat(session.run(String.format(queryStates, entityD.id())).single().get("states").asLong()).isEqualTo(2L);
+            String queryRelationships = "MATCH (e:Entity)-[:CURRENT]->(:State)-[r]->(:R)-[:FOR]->(d:Entity) WHERE id(e) = %d RETURN type(r) AS type, id(d) AS id, r.since AS since ORDER BY id";
+            assertThat(session.run(String.format(queryRelationships, entityA.id())).list())
+                    .extracting(r -> r.get("type").asString() + ":" + r.get("id").asLong() + ":" + r.get("since").asObject())
+                    .containsExactly("KNOWS:" + entityB.id() + ":1988", "KNOWS:" + entityC.id() + ":null", "LIKES:" + entityD.id() + ":null");
+        }
+    }
+
+    @Test
+    public void shouldCreateAndDeleteRelationshipsOfABatchInTheSameState() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            Node entityC = initEntity(session);
+            Node entityD = initEntity(session);
+            String createQuery = "MATCH (a:Entity), (b:Entity), (c:Entity) WHERE id(a) = %d AND id(b) = %d AND id(c) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS'}, {source: a, destination: c, type: 'KNOWS'}]) YIELD state RETURN state";
+            session.run(String.format(createQuery, entityA.id(), entityB.id(), entityC.id())).consume();
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity), (d:Entity) WHERE id(a) = %d AND id(b) = %d AND id(d) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS', delete: true}, {source: a, destination: d, type: 'KNOWS'}]) " +
+                    "YIELD created, deleted RETURN created, deleted";
+            Record result = session.run(String.format(query, entityA.id(), entityB.id(), entityD.id())).single();
+
+            // Then
+            assertThat(result.get("created").asLong()).isEqualTo(1L);
+            assertThat(result.get("deleted").asLong()).isEqualTo(1L);
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) = %d RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id())).single().get("states").asLong()).isEqualTo(3L);
+            String queryRelationships = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:KNOWS]->(:R)-[:FOR]->(d:Entity) WHERE id(e) = %d RETURN id(d) AS id ORDER BY id";
+            assertThat(session.run(String.format(queryRelationships, entityA.id())).list())
+                    .extracting(r -> r.get("id").asLong())
+                    .containsExactly(entityC.id(), entityD.id());
+        }
+    }
+
+    @Test
+    public void shouldSkipABatchAddingAndThenDeletingTheSameRelationship() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            session.run(String.format("MATCH (a:Entity) WHERE id(a) = %d CALL graph.versioner.config.set(a, {skipUnchanged: true}) YIELD entity RETURN entity", entityA.id())).consume();
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity) WHERE id(a) = %d AND id(b) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS'}, {source: a, destination: b, type: 'KNOWS', delete: true}]) " +
+                    "YIELD created, deleted RETURN created, deleted";
+            Record result = session.run(String.format(query, entityA.id(), entityB.id())).single();
+
+            // Then
+            assertThat(result.get("created").asLong()).isEqualTo(0L);
+            assertThat(result.get("deleted").asLong()).isEqualTo(0L);
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) = %d RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id())).single().get("states").asLong()).isEqualTo(1L);
+            String queryRelationships = "MATCH (e:Entity)-[:CURRENT]->(:State)-[r:KNOWS]->(:R) WHERE id(e) = %d RETURN count(r) AS count";
+            assertThat(session.run(String.format(queryRelationships, entityA.id())).single().get("count").asLong()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void shouldSkipABatchDeletingAndThenAddingTheSameRelationship() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            String createQuery = "MATCH (a:Entity), (b:Entity) WHERE id(a) = %d AND id(b) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS'}]) YIELD state RETURN state";
+            session.run(String.format(createQuery, entityA.id(), entityB.id())).consume();
+            session.run(String.format("MATCH (a:Entity) WHERE id(a) = %d CALL graph.versioner.config.set(a, {skipUnchanged: true}) YIELD entity RETURN entity", entityA.id())).consume();
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity) WHERE id(a) = %d AND id(b) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS', delete: true}, {source: a, destination: b, type: 'KNOWS'}]) " +
+                    "YIELD created, deleted RETURN created, deleted";
+            Record result = session.run(String.format(query, entityA.id(), entityB.id())).single();
+
+            // Then
+            assertThat(result.get("created").asLong()).isEqualTo(0L);
+            assertThat(result.get("deleted").asLong()).isEqualTo(0L);
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) = %d RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id())).single().get("states").asLong()).isEqualTo(2L);
+            String queryRelationships = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:KNOWS]->(:R)-[:FOR]->(d:Entity) WHERE id(e) = %d RETURN id(d) AS id";
+            assertThat(session.run(String.format(queryRelationships, entityA.id())).single().get("id").asLong()).isEqualTo(entityB.id());
+        }
+    }
+
+    @Test
+    public void shouldNotApplyABatchWithAnInvalidChange() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity) WHERE id(a) = %d AND id(b) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS'}, {source: a, target: b, type: 'KNOWS'}]) YIELD state RETURN state";
+            Throwable thrown = catchThrowable(() -> session.run(String.format(query, entityA.id(), entityB.id())).consume());
+
+            // Then
+            assertThat(thrown).hasMessageContaining("The relationship change key target is not valid");
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) = %d RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id())).single().get("states").asLong()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void shouldNotApplyABatchWithADestinationWithoutRNode() {
+
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+
+            // Given
+            Node entityA = initEntity(session);
+            Node entityB = initEntity(session);
+            Node entityC = initEntity(session);
+            session.run(String.format("MATCH (r:R)-[:FOR]->(c:Entity) WHERE id(c) = %d DETACH DELETE r", entityC.id()));
+
+            // When
+            String query = "MATCH (a:Entity), (b:Entity), (c:Entity) WHERE id(a) = %d AND id(b) = %d AND id(c) = %d " +
+                    "CALL graph.versioner.relationships.batch([{source: a, destination: b, type: 'KNOWS'}, {source: b, destination: c, type: 'KNOWS'}]) YIELD state RETURN state";
+            Throwable thrown = catchThrowable(() -> session.run(String.format(query, entityA.id(), entityB.id(), entityC.id())).consume());
+
+            // Then
+            assertThat(thrown).hasMessageContaining(String.format("The destination Entity with id %d has no R node", entityC.id()));
+            String queryStates = "MATCH (e:Entity)-[:CURRENT]->(:State)-[:PREVIOUS*0..]->(s:State) WHERE id(e) IN [%d, %d] RETURN count(s) AS states";
+            assertThat(session.run(String.format(queryStates, entityA.id(), entityB.id())).single().get("states").asLong()).isEqualTo(2L);
+        }
+    }
 }
+
@@ -4,9 +4,13 @@ import org.assertj.core.api.Assertions;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -19,7 +23,7 @@ public class RollbackTest {
     public Neo4jRule neo4j = new Neo4jRule()
 
             // This is the function we want to test
-            .withProcedure(Rollback.class);
+            .withProcedure(Rollback.class).withProcedure(Init.class).withProcedure(Update.class);
 
     /*------------------------------*/
     /*           rollback           */
@@ -84,6 +88,33 @@ public class RollbackTest {
         }
     }
 
+    @Test
+    public void shouldRecordTheRollbackTargetAfterManyUpdateAndRollbackCycles() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CALL graph.versioner.init('Entity', {key:'immutableValue'}, {version:-1}) YIELD node " +
+                    "CALL graph.versioner.update(node, {version:0}) YIELD node as state RETURN state").consume();
+            for (int i = 1; i <= 50; i++) {
+                session.run("MATCH (e:Entity) CALL graph.versioner.update(e, {version:$version}) YIELD node RETURN node", Values.parameters("version", i)).consume();
+                session.run("MATCH (e:Entity) CALL graph.versioner.rollback(e) YIELD node RETURN node").consume();
+            }
+
+            // When
+            Result result = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.rollback(e) YIELD node RETURN node");
+            Result targets = session.run("MATCH (:State)-[:ROLLBACK_TARGET]->(t:State) RETURN count(*) as count, collect(DISTINCT t.version) as versions");
+            Result noTarget = session.run("MATCH (e:Entity) WITH e CALL graph.versioner.rollback(e) YIELD node RETURN node");
+
+            // Then
+            assertThat(result.single().get("node").asNode().get("version").asLong(), equalTo(-1L));
+            Record record = targets.single();
+            assertThat(record.get("count").asLong(), equalTo(49L));
+            assertThat(record.get("versions").asList(), equalTo(Collections.singletonList(0L)));
+            assertThat(noTarget.hasNext(), equalTo(false));
+        }
+    }
+
     @Test
     public void shouldGetNullIfThereIsNoPreviousState() {
         // This is in a try-block, to make sure we close the driver after the test
@@ -251,4 +282,61 @@ public class RollbackTest {
                     .allMatch(node -> node.get("s").asNode().hasLabel("Error"));
         }
     }
+
+    /*-------------------------------*/
+    /*        rollback.all.to        */
+    /*-------------------------------*/
+
+    @Test
+    public void shouldRollbackAllTheEntitiesWithALabelToTheGivenDate() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("UNWIND range(1, 5) as key CALL graph.versioner.init('Item', {key:key}, {version:1}, '', localdatetime('2000-01-01T00:00:00')) YIELD node " +
+                    "CALL graph.versioner.update(node, {version:2}, '', localdatetime('2000-01-02T00:00:00')) YIELD node as updated RETURN updated").consume();
+            session.run("CALL graph.versioner.init('Item', {key:6}, {version:2}, '', localdatetime('2000-01-02T00:00:00')) YIELD node RETURN node").consume();
+            session.run("MATCH (i:Item) CALL graph.versioner.update(i, {version:-1}, '', localdatetime('2000-01-03T00:00:00')) YIELD node RETURN node").consume();
+
+            // When
+            Record result = session.run("CALL graph.versioner.rollback.all.to('Item', localdatetime('2000-01-02T12:00:00'), {batchSize:2, concurrency:2}) " +
+                    "YIELD entities, rolledBack, skipped, batches RETURN entities, rolledBack, skipped, batches").single();
+            Record again = session.run("CALL graph.versioner.rollback.all.to('Item', localdatetime('2000-01-01T12:00:00'), {batchSize:4}) " +
+                    "YIELD rolledBack, skipped RETURN rolledBack, skipped").single();
+            Result versions = session.run("MATCH (i:Item)-[:CURRENT]->(s:State) RETURN i.key as key, s.version as version ORDER BY key");
+
+            // Then
+            assertThat(result.get("entities").asLong(), equalTo(6L));
+            assertThat(result.get("rolledBack").asLong(), equalTo(6L));
+            assertThat(result.get("batches").asLong(), equalTo(3L));
+            assertThat(again.get("rolledBack").asLong(), equalTo(5L));
+            assertThat(again.get("skipped").asLong(), equalTo(1L));
+            assertThat(versions.list(record -> record.get("version").asLong()), equalTo(Arrays.asList(1L, 1L, 1L, 1L, 1L, 2L)));
+        }
+    }
+
+    @Test
+    public void shouldRollbackTheGivenEntitiesToTheStateARollbackStateWasClonedFrom() {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("UNWIND range(1, 2) as key CALL graph.versioner.init('Item', {key:key}, {version:1}, '', localdatetime('2000-01-01T00:00:00')) YIELD node " +
+                    "CALL graph.versioner.update(node, {version:2}, '', localdatetime('2000-01-02T00:00:00')) YIELD node as updated RETURN updated").consume();
+            session.run("MATCH (i:Item) CALL graph.versioner.rollback(i, localdatetime('2000-01-03T00:00:00')) YIELD node RETURN node").consume();
+            session.run("MATCH (i:Item {key:1}) CALL graph.versioner.update(i, {version:-1}, '', localdatetime('2000-01-04T00:00:00')) YIELD node RETURN node").consume();
+
+            // When
+            Record result = session.run("MATCH (i:Item) WITH collect(i) as items CALL graph.versioner.rollback.all.to(items, localdatetime('2000-01-03T12:00:00')) " +
+                    "YIELD rolledBack, skipped RETURN rolledBack, skipped").single();
+            Result rolledBack = session.run("MATCH (:Item {key:1})-[:CURRENT]->(s:State)-[:ROLLBACK]->(target:State) RETURN s.version as version, exists((target)-[:ROLLBACK]->()) as isRollback");
+
+            // Then
+            assertThat(result.get("rolledBack").asLong(), equalTo(1L));
+            assertThat(result.get("skipped").asLong(), equalTo(1L));
+            Record record = rolledBack.single();
+            assertThat(record.get("version").asLong(), equalTo(1L));
+            assertThat(record.get("isRollback").asBoolean(), equalTo(false));
+        }
+    }
 }
@@ -4,10 +4,13 @@ import org.assertj.core.api.Assertions;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.exceptions.ClientException;
 import org.neo4j.driver.types.Node;
 import org.neo4j.harness.junit.rule.Neo4jRule;
 
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.homer.versioner.core.Utility.convertEpochToLocalDateTime;
 import static org.junit.Assert.assertThat;
@@ -117,6 +120,71 @@ public class UpdateTest extends GenericProcedureTest {
         }
     }
 
+    /*------------------------------*/
+    /*         update.batch         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldCreateANewStateForEachItemOfTheBatch() throws Throwable {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'first'})-[:CURRENT {date:localdatetime('1988-10-27T00:00:00')}]->(s:State {key:'initialValue'})");
+            session.run("CREATE (e:Entity {key:'second'})");
+            session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) CREATE (e)-[:HAS_STATE {startDate:localdatetime('1988-10-27T00:00:00')}]->(s)");
+
+            // When
+            Result result = session.run("MATCH (a:Entity {key:'first'}), (b:Entity {key:'second'}) " +
+                    "CALL graph.versioner.update.batch([" +
+                    "{entity:a, stateProps:{key:'firstValue'}, date:localdatetime('1988-10-28T00:00:00')}, " +
+                    "{entity:b, stateProps:{key:'otherValue'}, additionalLabel:'Error'}, " +
+                    "{entity:a, stateProps:{key:'secondValue'}, date:localdatetime('1988-10-29T00:00:00')}]) " +
+                    "YIELD entity, state RETURN entity.key as entity, state.key as state");
+            Result chainResult = session.run("MATCH (:Entity {key:'first'})-[:CURRENT]->(s1:State)-[:PREVIOUS]->(s2:State)-[:PREVIOUS]->(s3:State) RETURN s1.key as s1, s2.key as s2, s3.key as s3");
+            Result labelResult = session.run("MATCH (:Entity {key:'second'})-[:CURRENT]->(s:State:Error) RETURN s.key as key");
+
+            // Then
+            Assertions.assertThat(result.list(record -> record.get("entity").asString() + ":" + record.get("state").asString()))
+                    .containsExactly("first:firstValue", "second:otherValue", "first:secondValue");
+            Record chain = chainResult.single();
+            assertThat(chain.get("s1").asString(), equalTo("secondValue"));
+            assertThat(chain.get("s2").asString(), equalTo("firstValue"));
+            assertThat(chain.get("s3").asString(), equalTo("initialValue"));
+            assertThat(labelResult.single().get("key").asString(), equalTo("otherValue"));
+        }
+    }
+
+    @Test (expected = ClientException.class)
+    public void shouldNotApplyABatchWithAnItemWithoutEntity() throws Throwable {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'immutableValue'})");
+
+            // When
+            session.run("MATCH (e:Entity) CALL graph.versioner.update.batch([{entity:e}, {stateProps:{key:'value'}}]) YIELD state RETURN state").consume();
+        }
+    }
+
+    @Test
+    public void shouldNotApplyABatchWithAnItemWithAnUnknownKey() throws Throwable {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'immutableValue'})-[:CURRENT {date:localdatetime('1988-10-27T00:00:00')}]->(s:State {key:'initialValue'}) CREATE (e)-[:HAS_STATE {startDate:localdatetime('1988-10-27T00:00:00')}]->(s)");
+
+            // When
+            Throwable thrown = Assertions.catchThrowable(() -> session.run("MATCH (e:Entity) CALL graph.versioner.update.batch([{entity:e, stateprops:{key:'value'}}]) YIELD state RETURN state").consume());
+
+            // Then
+            Assertions.assertThat(thrown).hasMessageContaining("The batch item at index 0 has the unknown key stateprops");
+            Assertions.assertThat(session.run("MATCH (e:Entity)-[:HAS_STATE]->(s:State) RETURN count(s) AS states").single().get("states").asLong()).isEqualTo(1L);
+        }
+    }
+
     /*------------------------------*/
     /*             patch            */
 	/*------------------------------*/
@@ -296,6 +364,39 @@ public class UpdateTest extends GenericProcedureTest {
         }
     }
 
+    /*------------------------------*/
+    /*          patch.batch         */
+    /*------------------------------*/
+
+    @Test
+    public void shouldPatchTheCurrentStateOfEachItemOfTheBatch() throws Throwable {
+        // This is in a try-block, to make sure we close the driver after the test
+        try (Driver driver = GraphDatabase
+                .driver(neo4j.boltURI(), Config.builder().build()); Session session = driver.session()) {
+            // Given
+            session.run("CREATE (e:Entity {key:'first'})-[:CURRENT {date:localdatetime('1988-10-27T00:00:00')}]->(s:State {key:'initialValue', other:'first'})");
+            session.run("CREATE (e:Entity {key:'second'})-[:CURRENT {date:localdatetime('1988-10-27T00:00:00')}]->(s:State {key:'initialValue', other:'second'})");
+            session.run("MATCH (e:Entity)-[:CURRENT]->(s:State) CREATE (e)-[:HAS_STATE {startDate:localdatetime('1988-10-27T00:00:00')}]->(s)");
+
+            // When
+            session.run("MATCH (a:Entity {key:'first'}), (b:Entity {key:'second'}) " +
+                    "CALL graph.versioner.patch.batch([{entity:b, stateProps:{key:'patched'}}, {entity:a, stateProps:{key:'patched'}, additionalLabel:'Warning'}]) " +
+                    "YIELD state RETURN state").consume();
+            Result currentResult = session.run("MATCH (e:Entity)-[:CURRENT]->(s:State)-[:PREVIOUS]->(:State) RETURN e.key as entity, s ORDER BY entity");
+
+            // Then
+            List<Record> records = currentResult.list();
+            Assertions.assertThat(records).hasSize(2);
+            Node first = records.get(0).get("s").asNode();
+            Node second = records.get(1).get("s").asNode();
+            assertThat(first.get("key").asString(), equalTo("patched"));
+            assertThat(first.get("other").asString(), equalTo("first"));
+            assertThat(first.hasLabel("Warning"), equalTo(true));
+            assertThat(second.get("key").asString(), equalTo("patched"));
+            assertThat(second.get("other").asString(), equalTo("second"));
+        }
+    }
+
     /*------------------------------*/
     /*          patch.from          */
 	/*------------------------------*/